@@ -1,16 +1,53 @@
 package com.example.testTask.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+
 @Configuration
+@EnableConfigurationProperties({ImportProperties.class, ProductJsonCacheProperties.class, HttpCacheProperties.class,
+        CatalogSnapshotProperties.class, ProductFacetProperties.class, ProductBatchProperties.class,
+        VirtualThreadProperties.class, SyncLeaseProperties.class, UpstreamClientProperties.class,
+        ProductChangeProperties.class, ProductExportProperties.class})
 public class AppConfig {
 
     @Bean
-    public RestClient restClient() {
-        return RestClient.builder()
-                .baseUrl("https://fakestoreapi.com")
+    public UpstreamCircuitBreaker upstreamCircuitBreaker(UpstreamClientProperties properties) {
+        return new UpstreamCircuitBreaker(properties.getFailureThreshold(), properties.getOpenDuration());
+    }
+
+    @Bean
+    public UpstreamCallStats upstreamCallStats() {
+        return new UpstreamCallStats();
+    }
+
+    /*
+        Клиент внешнего api: http-клиент JDK (пул соединений, HTTP/2 с переходом на HTTP/1.1), тайм-аут соединения
+        и каждого чтения (UpstreamRequestFactory), сжатие ответа, повторы с задержкой и размыкатель цепи (app.upstream).
+        Время запросов (с повторами) — метрика http.client.requests
+     */
+    @Bean
+    public RestClient restClient(UpstreamClientProperties properties, UpstreamCircuitBreaker upstreamCircuitBreaker,
+                                 UpstreamCallStats upstreamCallStats, ObservationRegistry observationRegistry) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
+        RestClient.Builder builder = RestClient.builder()
+                .baseUrl(properties.getBaseUrl())
+                .requestFactory(new UpstreamRequestFactory(httpClient, properties.getReadTimeout()))
+                .observationRegistry(observationRegistry);
+        // цепочка перехватчиков проходится одним итератором: повтор продолжает её с места остановки,
+        // поэтому повторяющий перехватчик стоит последним, иначе повтор минует следующие за ним
+        if (properties.isCompression()) {
+            builder.requestInterceptor(new GzipResponseInterceptor());
+        }
+        builder.requestInterceptor(new ResilientUpstreamInterceptor(properties, upstreamCircuitBreaker, upstreamCallStats));
+        return builder.build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.testTask.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.List;
+
+/*
+    Двоичные кодировки ответов, выбираемые по заголовку Accept: CBOR (application/cbor) и Smile (application/x-jackson-smile).
+    Преобразователи строятся тем же ObjectMapper, что и json (модули, @JsonComponent, настройки spring.jackson.*),
+    поэтому структура ответа не зависит от кодировки. Они заменяют стандартные преобразователи Spring MVC на их месте
+    после json, поэтому без Accept или с шаблоном любого типа в Accept ответ остаётся json
+ */
+@Configuration
+public class BinaryEncodingConfig {
+
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    /*
+        Кодировки в порядке предпочтения при равном качестве в Accept: первая — json
+     */
+    public static final List<MediaType> ENCODINGS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
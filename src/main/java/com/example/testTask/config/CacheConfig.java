@@ -0,0 +1,32 @@
+package com.example.testTask.config;
+
+import com.example.testTask.service.CatalogVersionService;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+    Кэширование чтения каталога (Caffeine, параметры — spring.cache.*):
+    products — товары по id, сбрасываются точечно по CatalogChangedEvent;
+    productQueries и categories — результаты запросов, ключ включает версию каталога,
+    поэтому после изменения на любом узле устаревшие записи не используются
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_QUERIES = "productQueries";
+    public static final String CATEGORIES = "categories";
+
+    /*
+        Ключ "версия каталога + метод + параметры" для кэшей результатов запросов
+     */
+    @Bean
+    public KeyGenerator catalogKeyGenerator(CatalogVersionService catalogVersionService) {
+        return (target, method, params) ->
+                new SimpleKey(catalogVersionService.current().version(), method.getName(), new SimpleKey(params));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.products.snapshot")
+public class CatalogSnapshotProperties {
+
+    /*
+        Обслуживать фильтрацию и сортировку товаров из снимка каталога в памяти
+     */
+    private boolean enabled = false;
+}
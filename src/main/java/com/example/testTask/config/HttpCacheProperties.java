@@ -0,0 +1,18 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.http-cache")
+public class HttpCacheProperties {
+
+    /*
+        Время, в течение которого клиенты и CDN могут использовать ответ без повторной проверки (Cache-Control: max-age)
+     */
+    private Duration maxAge = Duration.ZERO;
+}
@@ -0,0 +1,95 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.import")
+public class ImportProperties {
+
+    /*
+        Количество товаров, записываемых в одной транзакции
+     */
+    private int chunkSize = 500;
+
+    /*
+        Количество потоков, преобразующих json-элементы в ProductDTO
+     */
+    private int parallelism = 2;
+
+    /*
+        Ёмкость очередей между стадиями импорта
+     */
+    private int queueCapacity = 1000;
+
+    /*
+        Поведение при запросе импорта, пока другой импорт выполняется или ждёт в очереди:
+        COALESCE — вернуть уже поставленную задачу, QUEUE — поставить новую задачу в очередь
+     */
+    private OverlapPolicy overlapPolicy = OverlapPolicy.COALESCE;
+
+    /*
+        Максимальное количество задач, ожидающих в очереди (для политики QUEUE)
+     */
+    private int maxQueuedJobs = 3;
+
+    /*
+        Количество одновременных запросов к источникам товаров (по всем источникам и страницам)
+     */
+    private int fetchConcurrency = 4;
+
+    /*
+        Источники товаров. Товары с одинаковым id берутся из источника с меньшим priority,
+        при равном priority — из источника, имя которого меньше
+     */
+    private List<Source> sources = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Source {
+
+        private String name;
+
+        private boolean enabled = true;
+
+        /*
+            Адрес api источника (пустое значение — app.upstream.base-url)
+         */
+        private String baseUrl;
+
+        private String path = "/products";
+
+        private int priority = 0;
+
+        /*
+            Смещение, прибавляемое к id товаров источника, чтобы id разных поставщиков не пересекались
+         */
+        private long idOffset = 0;
+
+        /*
+            Размер страницы (0 — источник отдаёт все товары одним ответом)
+         */
+        private int pageSize = 0;
+
+        /*
+            Параметры запроса с номером страницы (с 1) и размером страницы
+         */
+        private String pageParam = "page";
+
+        private String sizeParam = "limit";
+
+        /*
+            Максимальное количество загружаемых страниц
+         */
+        private int maxPages = 1000;
+    }
+
+    public enum OverlapPolicy {
+        QUEUE, COALESCE
+    }
+}
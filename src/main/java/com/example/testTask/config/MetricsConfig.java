@@ -0,0 +1,155 @@
+package com.example.testTask.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/*
+    Метрики приложения сверх стандартных метрик Spring Boot (http.server.requests, http.client.requests,
+    hikaricp.*, cache.*, jvm.*), доступные на /actuator/prometheus:
+    http.server.requests.statements — SQL-запросы на http-запрос (method, uri),
+    upstream.calls, upstream.retries, upstream.circuit.state — попытки запросов к внешнему api и размыкатель цепи,
+    db.connections.limited.* — соединения, выданные ConnectionLimitingDataSource, и ожидающие потоки.
+    Таймеры методов ProductService и CategoryService (@Timed) — catalog.service
+ */
+@Slf4j
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public MetricsConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /*
+        Оборачивание источника данных в StatementCountingDataSource
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof StatementCountingDataSource) {
+                    return bean;
+                }
+                return new StatementCountingDataSource(dataSource);
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementCountingInterceptor());
+    }
+
+    @Bean
+    public MeterBinder upstreamMetrics(UpstreamCallStats upstreamCallStats, UpstreamCircuitBreaker upstreamCircuitBreaker) {
+        return registry -> {
+            for (UpstreamCallStats.Outcome outcome : UpstreamCallStats.Outcome.values()) {
+                FunctionCounter.builder("upstream.calls", upstreamCallStats, stats -> stats.getCount(outcome))
+                        .description("Upstream call attempts by outcome")
+                        .tag("outcome", outcome.name())
+                        .register(registry);
+            }
+            FunctionCounter.builder("upstream.retries", upstreamCallStats, UpstreamCallStats::getRetries)
+                    .description("Upstream call retries")
+                    .register(registry);
+            for (UpstreamCircuitBreaker.State state : UpstreamCircuitBreaker.State.values()) {
+                Gauge.builder("upstream.circuit.state", upstreamCircuitBreaker,
+                                breaker -> breaker.getState() == state ? 1 : 0)
+                        .description("Upstream circuit breaker state (1 for the current state)")
+                        .tag("state", state.name())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionLimitMetrics(DataSource dataSource) {
+        return registry -> {
+            ConnectionLimitingDataSource limited = unwrap(dataSource);
+            if (limited == null) {
+                return;
+            }
+            Gauge.builder("db.connections.limited.active", limited, ConnectionLimitingDataSource::getActiveConnections)
+                    .description("Connections handed out by the connection limit")
+                    .register(registry);
+            Gauge.builder("db.connections.limited.waiting", limited, ConnectionLimitingDataSource::getWaitingThreads)
+                    .description("Threads waiting for a connection")
+                    .register(registry);
+        };
+    }
+
+    private static ConnectionLimitingDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ConnectionLimitingDataSource.class)
+                    ? dataSource.unwrap(ConnectionLimitingDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            log.warn("Failed to unwrap data source: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+        Подсчёт SQL-запросов за время обработки http-запроса в потоке обработчика.
+        Для асинхронных ответов (выгрузка, поток изменений) учитываются запросы до начала асинхронной обработки
+     */
+    private final class StatementCountingInterceptor implements AsyncHandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            // повторная обработка после асинхронного ответа не считается отдельным запросом
+            if (request.getDispatcherType() != DispatcherType.ASYNC) {
+                StatementCountingDataSource.startCounting();
+            }
+            return true;
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                   Object handler) {
+            record(request, StatementCountingDataSource.stopCounting());
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            record(request, StatementCountingDataSource.stopCounting());
+        }
+
+        private void record(HttpServletRequest request, long statements) {
+            // завершение асинхронного ответа приходит в другом потоке, где подсчёт не включён
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (statements < 0 || registry == null) {
+                return;
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("http.server.requests.statements")
+                    .description("SQL statements prepared while handling a request")
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(registry)
+                    .record(statements);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.products.batch")
+public class ProductBatchProperties {
+
+    /*
+        Количество товаров, записываемых в одной транзакции
+     */
+    private int chunkSize = 500;
+
+    /*
+        Максимальное количество товаров в одном запросе
+     */
+    private int maxItems = 50000;
+}
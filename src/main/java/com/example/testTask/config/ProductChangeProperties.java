@@ -0,0 +1,33 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.products.changes")
+public class ProductChangeProperties {
+
+    /*
+        Максимальное количество изменений в одном ответе и в одном чтении ленты для подписчиков
+     */
+    private int maxBatchSize = 500;
+
+    /*
+        Задержка отправки изменений подписчикам: изменения одного товара за это время отправляются одним событием
+     */
+    private Duration coalesceWindow = Duration.ofMillis(250);
+
+    /*
+        Время жизни подписки, после которого клиент переподключается с Last-Event-ID
+     */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    /*
+        Интервал комментариев-пульса, не дающих прокси закрыть неактивное соединение
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+}
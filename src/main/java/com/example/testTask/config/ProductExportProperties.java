@@ -0,0 +1,28 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.products.export")
+public class ProductExportProperties {
+
+    /*
+        Количество строк, получаемых из базы данных за одно обращение курсора
+     */
+    private int fetchSize = 1000;
+
+    /*
+        Максимальное количество одновременных выгрузок (каждая занимает соединение с базой данных на всё время выгрузки)
+     */
+    private int maxConcurrent = 2;
+
+    /*
+        Значение Retry-After в ответе 503, когда все выгрузки заняты
+     */
+    private Duration retryAfter = Duration.ofSeconds(10);
+}
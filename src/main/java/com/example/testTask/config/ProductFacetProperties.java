@@ -0,0 +1,23 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.products.facets")
+public class ProductFacetProperties {
+
+    /*
+        Максимальное время запроса фасетов, после которого он прерывается
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+
+    /*
+        Максимальное количество интервалов гистограммы цен
+     */
+    private int maxPriceBuckets = 200;
+}
@@ -0,0 +1,21 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.products.json-cache")
+public class ProductJsonCacheProperties {
+
+    /*
+        Кэшировать сериализованный json товаров
+     */
+    private boolean enabled = false;
+
+    /*
+        Максимальное количество товаров в кэше
+     */
+    private int maxEntries = 10_000;
+}
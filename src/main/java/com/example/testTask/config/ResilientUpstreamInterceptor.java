@@ -0,0 +1,93 @@
+package com.example.testTask.config;
+
+import com.example.testTask.config.UpstreamCallStats.Outcome;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+    Повтор запросов к внешнему api с экспоненциальной задержкой и случайным разбросом (full jitter),
+    размыкатель цепи и статистика задержек каждой попытки.
+    Повторяются только GET при ошибке соединения, 429 и 5xx: тело ответа ещё не прочитано, поэтому повтор безопасен
+ */
+@Slf4j
+public class ResilientUpstreamInterceptor implements ClientHttpRequestInterceptor {
+
+    private final UpstreamClientProperties properties;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final UpstreamCallStats stats;
+
+    public ResilientUpstreamInterceptor(UpstreamClientProperties properties, UpstreamCircuitBreaker circuitBreaker,
+                                        UpstreamCallStats stats) {
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+        this.stats = stats;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        int maxAttempts = request.getMethod() == HttpMethod.GET ? Math.max(1, properties.getMaxAttempts()) : 1;
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                stats.record(Outcome.REJECTED, Duration.ZERO);
+                throw new IOException("Upstream circuit breaker is open: " + request.getURI());
+            }
+            long start = System.nanoTime();
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                stats.record(Outcome.IO_ERROR, Duration.ofNanos(System.nanoTime() - start));
+                circuitBreaker.onFailure();
+                if (attempt >= maxAttempts || e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                log.warn("Upstream request {} failed (attempt {}/{}): {}", request.getURI(), attempt, maxAttempts, e.toString());
+                backoff(attempt);
+                continue;
+            }
+
+            HttpStatusCode status = response.getStatusCode();
+            Duration latency = Duration.ofNanos(System.nanoTime() - start);
+            if (!isRetryable(status)) {
+                stats.record(status.is4xxClientError() ? Outcome.CLIENT_ERROR : Outcome.SUCCESS, latency);
+                circuitBreaker.onSuccess();
+                return response;
+            }
+            stats.record(Outcome.SERVER_ERROR, latency);
+            circuitBreaker.onFailure();
+            if (attempt >= maxAttempts) {
+                return response;
+            }
+            response.close();
+            log.warn("Upstream request {} returned {} (attempt {}/{})", request.getURI(), status, attempt, maxAttempts);
+            backoff(attempt);
+        }
+    }
+
+    private static boolean isRetryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == 429;
+    }
+
+    private void backoff(int attempt) throws IOException {
+        stats.recordRetry();
+        long ceiling = Math.min(properties.getMaxBackoff().toMillis(),
+                properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry upstream request");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.testTask.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/*
+    Источник данных, считающий подготовленные SQL-запросы (prepareStatement, prepareCall, createStatement)
+    в потоке, для которого включён подсчёт. Считаются запросы и Hibernate, и JdbcTemplate.
+    Подсчёт включается на время обработки http-запроса (StatementCountingInterceptor); в остальных потоках
+    соединения работают без изменений
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+    private static final ThreadLocal<long[]> COUNTER = new ThreadLocal<>();
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    /*
+        Включение подсчёта в текущем потоке (счётчик обнуляется)
+     */
+    public static void startCounting() {
+        COUNTER.set(new long[1]);
+    }
+
+    /*
+        Выключение подсчёта в текущем потоке
+        @return количество запросов с момента startCounting или -1, если подсчёт не был включён
+     */
+    public static long stopCounting() {
+        long[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter != null ? counter[0] : -1;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        long[] counter = COUNTER.get();
+                        if (counter != null) {
+                            counter[0]++;
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+    Настройки аренды плановой синхронизации товаров между экземплярами приложения
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.import.lease")
+public class SyncLeaseProperties {
+
+    /*
+        Идентификатор экземпляра (пустое значение — имя хоста, pid и случайный суффикс)
+     */
+    private String nodeId = "";
+
+    /*
+        Срок аренды: если владелец не продлил её за это время, синхронизацию может взять другой экземпляр
+     */
+    private Duration ttl = Duration.ofMinutes(2);
+
+    /*
+        Интервал продления аренды владельцем, должен быть заметно меньше ttl
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+    /*
+        Интервал плановой синхронизации на весь кластер
+     */
+    private Duration syncInterval = Duration.ofMinutes(30);
+
+    /*
+        Как часто экземпляры проверяют, не пора ли запустить синхронизацию
+     */
+    private Duration checkInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,95 @@
+package com.example.testTask.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    Статистика попыток запросов к внешнему api: количество по результату и гистограмма задержек
+    с фиксированными границами (перцентили оцениваются по верхней границе интервала)
+ */
+public class UpstreamCallStats {
+
+    public enum Outcome {
+        SUCCESS, CLIENT_ERROR, SERVER_ERROR, IO_ERROR, REJECTED
+    }
+
+    private static final long[] BUCKET_BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final AtomicLongArray outcomes = new AtomicLongArray(Outcome.values().length);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(Outcome outcome, Duration latency) {
+        outcomes.incrementAndGet(outcome.ordinal());
+        if (outcome == Outcome.REJECTED) {
+            return;
+        }
+        long nanos = latency.toNanos();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        long millis = latency.toMillis();
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+    }
+
+    public void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    public long getCount(Outcome outcome) {
+        return outcomes.get(outcome.ordinal());
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /*
+        Оценка перцентиля задержки в миллисекундах (верхняя граница интервала гистограммы)
+        @param quantile доля от 0 до 1
+     */
+    public long percentileMs(double quantile) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return Duration.ofNanos(maxNanos.get()).toMillis();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        long calls = 0;
+        for (Outcome outcome : Outcome.values()) {
+            long count = getCount(outcome);
+            values.put(outcome.name().toLowerCase(), count);
+            if (outcome != Outcome.REJECTED) {
+                calls += count;
+            }
+        }
+        values.put("retries", getRetries());
+        values.put("meanMs", calls > 0 ? totalNanos.get() / calls / 1_000_000.0 : 0.0);
+        values.put("p50Ms", percentileMs(0.5));
+        values.put("p99Ms", percentileMs(0.99));
+        values.put("maxMs", Duration.ofNanos(maxNanos.get()).toMillis());
+        return values;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+    Настройки http-клиента внешнего api каталога
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.upstream")
+public class UpstreamClientProperties {
+
+    private String baseUrl = "https://fakestoreapi.com";
+
+    /*
+        Время установки соединения
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /*
+        Время ожидания каждого чтения: заголовков ответа и очередной части тела (весь ответ не ограничивается)
+     */
+    private Duration readTimeout = Duration.ofSeconds(30);
+
+    /*
+        Запрашивать сжатый ответ (Accept-Encoding: gzip)
+     */
+    private boolean compression = true;
+
+    /*
+        Количество попыток запроса, включая первую (повторяются только GET при ошибке соединения, 429 и 5xx)
+     */
+    private int maxAttempts = 3;
+
+    /*
+        Начальная задержка перед повтором, удваивается с каждой попыткой; фактическая задержка случайна от 0 до неё
+     */
+    private Duration initialBackoff = Duration.ofMillis(200);
+
+    /*
+        Максимальная задержка перед повтором
+     */
+    private Duration maxBackoff = Duration.ofSeconds(5);
+
+    /*
+        Количество неудачных попыток подряд, после которого запросы не отправляются (размыкатель открыт)
+     */
+    private int failureThreshold = 5;
+
+    /*
+        Время, на которое размыкатель открывается; затем пропускается одна пробная попытка
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+}
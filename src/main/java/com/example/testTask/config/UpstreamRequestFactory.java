@@ -0,0 +1,229 @@
+package com.example.testTask.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Запросы к внешнему api через http-клиент JDK с тайм-аутом каждого чтения, а не всего ответа.
+    Ожидание заголовков ограничивает тайм-аут запроса JDK (HttpTimeoutException, соединение освобождается клиентом),
+    ожидание очередной части тела — сторожевая задача, которая закрывает тело, если чтение не завершилось вовремя.
+    JdkClientHttpRequestFactory.setReadTimeout ограничивает весь обмен вместе с чтением тела: загрузка большого
+    каталога прерывается на середине, а отмена приходит как CancellationException, а не IOException
+ */
+public class UpstreamRequestFactory implements ClientHttpRequestFactory {
+
+    /*
+        Заголовки, которые http-клиент JDK выставляет сам и не принимает от вызывающего кода
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+    private static final ScheduledThreadPoolExecutor WATCHDOG = watchdog();
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    public UpstreamRequestFactory(HttpClient httpClient, Duration readTimeout) {
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new Request(uri, httpMethod);
+    }
+
+    private static ScheduledThreadPoolExecutor watchdog() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().daemon().name("upstream-read-timeout").factory());
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private final class Request extends AbstractClientHttpRequest {
+
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(0);
+
+        private Request(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(readTimeout);
+            headers.forEach((name, values) -> {
+                if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    values.forEach(value -> builder.header(name, value));
+                }
+            });
+            byte[] bytes = body.toByteArray();
+            builder.method(method.name(), bytes.length == 0
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(bytes));
+            try {
+                return new Response(httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for upstream response");
+            }
+        }
+    }
+
+    private final class Response implements ClientHttpResponse {
+
+        private final HttpResponse<InputStream> response;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final InputStream body;
+
+        private Response(HttpResponse<InputStream> response) {
+            this.response = response;
+            // псевдозаголовки HTTP/2 (":status") не передаются дальше
+            response.headers().map().forEach((name, values) -> {
+                if (!name.startsWith(":")) {
+                    headers.addAll(name, values);
+                }
+            });
+            this.body = new ReadTimeoutInputStream(response.body());
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.statusCode());
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(response.statusCode());
+            return status != null ? status.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        /*
+            Остаток тела дочитывается, чтобы соединение вернулось в пул
+         */
+        @Override
+        public void close() {
+            try {
+                StreamUtils.drain(body);
+                body.close();
+            } catch (IOException ignored) {
+                // соединение будет закрыто клиентом
+            }
+        }
+    }
+
+    /*
+        Тело ответа с тайм-аутом каждого чтения: если чтение не завершилось за readTimeout, тело закрывается,
+        а чтение завершается HttpTimeoutException
+     */
+    private final class ReadTimeoutInputStream extends FilterInputStream {
+
+        private volatile boolean timedOut;
+
+        private ReadTimeoutInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            ScheduledFuture<?> timer = startTimer();
+            try {
+                int result = super.read();
+                throwIfTimedOut();
+                return result;
+            } catch (IOException e) {
+                throwIfTimedOut();
+                throw e;
+            } finally {
+                timer.cancel(false);
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            ScheduledFuture<?> timer = startTimer();
+            try {
+                int result = super.read(buffer, offset, length);
+                throwIfTimedOut();
+                return result;
+            } catch (IOException e) {
+                throwIfTimedOut();
+                throw e;
+            } finally {
+                timer.cancel(false);
+            }
+        }
+
+        private ScheduledFuture<?> startTimer() {
+            return WATCHDOG.schedule(this::expire, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void expire() {
+            timedOut = true;
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // чтение всё равно завершится ошибкой
+            }
+        }
+
+        /*
+            Ошибка чтения закрытого сторожевой задачей тела заменяется тайм-аутом
+         */
+        private void throwIfTimedOut() throws HttpTimeoutException {
+            if (timedOut) {
+                throw new HttpTimeoutException("Upstream response body read timed out after " + readTimeout.toMillis() + " ms");
+            }
+        }
+    }
+}
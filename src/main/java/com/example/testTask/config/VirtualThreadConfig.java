@@ -0,0 +1,60 @@
+package com.example.testTask.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/*
+    Режим виртуальных потоков (spring.threads.virtual.enabled=true).
+    Сам Spring Boot переводит на виртуальные потоки обработку запросов Tomcat, @Scheduled и @Async,
+    здесь к этому добавляется ограничение числа одновременно выданных соединений с базой данных
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    /*
+        Оборачивание источника данных в ConnectionLimitingDataSource. Число разрешений по умолчанию
+        равно размеру пула соединений
+     */
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(
+            ObjectProvider<VirtualThreadProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                VirtualThreadProperties settings = properties.getObject();
+                int permits = settings.getConnectionPermits() > 0
+                        ? settings.getConnectionPermits()
+                        : poolSize(dataSource);
+                log.info("Limiting data source '{}' to {} concurrent connections", beanName, permits);
+                return new ConnectionLimitingDataSource(dataSource, permits, settings.getConnectionAcquireTimeout());
+            }
+        };
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to read connection pool size: {}", e.getMessage());
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.testTask.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+    Настройки режима виртуальных потоков (spring.threads.virtual.enabled=true)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.virtual-threads")
+public class VirtualThreadProperties {
+
+    /*
+        Количество одновременно выданных соединений с базой данных (0 — размер пула соединений)
+     */
+    private int connectionPermits = 0;
+
+    /*
+        Максимальное время ожидания соединения, после которого запрос завершается ошибкой
+     */
+    private Duration connectionAcquireTimeout = Duration.ofSeconds(30);
+
+    /*
+        Минимальная длительность закрепления виртуального потока, о которой пишется в журнал
+     */
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+}
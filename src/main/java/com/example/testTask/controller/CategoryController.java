@@ -1,12 +1,15 @@
 package com.example.testTask.controller;
 
-import com.example.testTask.model.Category;
 import com.example.testTask.service.CategoryService;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -15,14 +18,31 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final ConditionalRequests conditionalRequests;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, ConditionalRequests conditionalRequests) {
         this.categoryService = categoryService;
+        this.conditionalRequests = conditionalRequests;
     }
 
     @GetMapping("/unique")
     @Tag(name = "Получение списка уникальных категорий товаров")
-    public ResponseEntity<List<Category>> getAllUniqueCategories() {
+    public ResponseEntity<List<?>> getAllUniqueCategories(
+            @RequestParam(defaultValue = "false") @Parameter(description = "Вернуть статистику по категориям") boolean stats,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        if (stats) {
+            return ResponseEntity.ok(categoryService.findAllCategoryStats());
+        }
         return ResponseEntity.ok(categoryService.findAllUniqueCategories());
     }
+
+    @DeleteMapping("/cache")
+    @Tag(name = "Сброс кэша категорий на всех узлах")
+    public ResponseEntity<Void> invalidateCache() {
+        categoryService.invalidateCache();
+        return ResponseEntity.ok().build();
+    }
 }
\ No newline at end of file
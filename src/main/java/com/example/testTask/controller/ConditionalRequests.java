@@ -0,0 +1,160 @@
+package com.example.testTask.controller;
+
+import com.example.testTask.config.BinaryEncodingConfig;
+import com.example.testTask.config.HttpCacheProperties;
+import com.example.testTask.dto.CatalogVersion;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.service.CatalogVersionService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+/*
+    Условные GET-запросы (If-None-Match/If-Modified-Since) к товарам и категориям
+    и версия товара из If-Match для изменения товара.
+    Списки и категории получают ETag версии каталога ("<версия каталога>"),
+    товар по id — версии каталога и товара ("<версия каталога>.<версия товара>").
+    Версия каталога читается до данных, поэтому ETag никогда не новее отданного содержимого.
+    Ответ в двоичной кодировке (Accept: application/cbor, application/x-jackson-smile) получает ETag с префиксом
+    кодировки ("cbor-<версия каталога>"), а ответы — Vary: Accept, чтобы кэши не отдавали одну кодировку вместо другой.
+    ETag слабые (W/"..."): Tomcat не сжимает ответы с сильным ETag (server.compression)
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalRequests {
+
+    private final CatalogVersionService catalogVersionService;
+    private final HttpCacheProperties properties;
+
+    public CatalogVersion catalogVersion() {
+        return catalogVersionService.current();
+    }
+
+    /*
+        Проверка условного запроса к данным каталога (списки товаров, категории)
+        @return true, если клиенту отправлен ответ 304
+     */
+    public boolean isCatalogNotModified(ServletWebRequest request) {
+        CatalogVersion catalog = catalogVersionService.current();
+        setCacheControl(request);
+        return request.checkNotModified("W/\"" + encoding(request) + catalog.version() + "\"",
+                catalog.updatedAt().toEpochMilli());
+    }
+
+    /*
+        Проверка условного запроса к товару без обращения к таблице товаров:
+        если ETag клиента выдан при текущей версии каталога, товар с тех пор не изменялся
+        @return true, если клиенту отправлен ответ 304
+     */
+    public boolean isProductNotModified(ServletWebRequest request, CatalogVersion catalog) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String prefix = "\"" + encoding(request) + catalog.version() + ".";
+        for (String tag : ifNoneMatch.split(",")) {
+            String eTag = tag.trim();
+            if (eTag.startsWith("W/")) {
+                eTag = eTag.substring(2);
+            }
+            if (eTag.startsWith(prefix) && eTag.endsWith("\"") && eTag.length() > prefix.length() + 1) {
+                HttpServletResponse response = request.getResponse();
+                setCacheControl(request);
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                response.setHeader(HttpHeaders.ETAG, "W/" + eTag);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+        Проверка условного запроса к прочитанному товару
+        @return true, если клиенту отправлен ответ 304
+     */
+    public boolean isProductNotModified(ServletWebRequest request, CatalogVersion catalog, ProductView product) {
+        setCacheControl(request);
+        String eTag = "W/\"" + encoding(request) + catalog.version() + "." + product.version() + "\"";
+        long lastModified = product.updatedAt() != null ? product.updatedAt().toEpochMilli() : -1;
+        return request.checkNotModified(eTag, lastModified);
+    }
+
+    /*
+        Версия товара из заголовка If-Match запроса на изменение товара. Версия каталога в ETag не проверяется:
+        она меняется при изменении любого товара, а для оптимистической блокировки важна только версия товара
+        @return версия товара или null, если заголовка нет или он равен "*"
+        @throws IllegalArgumentException если заголовок не является ETag товара
+     */
+    public Long expectedProductVersion(ServletWebRequest request) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.startsWith("W/")) {
+            eTag = eTag.substring(2);
+        }
+        int dot = eTag.lastIndexOf('.');
+        if (!eTag.startsWith("\"") || !eTag.endsWith("\"") || dot < 0) {
+            throw new IllegalArgumentException("If-Match must contain a single product ETag");
+        }
+        try {
+            return Long.parseLong(eTag.substring(dot + 1, eTag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must contain a single product ETag");
+        }
+    }
+
+    private void setCacheControl(ServletWebRequest request) {
+        CacheControl cacheControl = CacheControl.maxAge(properties.getMaxAge()).cachePublic().mustRevalidate();
+        HttpServletResponse response = request.getResponse();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    /*
+        Префикс ETag кодировки, которую выберет Spring MVC по заголовку Accept: тип с наибольшим качеством,
+        при равном качестве — первый в заголовке; шаблон типа соответствует json
+        @return пустая строка для json, "cbor-" или "smile-" для двоичных кодировок
+     */
+    static String encoding(ServletWebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MediaType selected = null;
+        double quality = 0;
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() <= quality) {
+                continue;
+            }
+            for (MediaType encoding : BinaryEncodingConfig.ENCODINGS) {
+                if (type.includes(encoding)) {
+                    selected = encoding;
+                    quality = type.getQualityValue();
+                    break;
+                }
+            }
+        }
+        if (MediaType.APPLICATION_CBOR.equals(selected)) {
+            return "cbor-";
+        }
+        return BinaryEncodingConfig.SMILE.equals(selected) ? "smile-" : "";
+    }
+}
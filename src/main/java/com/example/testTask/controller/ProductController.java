@@ -1,39 +1,136 @@
 package com.example.testTask.controller;
 
+import com.example.testTask.dto.BatchReport;
+import com.example.testTask.dto.CatalogVersion;
+import com.example.testTask.dto.ChangeBatch;
+import com.example.testTask.dto.CursorPage;
+import com.example.testTask.dto.ImportJob;
+import com.example.testTask.dto.PageResponse;
 import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.ProductFacets;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.dto.SyncStatus;
 import com.example.testTask.model.Product;
+import com.example.testTask.service.ExportLimitExceededException;
+import com.example.testTask.service.ImportJobFinishedException;
+import com.example.testTask.service.ImportJobService;
+import com.example.testTask.service.ImportQueueFullException;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.service.ProductChangeFeed;
+import com.example.testTask.service.ProductExportService;
 import com.example.testTask.service.ProductService;
+import com.example.testTask.service.SyncLeaseService;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
     private final ProductService productService;
+    private final ConditionalRequests conditionalRequests;
+    private final ImportJobService importJobService;
+    private final SyncLeaseService syncLeaseService;
+    private final ProductChangeFeed productChangeFeed;
+    private final ProductExportService productExportService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ConditionalRequests conditionalRequests,
+                             ImportJobService importJobService, SyncLeaseService syncLeaseService,
+                             ProductChangeFeed productChangeFeed, ProductExportService productExportService) {
         this.productService = productService;
+        this.conditionalRequests = conditionalRequests;
+        this.importJobService = importJobService;
+        this.syncLeaseService = syncLeaseService;
+        this.productChangeFeed = productChangeFeed;
+        this.productExportService = productExportService;
     }
 
     @GetMapping
     @Tag(name = "Получение всех товаров")
-    public ResponseEntity<Page<Product>> getAllProducts(
+    public ResponseEntity<PageResponse<ProductView>> getAllProducts(
+            @RequestParam(defaultValue = "0") @Parameter(description = "Номер страницы") int page,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(PageResponse.of(productService.getAllProducts(PageRequest.of(page, size))));
+    }
+
+    @GetMapping("/scroll")
+    @Tag(name = "Получение всех товаров с курсорной пагинацией", description = "Страница по курсору предыдущей страницы " +
+                    "без подсчёта общего количества")
+    public ResponseEntity<CursorPage<ProductView>> scrollAllProducts(
+            @RequestParam(required = false) @Parameter(description = "Курсор страницы (без курсора — первая страница)") String cursor,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            @RequestParam(defaultValue = "false") @Parameter(description = "Вернуть общее количество") boolean withTotal,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(productService.scrollAllProducts(cursor, size, withTotal));
+    }
+
+    @GetMapping("/search")
+    @Tag(name = "Поиск товаров", description = "Полнотекстовый поиск по названию и описанию с ранжированием по релевантности (BM25)")
+    public ResponseEntity<PageResponse<ProductView>> searchProducts(
+            @RequestParam @Parameter(description = "Текст запроса") String q,
+            @RequestParam(required = false) @Parameter(description = "Нижняя граница цены") BigDecimal minPrice,
+            @RequestParam(required = false) @Parameter(description = "Верхняя граница цены") BigDecimal maxPrice,
+            @RequestParam(required = false) @Parameter(description = "Название категории") String categoryName,
             @RequestParam(defaultValue = "0") @Parameter(description = "Номер страницы") int page,
             @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size) {
-        return ResponseEntity.ok(productService.getAllProducts(PageRequest.of(page, size)));
+        return ResponseEntity.ok(PageResponse.of(
+                productService.searchProducts(q, minPrice, maxPrice, categoryName, PageRequest.of(page, size))));
+    }
+
+    @GetMapping("/facets")
+    @Tag(name = "Фасеты товаров", description = "Количество товаров по категориям, гистограмма цен и количество по оценкам для фильтра")
+    public ResponseEntity<ProductFacets> getFacets(
+            @RequestParam(required = false) @Parameter(description = "Нижняя граница цены") BigDecimal minPrice,
+            @RequestParam(required = false) @Parameter(description = "Верхняя граница цены") BigDecimal maxPrice,
+            @RequestParam(required = false) @Parameter(description = "Название категории") String categoryName,
+            @RequestParam(defaultValue = "50") @Parameter(description = "Ширина интервала гистограммы цен") BigDecimal priceInterval,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(productService.getFacets(minPrice, maxPrice, categoryName, priceInterval));
     }
 
     @GetMapping("/{id}")
     @Tag(name = "Получение товара по id")
-    public ResponseEntity<Product> getProductById(@PathVariable @Parameter(description = "Идентификатор товара") Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductView> getProductById(@PathVariable @Parameter(description = "Идентификатор товара") Long id,
+                                                      ServletWebRequest request) {
+        CatalogVersion catalog = conditionalRequests.catalogVersion();
+        if (conditionalRequests.isProductNotModified(request, catalog)) {
+            return null;
+        }
+        ProductView product = productService.getProductView(id);
+        if (conditionalRequests.isProductNotModified(request, catalog, product)) {
+            return null;
+        }
+        return ResponseEntity.ok(product);
     }
 
     @PostMapping
@@ -42,12 +139,33 @@ public class ProductController {
         return ResponseEntity.ok(productService.createProduct(productDTO));
     }
 
+    @PostMapping("/batch")
+    @Tag(name = "Пакетное создание и обновление товаров", description = "Товары без id создаются, с id — обновляются. " +
+                    "Запись идёт порциями в отдельных транзакциях, результат возвращается по каждому товару")
+    public ResponseEntity<BatchReport> batchUpsert(@RequestBody List<ProductDTO> products) {
+        return ResponseEntity.ok(productService.batchUpsert(products));
+    }
+
     @PutMapping("/{id}")
-    @Tag(name = "Редактирование существующего товара по id")
+    @Tag(name = "Редактирование существующего товара по id", description = "Заменяет все поля товара. " +
+                    "С заголовком If-Match (ETag товара) изменение выполняется, только если товар не менялся")
     public ResponseEntity<Product> updateProduct(
             @PathVariable @Parameter(description = "Идентификатор товара") Long id,
-            @RequestBody ProductDTO productDTO) {
-        return ResponseEntity.ok(productService.updateProduct(id, productDTO));
+            @RequestBody ProductDTO productDTO,
+            ServletWebRequest request) {
+        return ResponseEntity.ok(productService.updateProduct(id, productDTO,
+                conditionalRequests.expectedProductVersion(request)));
+    }
+
+    @PatchMapping("/{id}")
+    @Tag(name = "Частичное редактирование товара по id", description = "Изменяет только переданные поля товара. " +
+                    "С заголовком If-Match (ETag товара) изменение выполняется, только если товар не менялся")
+    public ResponseEntity<Product> patchProduct(
+            @PathVariable @Parameter(description = "Идентификатор товара") Long id,
+            @RequestBody ProductDTO patch,
+            ServletWebRequest request) {
+        return ResponseEntity.ok(productService.patchProduct(id, patch,
+                conditionalRequests.expectedProductVersion(request)));
     }
 
     @DeleteMapping("/{id}")
@@ -59,38 +177,205 @@ public class ProductController {
 
     @GetMapping("/filter-price")
     @Tag(name = "Фильтрация товаров по стоимости", description = "Возвращает список товаров в указанном ценовом диапазоне")
-    public ResponseEntity<Page<Product>> filterByPriceRange(
+    public ResponseEntity<PageResponse<ProductView>> filterByPriceRange(
             @RequestParam(required = false)  @Parameter(description = "Нижняя граница цены") BigDecimal minPrice,
             @RequestParam(required = false)  @Parameter(description = "Верхняя граница цены") BigDecimal maxPrice,
             @RequestParam(defaultValue = "0") @Parameter(description = "Номер страницы") int page,
-            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size) {
-        return ResponseEntity.ok(productService.getProductsByPriceRange(minPrice, maxPrice, PageRequest.of(page, size)));
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(PageResponse.of(productService.getProductsByPriceRange(minPrice, maxPrice, PageRequest.of(page, size))));
+    }
+
+    @GetMapping("/filter-price/scroll")
+    @Tag(name = "Фильтрация товаров по стоимости с курсорной пагинацией", description = "Страница по курсору предыдущей " +
+                    "страницы без подсчёта общего количества")
+    public ResponseEntity<CursorPage<ProductView>> scrollByPriceRange(
+            @RequestParam(required = false)  @Parameter(description = "Нижняя граница цены") BigDecimal minPrice,
+            @RequestParam(required = false)  @Parameter(description = "Верхняя граница цены") BigDecimal maxPrice,
+            @RequestParam(required = false) @Parameter(description = "Курсор страницы (без курсора — первая страница)") String cursor,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            @RequestParam(defaultValue = "false") @Parameter(description = "Вернуть общее количество") boolean withTotal,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(productService.scrollProductsByPriceRange(minPrice, maxPrice, cursor, size, withTotal));
     }
 
     @GetMapping("/category")
     @Tag(name = "Получение товаров по категории", description = "Возвращает список всех товаров с указанной категорией")
-    public ResponseEntity<Page<Product>> getProductsByCategoryName(
+    public ResponseEntity<PageResponse<ProductView>> getProductsByCategoryName(
             @RequestParam @Parameter(description = "Название категории") String categoryName,
             @RequestParam(defaultValue = "0") @Parameter(description = "Номер страницы") int page,
-            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size) {
-        return ResponseEntity.ok(productService.getProductsByCategory(categoryName, PageRequest.of(page, size)));
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(PageResponse.of(productService.getProductsByCategory(categoryName, PageRequest.of(page, size))));
+    }
+
+    @GetMapping("/category/scroll")
+    @Tag(name = "Получение товаров по категории с курсорной пагинацией", description = "Страница по курсору предыдущей " +
+                    "страницы без подсчёта общего количества")
+    public ResponseEntity<CursorPage<ProductView>> scrollByCategoryName(
+            @RequestParam @Parameter(description = "Название категории") String categoryName,
+            @RequestParam(required = false) @Parameter(description = "Курсор страницы (без курсора — первая страница)") String cursor,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            @RequestParam(defaultValue = "false") @Parameter(description = "Вернуть общее количество") boolean withTotal,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(productService.scrollProductsByCategory(categoryName, cursor, size, withTotal));
     }
 
     @GetMapping("/sort")
     @Tag(name = "Сортировка товаров по категории и цене", description = "Сортировка товаров сразу по двум полям (цена и название категории) " +
                     "с указанием отдельного направления для каждого из этих полей (возрастание/убывание)")
-    public ResponseEntity<Page<Product>> sortProducts(
+    public ResponseEntity<PageResponse<ProductView>> sortProducts(
             @RequestParam(required = false) @Parameter(description = "Направление сортировки 'asc'/'desc'") String priceDirection,
             @RequestParam(required = false) @Parameter(description = "Направление сортировки 'asc'/'desc'") String categoryDirection,
             @RequestParam(defaultValue = "0") @Parameter(description = "Номер страницы") int page,
-            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size) {
-        return ResponseEntity.ok(productService.getProductsSorted(priceDirection, categoryDirection, PageRequest.of(page, size)));
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(PageResponse.of(productService.getProductsSorted(priceDirection, categoryDirection, PageRequest.of(page, size))));
+    }
+
+    @GetMapping("/sort/scroll")
+    @Tag(name = "Сортировка товаров по категории и цене с курсорной пагинацией", description = "Страница по курсору " +
+                    "предыдущей страницы без подсчёта общего количества")
+    public ResponseEntity<CursorPage<ProductView>> scrollSorted(
+            @RequestParam(required = false) @Parameter(description = "Направление сортировки 'asc'/'desc'") String priceDirection,
+            @RequestParam(required = false) @Parameter(description = "Направление сортировки 'asc'/'desc'") String categoryDirection,
+            @RequestParam(required = false) @Parameter(description = "Курсор страницы (без курсора — первая страница)") String cursor,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Число элементов") int size,
+            @RequestParam(defaultValue = "false") @Parameter(description = "Вернуть общее количество") boolean withTotal,
+            ServletWebRequest request) {
+        if (conditionalRequests.isCatalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(productService.scrollProductsSorted(priceDirection, categoryDirection, cursor, size, withTotal));
+    }
+
+    @GetMapping("/export")
+    @Tag(name = "Выгрузка каталога", description = "Все товары (или товары по фильтру) одним потоком в NDJSON или CSV " +
+                    "по возрастанию id, без пагинации. С заголовком Accept-Encoding: gzip выгрузка сжимается")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") @Parameter(description = "Формат 'ndjson'/'csv'") String format,
+            @RequestParam(required = false) @Parameter(description = "Нижняя граница цены") BigDecimal minPrice,
+            @RequestParam(required = false) @Parameter(description = "Верхняя граница цены") BigDecimal maxPrice,
+            @RequestParam(required = false) @Parameter(description = "Название категории") String categoryName,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) @Parameter(hidden = true) String acceptEncoding,
+            ServletWebRequest request) {
+        ProductExportService.Format exportFormat = ProductExportService.Format.of(format);
+        boolean gzip = ProductExportService.acceptsGzip(acceptEncoding);
+        ProductExportService.ExportStream body = productExportService.export(exportFormat,
+                new ProductViewRepository.Filter(minPrice, maxPrice, categoryName), gzip);
+        // разрешение выгрузки возвращается и тогда, когда запись не началась: тайм-аут или ошибка асинхронного запроса
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ProductExportService.class.getName(),
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        body.release();
+                    }
+                });
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + exportFormat.getExtension()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/changes")
+    @Tag(name = "Лента изменений товаров", description = "Изменения товаров после номера since по возрастанию номера: " +
+                    "изменённые товары целиком и удалённые товары. since=0 возвращает весь каталог, " +
+                    "следующий запрос выполняется с since=next, пока hasMore=true")
+    public ResponseEntity<ChangeBatch> getChanges(
+            @RequestParam(defaultValue = "0") @Parameter(description = "Номер последнего полученного изменения") long since,
+            @RequestParam(defaultValue = "500") @Parameter(description = "Максимальное количество изменений") int limit) {
+        return ResponseEntity.ok(productChangeFeed.getChanges(since, limit));
+    }
+
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Tag(name = "Поток изменений товаров", description = "Server-sent events upsert и delete с номером изменения в id; " +
+                    "частые изменения одного товара отправляются одним событием. При переподключении поток продолжается с Last-Event-ID")
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) @Parameter(description = "Номер последнего полученного изменения") Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) @Parameter(hidden = true) Long lastEventId) {
+        return productChangeFeed.subscribe(lastEventId != null ? lastEventId : since != null ? since : 0);
     }
 
     @PostMapping("/import")
-    @Tag(name = "Импорт данных с внешнего api (https://fakestoreapi.com/products)")
-    public ResponseEntity<Void> importProducts() {
-        productService.importProducts();
-        return ResponseEntity.ok().build();
+    @Tag(name = "Импорт данных с внешнего api (https://fakestoreapi.com/products)",
+            description = "Ставит импорт в очередь и возвращает задачу; одновременно выполняется только один импорт")
+    public ResponseEntity<ImportJob> importProducts() {
+        ImportJob job = importJobService.submit(ImportJob.Trigger.API);
+        return ResponseEntity.accepted().location(URI.create("/api/products/import/" + job.getId())).body(job);
+    }
+
+    @GetMapping("/import/sync")
+    @Tag(name = "Состояние плановой синхронизации", description = "Владелец аренды синхронизации и время последнего запуска на весь кластер")
+    public ResponseEntity<SyncStatus> getSyncStatus() {
+        return ResponseEntity.ok(syncLeaseService.getStatus());
+    }
+
+    @GetMapping("/import/{jobId}")
+    @Tag(name = "Состояние задачи импорта", description = "Прогресс импорта: прочитано, преобразовано, записано, пропущено, скорость записи")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable @Parameter(description = "Идентификатор задачи") String jobId) {
+        return ResponseEntity.of(importJobService.find(jobId));
+    }
+
+    @DeleteMapping("/import/{jobId}")
+    @Tag(name = "Отмена задачи импорта", description = "Выполняющийся импорт останавливается после текущей порции")
+    public ResponseEntity<ImportJob> cancelImportJob(@PathVariable @Parameter(description = "Идентификатор задачи") String jobId) {
+        return ResponseEntity.of(importJobService.cancel(jobId));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e,
+                                                                 ServletWebRequest request) {
+        // с If-Match клиент сам указал версию — 412, иначе товар изменён параллельным запросом — 409
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) != null
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body("Product was modified concurrently");
+    }
+
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<String> handleQueryTimeout(QueryTimeoutException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Query timed out");
+    }
+
+    @ExceptionHandler(ImportQueueFullException.class)
+    public ResponseEntity<String> handleImportQueueFull(ImportQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+    }
+
+    @ExceptionHandler(ExportLimitExceededException.class)
+    public ResponseEntity<String> handleExportLimitExceeded(ExportLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(ImportJobFinishedException.class)
+    public ResponseEntity<String> handleImportJobFinished(ImportJobFinishedException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
\ No newline at end of file
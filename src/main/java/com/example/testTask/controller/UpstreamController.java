@@ -0,0 +1,34 @@
+package com.example.testTask.controller;
+
+import com.example.testTask.config.UpstreamCallStats;
+import com.example.testTask.config.UpstreamCircuitBreaker;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/upstream")
+public class UpstreamController {
+
+    private final UpstreamCallStats upstreamCallStats;
+    private final UpstreamCircuitBreaker upstreamCircuitBreaker;
+
+    public UpstreamController(UpstreamCallStats upstreamCallStats, UpstreamCircuitBreaker upstreamCircuitBreaker) {
+        this.upstreamCallStats = upstreamCallStats;
+        this.upstreamCircuitBreaker = upstreamCircuitBreaker;
+    }
+
+    @GetMapping("/stats")
+    @Tag(name = "Статистика запросов к внешнему api (результаты попыток, повторы, задержки, состояние размыкателя)")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("circuitBreaker", upstreamCircuitBreaker.getState());
+        result.putAll(upstreamCallStats.snapshot());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Результат записи одного товара пакета")
+public record BatchItemResult(
+        @Schema(description = "Позиция товара в запросе", example = "0")
+        int index,
+
+        @Schema(description = "Идентификатор товара (для ошибки — из запроса)", example = "21")
+        Long id,
+
+        @Schema(description = "Результат записи", example = "CREATED")
+        Status status,
+
+        @Schema(description = "Причина ошибки")
+        String error) {
+
+    public enum Status {
+        CREATED, UPDATED, UNCHANGED, FAILED
+    }
+
+    public static BatchItemResult of(int index, Long id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult failed(int index, Long id, String error) {
+        return new BatchItemResult(index, id, Status.FAILED, error);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Schema(description = "Результат пакетной записи товаров")
+public class BatchReport {
+
+    @Schema(description = "Количество добавленных товаров", example = "950")
+    private int created;
+
+    @Schema(description = "Количество обновлённых товаров", example = "48")
+    private int updated;
+
+    @Schema(description = "Количество товаров без изменений", example = "0")
+    private int unchanged;
+
+    @Schema(description = "Количество товаров, которые не удалось записать", example = "2")
+    private int failed;
+
+    @Schema(description = "Общее время записи в миллисекундах", example = "640")
+    private long elapsedMs;
+
+    @Schema(description = "Результаты по товарам в порядке запроса")
+    private final List<BatchItemResult> items = new ArrayList<>();
+
+    public void addAll(List<BatchItemResult> results) {
+        for (BatchItemResult result : results) {
+            items.add(result);
+            switch (result.status()) {
+                case CREATED -> created++;
+                case UPDATED -> updated++;
+                case UNCHANGED -> unchanged++;
+                case FAILED -> failed++;
+            }
+        }
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
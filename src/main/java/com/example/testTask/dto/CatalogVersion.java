@@ -0,0 +1,11 @@
+package com.example.testTask.dto;
+
+import java.time.Instant;
+
+/*
+    Версия каталога: увеличивается в каждой транзакции, изменяющей товары
+    @param version номер версии
+    @param updatedAt время последнего изменения
+ */
+public record CatalogVersion(long version, Instant updatedAt) {
+}
@@ -0,0 +1,32 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Schema(description = "Статистика по категории")
+public class CategoryStatsDTO {
+    private Long id;
+
+    @Schema(description = "Название категории", example = "men's clothing")
+    private String name;
+
+    @Schema(description = "Количество товаров", example = "4")
+    private Long productCount;
+
+    @Schema(description = "Минимальная цена", example = "7.95")
+    private BigDecimal minPrice;
+
+    @Schema(description = "Максимальная цена", example = "109.95")
+    private BigDecimal maxPrice;
+
+    @Schema(description = "Средняя цена", example = "51.06")
+    private BigDecimal avgPrice;
+
+    @Schema(description = "Средняя оценка товаров", example = "3.7")
+    private Double avgRating;
+}
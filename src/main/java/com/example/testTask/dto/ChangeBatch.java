@@ -0,0 +1,18 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/*
+    Порция ленты изменений
+    @param changes изменения по возрастанию номера, не больше одного на товар
+    @param next значение since для следующего запроса
+    @param hasMore есть ещё изменения после этой порции
+ */
+@Schema(description = "Порция ленты изменений товаров")
+public record ChangeBatch(
+        @Schema(description = "Изменения по возрастанию номера") List<ProductChange> changes,
+        @Schema(description = "Значение since для следующего запроса", example = "1042") long next,
+        @Schema(description = "Есть ещё изменения") boolean hasMore) {
+}
@@ -0,0 +1,28 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Страница с курсорной пагинацией (без подсчёта общего количества)")
+public class CursorPage<T> {
+
+    @Schema(description = "Элементы страницы")
+    private final List<T> content;
+
+    @Schema(description = "Число элементов на странице", example = "10")
+    private final int size;
+
+    @Schema(description = "Есть ли следующая страница", example = "true")
+    private final boolean hasNext;
+
+    @Schema(description = "Курсор следующей страницы", example = "eyJpZCI6IjIwIn0")
+    private final String nextCursor;
+
+    @Schema(description = "Общее количество элементов (только при withTotal=true, может быть приблизительным)", example = "20")
+    private final Long totalElements;
+}
@@ -0,0 +1,8 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Количество товаров со значением фасета")
+public record FacetCount(@Schema(description = "Значение", example = "electronics") String value,
+                         @Schema(description = "Количество товаров", example = "6") long count) {
+}
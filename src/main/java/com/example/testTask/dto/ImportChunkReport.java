@@ -0,0 +1,26 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Результат записи одной порции импортируемых товаров")
+public class ImportChunkReport {
+
+    @Schema(description = "Количество добавленных товаров", example = "480")
+    private int inserted;
+
+    @Schema(description = "Количество обновлённых товаров", example = "18")
+    private int updated;
+
+    @Schema(description = "Количество товаров без изменений", example = "0")
+    private int unchanged;
+
+    @Schema(description = "Количество пропущенных товаров", example = "2")
+    private int skipped;
+
+    @Schema(description = "Время записи порции в миллисекундах", example = "35")
+    private long elapsedMs;
+}
@@ -0,0 +1,109 @@
+package com.example.testTask.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/*
+    Задача импорта товаров. Состояние изменяется только службой задач импорта,
+    переходы синхронизированы, чтобы отмена не пересекалась с запуском и завершением
+ */
+@Getter
+@Schema(description = "Задача импорта товаров")
+public class ImportJob {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    public enum Trigger {
+        API, SCHEDULED
+    }
+
+    @Schema(description = "Идентификатор задачи", example = "3f0c8d5e-8a57-4a57-9f3e-5b0b7f3c2a11")
+    private final String id;
+
+    @Schema(description = "Источник запуска", example = "API")
+    private final Trigger trigger;
+
+    @Schema(description = "Время постановки в очередь")
+    private final Instant submittedAt;
+
+    @Schema(description = "Прогресс импорта")
+    private final ImportProgress progress = new ImportProgress();
+
+    @Schema(description = "Состояние задачи", example = "RUNNING")
+    private volatile State state = State.QUEUED;
+
+    @Schema(description = "Время запуска")
+    private volatile Instant startedAt;
+
+    @Schema(description = "Время завершения")
+    private volatile Instant finishedAt;
+
+    @Schema(description = "Причина ошибки")
+    private volatile String error;
+
+    @Schema(description = "Результат импорта (после успешного завершения)")
+    private volatile ImportReport report;
+
+    public ImportJob(String id, Trigger trigger) {
+        this.id = id;
+        this.trigger = trigger;
+        this.submittedAt = Instant.now();
+    }
+
+    /*
+        Запуск задачи из очереди
+        @return false, если задача отменена, пока ждала в очереди
+     */
+    public synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        startedAt = Instant.now();
+        progress.start();
+        return true;
+    }
+
+    public synchronized void succeed(ImportReport report) {
+        this.report = report;
+        finish(State.SUCCEEDED);
+    }
+
+    public synchronized void fail(String error) {
+        this.error = error;
+        finish(progress.isCancelRequested() ? State.CANCELLED : State.FAILED);
+    }
+
+    /*
+        Отмена задачи: задача в очереди отменяется сразу, выполняющаяся — после текущего элемента или порции
+        @return false, если задача уже завершена
+     */
+    public synchronized boolean cancel() {
+        if (state == State.QUEUED) {
+            finish(State.CANCELLED);
+            return true;
+        }
+        if (state == State.RUNNING) {
+            progress.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    @JsonIgnore
+    public boolean isActive() {
+        State current = state;
+        return current == State.QUEUED || current == State.RUNNING;
+    }
+
+    private void finish(State finalState) {
+        state = finalState;
+        finishedAt = Instant.now();
+        progress.finish();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.testTask.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Счётчики выполняющегося импорта. Обновляются стадиями конвейера импорта и читаются запросом статуса задачи
+ */
+@Schema(description = "Прогресс импорта товаров")
+public class ImportProgress {
+
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong mapped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile boolean cancelRequested;
+
+    @Schema(description = "Количество элементов, прочитанных из ответа внешнего api", example = "1200")
+    public long getFetched() {
+        return fetched.get();
+    }
+
+    @Schema(description = "Количество элементов, преобразованных в товары", example = "1198")
+    public long getMapped() {
+        return mapped.get();
+    }
+
+    @Schema(description = "Количество записанных товаров (добавленных, обновлённых и без изменений)", example = "1000")
+    public long getWritten() {
+        return written.get();
+    }
+
+    @Schema(description = "Количество пропущенных товаров", example = "2")
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @Schema(description = "Скорость записи, товаров в секунду", example = "2500.0")
+    public double getThroughput() {
+        long started = startedNanos;
+        if (started == 0) {
+            return 0;
+        }
+        long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+        return end > started ? written.get() * 1e9 / (end - started) : 0;
+    }
+
+    public void start() {
+        startedNanos = System.nanoTime();
+    }
+
+    public void finish() {
+        finishedNanos = System.nanoTime();
+    }
+
+    public void addFetched(long count) {
+        fetched.addAndGet(count);
+    }
+
+    public void addMapped(long count) {
+        mapped.addAndGet(count);
+    }
+
+    public void addWritten(long count) {
+        written.addAndGet(count);
+    }
+
+    public void addFailed(long count) {
+        failed.addAndGet(count);
+    }
+
+    /*
+        Запрос отмены: конвейер импорта проверяет его перед каждым элементом и порцией
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    @JsonIgnore
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /*
+        @throws CancellationException если запрошена отмена
+     */
+    public void throwIfCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Import cancelled");
+        }
+    }
+}
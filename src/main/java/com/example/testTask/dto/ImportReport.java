@@ -0,0 +1,58 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Schema(description = "Результат импорта товаров")
+public class ImportReport {
+
+    @Schema(description = "Количество добавленных товаров", example = "480")
+    private int inserted;
+
+    @Schema(description = "Количество обновлённых товаров", example = "18")
+    private int updated;
+
+    @Schema(description = "Количество товаров без изменений", example = "0")
+    private int unchanged;
+
+    @Schema(description = "Количество пропущенных товаров", example = "2")
+    private int skipped;
+
+    @Schema(description = "Внешний api ответил 304 Not Modified, товары не загружались", example = "false")
+    private boolean notModified;
+
+    @Schema(description = "Общее время импорта в миллисекундах", example = "412")
+    private long elapsedMs;
+
+    @Schema(description = "Результаты по отдельным порциям")
+    private final List<ImportChunkReport> chunks = new ArrayList<>();
+
+    public void addChunk(ImportChunkReport chunk) {
+        chunks.add(chunk);
+        inserted += chunk.getInserted();
+        updated += chunk.getUpdated();
+        unchanged += chunk.getUnchanged();
+        skipped += chunk.getSkipped();
+    }
+
+    @Schema(description = "Количество изменённых товаров (добавленных и обновлённых)", example = "498")
+    public int getChanged() {
+        return inserted + updated;
+    }
+
+    public void addSkipped(int skipped) {
+        this.skipped += skipped;
+    }
+
+    public void setNotModified(boolean notModified) {
+        this.notModified = notModified;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/*
+    Страница товаров в том же виде json, в каком Spring отдаёт Page (PageImpl),
+    включая блоки pageable и sort, чтобы ответы существующим клиентам не менялись
+ */
+@Getter
+@AllArgsConstructor
+@Schema(description = "Страница с постраничной пагинацией")
+public class PageResponse<T> {
+
+    @Schema(description = "Элементы страницы")
+    private final List<T> content;
+
+    @Schema(description = "Параметры запрошенной страницы")
+    private final PageableInfo pageable;
+
+    @Schema(description = "Номер страницы", example = "0")
+    private final int number;
+
+    @Schema(description = "Запрошенное число элементов на странице", example = "10")
+    private final int size;
+
+    @Schema(description = "Число элементов на текущей странице", example = "10")
+    private final int numberOfElements;
+
+    @Schema(description = "Общее количество элементов", example = "20")
+    private final long totalElements;
+
+    @Schema(description = "Общее количество страниц", example = "2")
+    private final int totalPages;
+
+    @Schema(description = "Первая ли это страница", example = "true")
+    private final boolean first;
+
+    @Schema(description = "Последняя ли это страница", example = "false")
+    private final boolean last;
+
+    @Schema(description = "Пуста ли страница", example = "false")
+    private final boolean empty;
+
+    @Schema(description = "Сортировка страницы")
+    private final SortInfo sort;
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        SortInfo sort = SortInfo.of(page.getSort());
+        PageableInfo pageable = page.getPageable().isPaged()
+                ? new PageableInfo(page.getNumber(), page.getSize(), page.getPageable().getOffset(), sort, true, false)
+                : new PageableInfo(page.getNumber(), page.getSize(), 0, sort, false, true);
+        return new PageResponse<>(page.getContent(), pageable, page.getNumber(), page.getSize(),
+                page.getNumberOfElements(), page.getTotalElements(), page.getTotalPages(), page.isFirst(),
+                page.isLast(), page.isEmpty(), sort);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @Schema(description = "Параметры запрошенной страницы")
+    public static class PageableInfo {
+
+        @Schema(description = "Номер страницы", example = "0")
+        private final int pageNumber;
+
+        @Schema(description = "Число элементов на странице", example = "10")
+        private final int pageSize;
+
+        @Schema(description = "Смещение первого элемента страницы", example = "0")
+        private final long offset;
+
+        @Schema(description = "Сортировка страницы")
+        private final SortInfo sort;
+
+        @Schema(description = "Запрошена ли страница", example = "true")
+        private final boolean paged;
+
+        @Schema(description = "Запрошены ли все элементы без пагинации", example = "false")
+        private final boolean unpaged;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @Schema(description = "Сортировка страницы")
+    public static class SortInfo {
+
+        @Schema(description = "Нет ли сортировки", example = "true")
+        private final boolean empty;
+
+        @Schema(description = "Задана ли сортировка", example = "false")
+        private final boolean sorted;
+
+        @Schema(description = "Не задана ли сортировка", example = "true")
+        private final boolean unsorted;
+
+        static SortInfo of(org.springframework.data.domain.Sort sort) {
+            return new SortInfo(sort.isEmpty(), sort.isSorted(), sort.isUnsorted());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/*
+    Изменение товара в ленте изменений
+    @param seq номер изменения (возрастает в порядке фиксации)
+    @param productId идентификатор товара
+    @param deleted товар удалён
+    @param changedAt время изменения
+    @param product товар после изменения (null для удалённого)
+ */
+@Schema(description = "Изменение товара")
+public record ProductChange(
+        @Schema(description = "Номер изменения", example = "1042") long seq,
+        @Schema(description = "Идентификатор товара", example = "7") long productId,
+        @Schema(description = "Товар удалён") boolean deleted,
+        @Schema(description = "Время изменения") Instant changedAt,
+        @Schema(description = "Товар после изменения (отсутствует у удалённого)") ProductView product) {
+
+    public ProductChange withProduct(ProductView product) {
+        return new ProductChange(seq, productId, deleted, changedAt, product);
+    }
+}
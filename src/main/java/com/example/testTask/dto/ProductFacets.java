@@ -0,0 +1,28 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Фасеты товаров для фильтра")
+public class ProductFacets {
+
+    @Schema(description = "Количество товаров, удовлетворяющих фильтру", example = "20")
+    private final long total;
+
+    @Schema(description = "Количество товаров по категориям (без учёта фильтра по категории)")
+    private final List<FacetCount> categories;
+
+    @Schema(description = "Гистограмма цен")
+    private final List<RangeCount> prices;
+
+    @Schema(description = "Количество товаров по оценке (интервалы по единице, последний включает 5)")
+    private final List<RangeCount> ratings;
+
+    @Schema(description = "Время вычисления, мс", example = "3")
+    private final long elapsedMs;
+}
@@ -0,0 +1,26 @@
+package com.example.testTask.dto;
+
+import com.example.testTask.model.Product;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/*
+    Плоская модель чтения товара: одна строка выборки product + category + rating без гидратации сущностей.
+    В json сериализуется ProductViewSerializer в том же виде, что и сущность Product
+ */
+@Schema(description = "Товар", implementation = Product.class)
+public record ProductView(Long id,
+                          String title,
+                          BigDecimal price,
+                          String description,
+                          String image,
+                          Long categoryId,
+                          String categoryName,
+                          Long ratingId,
+                          Double rate,
+                          Integer ratingCount,
+                          long version,
+                          Instant updatedAt) {
+}
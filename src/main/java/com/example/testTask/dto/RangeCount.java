@@ -0,0 +1,11 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Количество товаров в интервале [from, to)")
+public record RangeCount(@Schema(description = "Начало интервала (null — значение отсутствует)", example = "50") BigDecimal from,
+                         @Schema(description = "Конец интервала (null — без верхней границы)", example = "100") BigDecimal to,
+                         @Schema(description = "Количество товаров", example = "4") long count) {
+}
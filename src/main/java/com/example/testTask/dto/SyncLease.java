@@ -0,0 +1,19 @@
+package com.example.testTask.dto;
+
+import java.time.Instant;
+
+/*
+    Состояние аренды синхронизации в базе данных
+    @param name имя аренды
+    @param owner экземпляр, который взял аренду последним
+    @param acquiredAt время получения аренды владельцем
+    @param heartbeatAt время последнего продления
+    @param expiresAt время истечения аренды
+    @param lastRunOwner экземпляр, выполнивший последнюю синхронизацию
+    @param lastRunStartedAt время начала последней синхронизации
+    @param lastRunFinishedAt время завершения последней синхронизации
+    @param lastRunState состояние последней синхронизации
+ */
+public record SyncLease(String name, String owner, Instant acquiredAt, Instant heartbeatAt, Instant expiresAt,
+                        String lastRunOwner, Instant lastRunStartedAt, Instant lastRunFinishedAt, String lastRunState) {
+}
@@ -0,0 +1,16 @@
+package com.example.testTask.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/*
+    Состояние плановой синхронизации с точки зрения экземпляра
+    @param nodeId идентификатор экземпляра
+    @param leaseHeld экземпляр владеет арендой
+    @param lease аренда в базе данных (null, если синхронизация ещё не запускалась)
+ */
+@Schema(description = "Состояние аренды плановой синхронизации")
+public record SyncStatus(
+        @Schema(description = "Идентификатор экземпляра", example = "app-1:4211:5f2c1a9b") String nodeId,
+        @Schema(description = "Экземпляр владеет арендой") boolean leaseHeld,
+        @Schema(description = "Аренда и время последней синхронизации") SyncLease lease) {
+}
@@ -0,0 +1,44 @@
+package com.example.testTask.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/*
+    Сводная статистика по категории, поддерживаемая при каждой записи товаров
+ */
+@Entity
+@Immutable
+@Getter
+@Setter
+@Table(name = "category_stats")
+public class CategoryStats {
+    @Id
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", insertable = false, updatable = false)
+    private Category category;
+
+    @Column(name = "product_count", nullable = false)
+    private Long productCount;
+
+    @Column(name = "price_sum", nullable = false, precision = 19, scale = 2)
+    private BigDecimal priceSum;
+
+    @Column(name = "min_price", precision = 10, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 10, scale = 2)
+    private BigDecimal maxPrice;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Double ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private Long ratingCount;
+}
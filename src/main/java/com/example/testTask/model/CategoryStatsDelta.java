@@ -0,0 +1,93 @@
+package com.example.testTask.model;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    Накопленные изменения статистики категорий в рамках одной операции записи.
+    Добавления учитываются полностью (количество, суммы, min/max),
+    удаления отмечают категорию для пересчёта min/max
+ */
+public class CategoryStatsDelta {
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>();
+
+    /*
+        Учёт добавленного товара
+     */
+    public void add(Long categoryId, BigDecimal price, Double rate) {
+        if (categoryId == null || price == null) {
+            return;
+        }
+        Entry entry = entries.computeIfAbsent(categoryId, Entry::new);
+        entry.count++;
+        entry.priceSum = entry.priceSum.add(price);
+        entry.minPrice = entry.minPrice == null || price.compareTo(entry.minPrice) < 0 ? price : entry.minPrice;
+        entry.maxPrice = entry.maxPrice == null || price.compareTo(entry.maxPrice) > 0 ? price : entry.maxPrice;
+        if (rate != null) {
+            entry.ratingSum += rate;
+            entry.ratingCount++;
+        }
+    }
+
+    /*
+        Учёт удалённого товара (или старого состояния обновлённого)
+     */
+    public void remove(Long categoryId, BigDecimal price, Double rate) {
+        if (categoryId == null || price == null) {
+            return;
+        }
+        Entry entry = entries.computeIfAbsent(categoryId, Entry::new);
+        entry.count--;
+        entry.priceSum = entry.priceSum.subtract(price);
+        entry.removed = true;
+        if (rate != null) {
+            entry.ratingSum -= rate;
+            entry.ratingCount--;
+        }
+    }
+
+    public void add(Product product) {
+        add(categoryId(product), product.getPrice(), rate(product));
+    }
+
+    public void remove(Product product) {
+        remove(categoryId(product), product.getPrice(), rate(product));
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    private static Long categoryId(Product product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
+    }
+
+    private static Double rate(Product product) {
+        return product.getRating() != null ? product.getRating().getRate() : null;
+    }
+
+    @Getter
+    public static class Entry {
+        private final Long categoryId;
+        private long count;
+        private BigDecimal priceSum = BigDecimal.ZERO;
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private double ratingSum;
+        private long ratingCount;
+        private boolean removed;
+
+        private Entry(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+    }
+}
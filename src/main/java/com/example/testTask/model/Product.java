@@ -1,18 +1,23 @@
 package com.example.testTask.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Entity
+@DynamicUpdate
 @Getter
 @Setter
 @Table(name = "product")
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     @Column(name = "product_id", nullable = false)
     private Long id;
 
@@ -28,11 +33,28 @@ public class Product {
     @Column(name = "image", length = 255)
     private String image;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
-    @OneToOne()
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "rating_id")
     private Rating rating;
+
+    @JsonIgnore
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    /*
+        Номер версии товара, увеличивается при каждом изменении.
+        Hibernate проверяет его при обновлении (оптимистическая блокировка)
+     */
+    @JsonIgnore
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @JsonIgnore
+    @Column(name = "updated_at")
+    private Instant updatedAt;
 }
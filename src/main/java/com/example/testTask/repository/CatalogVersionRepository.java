@@ -0,0 +1,41 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.CatalogVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Версия каталога в однострочной таблице catalog_version
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogVersionRepository {
+
+    private static final long ROW_ID = 1;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /*
+        Получение текущей версии каталога (нулевая, если каталог ещё не изменялся)
+     */
+    public CatalogVersion find() {
+        List<CatalogVersion> result = jdbcTemplate.query("SELECT version, updated_at FROM catalog_version WHERE id = :id",
+                Map.of("id", ROW_ID),
+                (rs, rowNum) -> new CatalogVersion(rs.getLong("version"), rs.getTimestamp("updated_at").toInstant()));
+        return result.isEmpty() ? new CatalogVersion(0, Instant.EPOCH) : result.get(0);
+    }
+
+    /*
+        Увеличение версии каталога в текущей транзакции.
+        Строка блокируется до фиксации, поэтому версия меняется в том же порядке, что и данные
+     */
+    public void increment() {
+        jdbcTemplate.update("INSERT INTO catalog_version AS v (id, version, updated_at) VALUES (:id, 1, now()) " +
+                "ON CONFLICT (id) DO UPDATE SET version = v.version + 1, updated_at = now()", Map.of("id", ROW_ID));
+    }
+}
@@ -11,6 +11,6 @@ import java.util.List;
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Category findByName(String name);
 
-    @Query("SELECT DISTINCT p.category FROM Product p")
+    @Query("SELECT s.category FROM CategoryStats s WHERE s.productCount > 0")
     List<Category> findAllUniqueCategories();
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.model.CategoryStatsDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Map;
+
+/*
+    Инкрементальное обновление таблицы category_stats
+ */
+@Repository
+@RequiredArgsConstructor
+public class CategoryStatsJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /*
+        Применение изменений к статистике категорий одним пакетом
+        @param entries изменения по категориям
+     */
+    public void applyDeltas(Collection<CategoryStatsDelta.Entry> entries) {
+        SqlParameterSource[] batch = entries.stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("categoryId", entry.getCategoryId())
+                        .addValue("count", entry.getCount())
+                        .addValue("priceSum", entry.getPriceSum())
+                        .addValue("minPrice", entry.getMinPrice(), Types.NUMERIC)
+                        .addValue("maxPrice", entry.getMaxPrice(), Types.NUMERIC)
+                        .addValue("ratingSum", entry.getRatingSum())
+                        .addValue("ratingCount", entry.getRatingCount()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("INSERT INTO category_stats AS s " +
+                "(category_id, product_count, price_sum, min_price, max_price, rating_sum, rating_count) " +
+                "VALUES (:categoryId, :count, :priceSum, :minPrice, :maxPrice, :ratingSum, :ratingCount) " +
+                "ON CONFLICT (category_id) DO UPDATE SET " +
+                "product_count = s.product_count + EXCLUDED.product_count, " +
+                "price_sum = s.price_sum + EXCLUDED.price_sum, " +
+                "min_price = LEAST(s.min_price, EXCLUDED.min_price), " +
+                "max_price = GREATEST(s.max_price, EXCLUDED.max_price), " +
+                "rating_sum = s.rating_sum + EXCLUDED.rating_sum, " +
+                "rating_count = s.rating_count + EXCLUDED.rating_count", batch);
+    }
+
+    /*
+        Пересчёт min/max цены для категорий, из которых удалялись товары.
+        Использует индекс (category_id, price), поэтому не зависит от размера категории
+        @param categoryIds идентификаторы категорий
+     */
+    public void refreshMinMax(Collection<Long> categoryIds) {
+        jdbcTemplate.update("UPDATE category_stats s SET " +
+                "min_price = (SELECT MIN(p.price) FROM product p WHERE p.category_id = s.category_id), " +
+                "max_price = (SELECT MAX(p.price) FROM product p WHERE p.category_id = s.category_id) " +
+                "WHERE s.category_id IN (:ids)", Map.of("ids", categoryIds));
+        jdbcTemplate.update("DELETE FROM category_stats WHERE category_id IN (:ids) AND product_count <= 0",
+                Map.of("ids", categoryIds));
+    }
+
+    /*
+        Полный пересчёт статистики по таблице товаров
+     */
+    public void rebuild() {
+        jdbcTemplate.update("DELETE FROM category_stats WHERE category_id NOT IN " +
+                "(SELECT DISTINCT category_id FROM product WHERE category_id IS NOT NULL)", Map.of());
+        jdbcTemplate.update("INSERT INTO category_stats " +
+                "(category_id, product_count, price_sum, min_price, max_price, rating_sum, rating_count) " +
+                "SELECT p.category_id, COUNT(*), SUM(p.price), MIN(p.price), MAX(p.price), " +
+                "COALESCE(SUM(r.rate), 0), COUNT(r.rating_id) " +
+                "FROM product p LEFT JOIN rating r ON r.rating_id = p.rating_id " +
+                "WHERE p.category_id IS NOT NULL GROUP BY p.category_id " +
+                "ON CONFLICT (category_id) DO UPDATE SET " +
+                "product_count = EXCLUDED.product_count, price_sum = EXCLUDED.price_sum, " +
+                "min_price = EXCLUDED.min_price, max_price = EXCLUDED.max_price, " +
+                "rating_sum = EXCLUDED.rating_sum, rating_count = EXCLUDED.rating_count", Map.of());
+    }
+
+    /*
+        Проверка, что статистика ещё не заполнялась, хотя товары есть
+     */
+    public boolean isMissing() {
+        Boolean missing = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM category_stats) " +
+                "AND EXISTS (SELECT 1 FROM product)", Map.of(), Boolean.class);
+        return Boolean.TRUE.equals(missing);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.model.CategoryStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CategoryStatsRepository extends JpaRepository<CategoryStats, Long> {
+
+    @Query("SELECT s FROM CategoryStats s JOIN FETCH s.category WHERE s.productCount > 0")
+    List<CategoryStats> findAllWithCategory();
+
+    @Query("SELECT COALESCE(SUM(s.productCount), 0) FROM CategoryStats s")
+    long countProducts();
+
+    @Query("SELECT COALESCE(SUM(s.productCount), 0) FROM CategoryStats s WHERE s.category.name = :categoryName")
+    long countProductsByCategoryName(@Param("categoryName") String categoryName);
+}
@@ -0,0 +1,169 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.RatingDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+    Промежуточная запись товаров импорта из нескольких источников (таблица import_stage).
+    Каждый импорт пишет строки со своим run_id; строки последнего успешного импорта хранятся до следующего
+ */
+@Repository
+@RequiredArgsConstructor
+public class ImportStageRepository {
+
+    private static final String COLUMNS = "product_id, title, price, description, image, category, rate, rate_count";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /*
+        Запись порции товаров источника одним пакетом
+        @param rank ранг источника: меньшее значение важнее при совпадении id
+        @param page номер страницы источника
+     */
+    public void stage(UUID runId, String source, int rank, int page, List<ProductDTO> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = products.stream()
+                .map(product -> new MapSqlParameterSource()
+                        .addValue("runId", runId)
+                        .addValue("source", source)
+                        .addValue("rank", rank)
+                        .addValue("page", page)
+                        .addValue("id", product.getId(), Types.BIGINT)
+                        .addValue("title", product.getTitle())
+                        .addValue("price", product.getPrice())
+                        .addValue("description", product.getDescription(), Types.VARCHAR)
+                        .addValue("image", product.getImage(), Types.VARCHAR)
+                        .addValue("category", product.getCategory())
+                        .addValue("rate", product.getRating() != null ? product.getRating().getRate() : null, Types.DOUBLE)
+                        .addValue("count", product.getRating() != null ? product.getRating().getCount() : null, Types.INTEGER))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("INSERT INTO import_stage (run_id, source, source_rank, page, " + COLUMNS + ") " +
+                "VALUES (:runId, :source, :rank, :page, :id, :title, :price, :description, :image, :category, :rate, :count)",
+                batch);
+    }
+
+    /*
+        Копирование товаров источника из последнего успешного импорта (источник ответил 304 Not Modified)
+        @return количество скопированных товаров
+     */
+    public int copyCommitted(UUID runId, String source, int rank) {
+        return jdbcTemplate.update("INSERT INTO import_stage (run_id, source, source_rank, page, " + COLUMNS + ") " +
+                        "SELECT :runId, s.source, :rank, s.page, s.product_id, s.title, s.price, s.description, s.image, " +
+                        "s.category, s.rate, s.rate_count " +
+                        "FROM import_stage s JOIN import_stage_run r ON r.run_id = s.run_id " +
+                        "WHERE s.source = :source ORDER BY s.stage_id",
+                new MapSqlParameterSource()
+                        .addValue("runId", runId)
+                        .addValue("source", source)
+                        .addValue("rank", rank));
+    }
+
+    /*
+        Удаление страниц источника после последней (запрошенных заранее окном параллельной загрузки)
+     */
+    public void deletePagesAfter(UUID runId, String source, int lastPage) {
+        jdbcTemplate.update("DELETE FROM import_stage WHERE run_id = :runId AND source = :source AND page > :lastPage",
+                new MapSqlParameterSource()
+                        .addValue("runId", runId)
+                        .addValue("source", source)
+                        .addValue("lastPage", lastPage));
+    }
+
+    /*
+        Порция товаров с id после слияния: по одному товару на id из источника с меньшим рангом, затем со страницы
+        с меньшим номером, затем записанный раньше
+        @param afterId id последнего товара предыдущей порции (keyset-пагинация)
+        @return товары по возрастанию id
+     */
+    public List<StagedProduct> findMerged(UUID runId, long afterId, int limit) {
+        return jdbcTemplate.query("SELECT DISTINCT ON (product_id) stage_id, " + COLUMNS + " FROM import_stage " +
+                        "WHERE run_id = :runId AND product_id > :afterId " +
+                        "ORDER BY product_id, source_rank, page, stage_id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("runId", runId)
+                        .addValue("afterId", afterId)
+                        .addValue("limit", limit),
+                (rs, rowNum) -> stagedProduct(rs));
+    }
+
+    /*
+        Порция товаров без id в порядке записи
+        @param afterStageId stage_id последнего товара предыдущей порции
+     */
+    public List<StagedProduct> findWithoutId(UUID runId, long afterStageId, int limit) {
+        return jdbcTemplate.query("SELECT stage_id, " + COLUMNS + " FROM import_stage " +
+                        "WHERE run_id = :runId AND product_id IS NULL AND stage_id > :afterStageId " +
+                        "ORDER BY stage_id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("runId", runId)
+                        .addValue("afterStageId", afterStageId)
+                        .addValue("limit", limit),
+                (rs, rowNum) -> stagedProduct(rs));
+    }
+
+    /*
+        Количество товаров, id которых уже занят товаром более важного источника (или той же страницы раньше)
+     */
+    public int countDuplicates(UUID runId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) - count(DISTINCT product_id) FROM import_stage " +
+                "WHERE run_id = :runId AND product_id IS NOT NULL", Map.of("runId", runId), Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /*
+        Фиксация успешного импорта одним запросом: его строки остаются для следующего импорта,
+        строки прежних и прерванных импортов удаляются
+     */
+    public void commit(UUID runId) {
+        jdbcTemplate.update("WITH stale AS (DELETE FROM import_stage WHERE run_id <> :runId), " +
+                "previous AS (DELETE FROM import_stage_run) " +
+                "INSERT INTO import_stage_run (run_id, committed_at) VALUES (:runId, now())", Map.of("runId", runId));
+    }
+
+    /*
+        Удаление строк неудавшегося импорта
+     */
+    public void discard(UUID runId) {
+        jdbcTemplate.update("DELETE FROM import_stage WHERE run_id = :runId", Map.of("runId", runId));
+    }
+
+    private static StagedProduct stagedProduct(ResultSet rs) throws SQLException {
+        ProductDTO product = new ProductDTO();
+        product.setId(rs.getObject("product_id", Long.class));
+        product.setTitle(rs.getString("title"));
+        product.setPrice(rs.getBigDecimal("price"));
+        product.setDescription(rs.getString("description"));
+        product.setImage(rs.getString("image"));
+        product.setCategory(rs.getString("category"));
+        Double rate = rs.getObject("rate", Double.class);
+        Integer count = rs.getObject("rate_count", Integer.class);
+        if (rate != null && count != null) {
+            RatingDTO rating = new RatingDTO();
+            rating.setRate(rate);
+            rating.setCount(count);
+            product.setRating(rating);
+        }
+        return new StagedProduct(rs.getLong("stage_id"), product);
+    }
+
+    /*
+        Товар из промежуточной таблицы
+        @param stageId позиция товара в таблице (для keyset-пагинации товаров без id)
+     */
+    public record StagedProduct(long stageId, ProductDTO product) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.ProductChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+    Лента изменений товаров в таблице product_change (заполняется триггером на таблице product)
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductChangeRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /*
+        Получение изменений с номером больше since (без данных товаров)
+        @param since номер последнего полученного изменения
+        @param limit максимальное количество изменений
+     */
+    public List<ProductChange> findSince(long since, int limit) {
+        return jdbcTemplate.query("SELECT seq, product_id, deleted, changed_at FROM product_change " +
+                        "WHERE seq > :since ORDER BY seq LIMIT :limit",
+                Map.of("since", since, "limit", limit),
+                (rs, rowNum) -> new ProductChange(rs.getLong("seq"), rs.getLong("product_id"), rs.getBoolean("deleted"),
+                        rs.getTimestamp("changed_at").toInstant(), null));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.config.ProductFacetProperties;
+import com.example.testTask.dto.FacetCount;
+import com.example.testTask.dto.ProductFacets;
+import com.example.testTask.dto.RangeCount;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Фасеты товаров одним запросом: строки, удовлетворяющие фильтру по цене, читаются один раз
+    и группируются по GROUPING SETS (категория, интервал цены, интервал оценки, итог).
+    Количество по категориям считается без фильтра по категории (чтобы показать соседние категории),
+    остальные фасеты — с ним (COUNT(*) FILTER). Запрос ограничен по времени (app.products.facets.timeout)
+ */
+@Repository
+public class ProductFacetRepository {
+
+    /*
+        Битовая маска GROUPING(category, price_bucket, rating_bucket) для каждого набора группировки
+     */
+    private static final int BY_CATEGORY = 0b011;
+    private static final int BY_PRICE = 0b101;
+    private static final int BY_RATING = 0b110;
+    private static final int TOTAL = 0b111;
+    private static final int MAX_RATING_BUCKET = 4;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProductFacetProperties properties;
+
+    public ProductFacetRepository(DataSource dataSource, ProductFacetProperties properties) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setQueryTimeout((int) Math.max(1, properties.getTimeout().toSeconds()));
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        this.properties = properties;
+    }
+
+    /*
+        Подсчёт фасетов
+        @param filter условия выборки
+        @param priceInterval ширина интервала гистограммы цен
+        @throws IllegalArgumentException если ширина интервала не положительна
+     */
+    public ProductFacets find(Filter filter, BigDecimal priceInterval) {
+        if (priceInterval == null || priceInterval.signum() <= 0) {
+            throw new IllegalArgumentException("Price interval must be positive");
+        }
+        long start = System.nanoTime();
+        // гистограмма начинается с интервала, содержащего нижнюю границу фильтра
+        BigDecimal base = filter.minPrice() != null
+                ? filter.minPrice().divide(priceInterval, 0, RoundingMode.FLOOR).multiply(priceInterval)
+                : BigDecimal.ZERO;
+        int maxPriceBucket = properties.getMaxPriceBuckets() - 1;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("base", base)
+                .addValue("interval", priceInterval)
+                .addValue("maxPriceBucket", maxPriceBucket)
+                .addValue("maxRatingBucket", MAX_RATING_BUCKET);
+        List<String> conditions = new ArrayList<>();
+        if (filter.minPrice() != null) {
+            conditions.add("p.price >= :minPrice");
+            params.addValue("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            conditions.add("p.price <= :maxPrice");
+            params.addValue("maxPrice", filter.maxPrice());
+        }
+        String selected = "TRUE";
+        if (filter.categoryName() != null) {
+            selected = "c.name = :categoryName";
+            params.addValue("categoryName", filter.categoryName());
+        }
+
+        String sql = "SELECT GROUPING(category, price_bucket, rating_bucket) AS grouping_set, " +
+                "category, price_bucket, rating_bucket, " +
+                "COUNT(*) AS all_count, COUNT(*) FILTER (WHERE selected) AS selected_count " +
+                "FROM (SELECT COALESCE(c.name, '') AS category, " +
+                "LEAST(FLOOR((p.price - :base) / :interval), :maxPriceBucket) AS price_bucket, " +
+                "LEAST(FLOOR(r.rate), :maxRatingBucket) AS rating_bucket, " +
+                selected + " AS selected " +
+                "FROM product p " +
+                "LEFT JOIN category c ON c.category_id = p.category_id " +
+                "LEFT JOIN rating r ON r.rating_id = p.rating_id" +
+                (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)) + ") f " +
+                "GROUP BY GROUPING SETS ((category), (price_bucket), (rating_bucket), ()) " +
+                "ORDER BY grouping_set, category, price_bucket, rating_bucket NULLS LAST";
+
+        List<FacetCount> categories = new ArrayList<>();
+        List<RangeCount> prices = new ArrayList<>();
+        List<RangeCount> ratings = new ArrayList<>();
+        long[] total = new long[1];
+        jdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> {
+            long count = rs.getLong("selected_count");
+            switch (rs.getInt("grouping_set")) {
+                case BY_CATEGORY -> categories.add(new FacetCount(rs.getString("category"), rs.getLong("all_count")));
+                case BY_PRICE -> {
+                    if (count > 0) {
+                        int bucket = rs.getInt("price_bucket");
+                        BigDecimal from = base.add(priceInterval.multiply(BigDecimal.valueOf(bucket)));
+                        // последний интервал открыт сверху
+                        prices.add(new RangeCount(from, bucket < maxPriceBucket ? from.add(priceInterval) : null, count));
+                    }
+                }
+                case BY_RATING -> {
+                    if (count > 0) {
+                        int bucket = rs.getInt("rating_bucket");
+                        // товары без рейтинга — интервал без границ
+                        ratings.add(rs.wasNull()
+                                ? new RangeCount(null, null, count)
+                                : new RangeCount(BigDecimal.valueOf(bucket), BigDecimal.valueOf(bucket + 1), count));
+                    }
+                }
+                case TOTAL -> total[0] = count;
+                default -> {
+                }
+            }
+        });
+        return new ProductFacets(total[0], categories, prices, ratings, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.RatingDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+
+/*
+    Пакетные операции над товарами, рейтингами и категориями через JDBC.
+    Используется импортом, чтобы записывать порцию товаров за фиксированное число запросов
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /*
+        Получение сохранённого состояния существующих товаров
+        @param externalIds идентификаторы товаров во внешнем api
+        @return идентификатор во внешнем api -> идентификатор товара, рейтинг, отпечаток содержимого, категория и цена
+     */
+    public Map<Long, ExistingProduct> findExistingByExternalIds(Collection<Long> externalIds) {
+        Map<Long, ExistingProduct> result = new HashMap<>();
+        if (externalIds.isEmpty()) {
+            return result;
+        }
+        jdbcTemplate.query("SELECT p.external_id, p.product_id, p.rating_id, p.fingerprint, p.category_id, p.price, r.rate " +
+                        "FROM product p LEFT JOIN rating r ON r.rating_id = p.rating_id WHERE p.external_id IN (:ids)",
+                Map.of("ids", externalIds),
+                (RowCallbackHandler) rs -> result.put(rs.getLong("external_id"), new ExistingProduct(
+                        rs.getLong("product_id"),
+                        rs.getObject("rating_id", Long.class),
+                        rs.getString("fingerprint"),
+                        rs.getObject("category_id", Long.class),
+                        rs.getBigDecimal("price"),
+                        rs.getObject("rate", Double.class))));
+        return result;
+    }
+
+    /*
+        Получение идентификаторов категорий по их названиям
+        @param names названия категорий
+        @return название категории -> идентификатор
+     */
+    public Map<String, Long> findCategoryIdsByNames(Collection<String> names) {
+        Map<String, Long> result = new HashMap<>();
+        if (names.isEmpty()) {
+            return result;
+        }
+        jdbcTemplate.query("SELECT category_id, name FROM category WHERE name IN (:names)",
+                Map.of("names", names),
+                (RowCallbackHandler) rs -> result.put(rs.getString("name"), rs.getLong("category_id")));
+        return result;
+    }
+
+    /*
+        Добавление отсутствующих категорий одним пакетом
+        @param names названия категорий
+     */
+    public void insertMissingCategories(Collection<String> names) {
+        SqlParameterSource[] batch = names.stream()
+                .map(name -> new MapSqlParameterSource("name", name))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("INSERT INTO category (name) VALUES (:name) ON CONFLICT (name) DO NOTHING", batch);
+    }
+
+    /*
+        Добавление рейтингов одним пакетом
+        @param ratings рейтинги для добавления
+        @return идентификаторы созданных рейтингов в порядке входного списка
+     */
+    public List<Long> insertRatings(List<RatingDTO> ratings) {
+        if (ratings.isEmpty()) {
+            return List.of();
+        }
+        SqlParameterSource[] batch = ratings.stream()
+                .map(rating -> new MapSqlParameterSource()
+                        .addValue("rate", rating.getRate())
+                        .addValue("count", rating.getCount()))
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate("INSERT INTO rating (rate, count) VALUES (:rate, :count)",
+                batch, keyHolder, new String[]{"rating_id"});
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.get("rating_id")).longValue())
+                .toList();
+    }
+
+    /*
+        Обновление существующих рейтингов одним пакетом
+        @param ratings идентификатор рейтинга -> новые значения
+     */
+    public void updateRatings(Map<Long, RatingDTO> ratings) {
+        if (ratings.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = ratings.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("id", entry.getKey())
+                        .addValue("rate", entry.getValue().getRate())
+                        .addValue("count", entry.getValue().getCount()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("UPDATE rating SET rate = :rate, count = :count WHERE rating_id = :id", batch);
+    }
+
+    /*
+        Удаление рейтингов, на которые больше не ссылаются товары
+        @param ids идентификаторы рейтингов
+     */
+    public void deleteRatings(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM rating WHERE rating_id IN (:ids)", Map.of("ids", ids));
+    }
+
+    /*
+        Добавление товаров одним пакетом. Идентификаторы выдаёт последовательность, id из внешнего api
+        записывается в external_id; если товар с таким external_id успел появиться, он перезаписывается
+        @param rows товары для добавления
+        @return идентификаторы добавленных товаров в порядке входного списка
+     */
+    public List<Long> insertProducts(List<ProductRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        SqlParameterSource[] batch = rows.stream()
+                .map(row -> productParameters(row).addValue("externalId", row.getProduct().getId(), Types.BIGINT))
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate("INSERT INTO product (external_id, title, price, description, image, category_id, " +
+                "rating_id, fingerprint, version, updated_at) " +
+                "VALUES (:externalId, :title, :price, :description, :image, :categoryId, :ratingId, :fingerprint, 0, :updatedAt) " +
+                "ON CONFLICT (external_id) DO UPDATE SET title = EXCLUDED.title, price = EXCLUDED.price, " +
+                "description = EXCLUDED.description, image = EXCLUDED.image, category_id = EXCLUDED.category_id, " +
+                "rating_id = EXCLUDED.rating_id, fingerprint = EXCLUDED.fingerprint, " +
+                "version = product.version + 1, updated_at = EXCLUDED.updated_at",
+                batch, keyHolder, new String[]{"product_id"});
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.get("product_id")).longValue())
+                .toList();
+    }
+
+    /*
+        Обновление существующих товаров одним пакетом
+        @param rows товары для обновления (productId обязателен)
+     */
+    public void updateProducts(List<ProductRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = rows.stream()
+                .map(row -> productParameters(row).addValue("id", row.getProductId()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("UPDATE product SET title = :title, price = :price, description = :description, " +
+                "image = :image, category_id = :categoryId, rating_id = :ratingId, fingerprint = :fingerprint, " +
+                "version = version + 1, updated_at = :updatedAt " +
+                "WHERE product_id = :id", batch);
+    }
+
+    private MapSqlParameterSource productParameters(ProductRow row) {
+        ProductDTO product = row.getProduct();
+        return new MapSqlParameterSource()
+                .addValue("title", product.getTitle())
+                .addValue("price", product.getPrice())
+                .addValue("description", product.getDescription(), Types.VARCHAR)
+                .addValue("image", product.getImage(), Types.VARCHAR)
+                .addValue("categoryId", row.getCategoryId(), Types.BIGINT)
+                .addValue("ratingId", row.getRatingId(), Types.BIGINT)
+                .addValue("fingerprint", row.getFingerprint())
+                .addValue("updatedAt", Timestamp.from(Instant.now()));
+    }
+
+    /*
+        Сохранённое состояние товара, необходимое импорту
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ExistingProduct {
+        private final long productId;
+        private final Long ratingId;
+        private final String fingerprint;
+        private final Long categoryId;
+        private final BigDecimal price;
+        private final Double rate;
+    }
+
+    /*
+        Строка товара для пакетной записи
+        @param productId идентификатор товара (null для добавляемых товаров)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ProductRow {
+        private final ProductDTO product;
+        private final Long productId;
+        private final Long categoryId;
+        private final Long ratingId;
+        private final String fingerprint;
+    }
+}
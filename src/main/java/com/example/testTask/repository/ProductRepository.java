@@ -3,21 +3,30 @@ package com.example.testTask.repository;
 import com.example.testTask.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 
+/*
+    Сущности товаров для операций записи (чтение для api — ProductViewRepository).
+    Категория и рейтинг выбираются тем же запросом (left join fetch), чтобы не выполнялись отдельные запросы на каждый товар.
+    Обе связи "к одному", поэтому LIMIT/OFFSET применяются к товарам и пагинация остаётся корректной
+ */
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    Page<Product> findAll(Pageable pageable);
 
-    @Query("SELECT p FROM Product p WHERE (:minPrice IS NULL OR p.price >= :minPrice) AND (:maxPrice IS NULL OR p.price <= :maxPrice)")
-    Page<Product> findByPrice(@Param("minPrice")BigDecimal minPrice,
-                              @Param("maxPrice")BigDecimal maxPrice,
-                              Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = {"category", "rating"})
+    Optional<Product> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "rating"})
+    List<Product> findAllById(Iterable<Long> ids);
 
-    Page<Product> findAllByCategoryName(String categoryName, Pageable pageable);
-}
\ No newline at end of file
+    @Override
+    @EntityGraph(attributePaths = {"category", "rating"})
+    Page<Product> findAll(Pageable pageable);
+}
@@ -0,0 +1,250 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.ProductView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/*
+    Чтение товаров для GET-запросов: плоские строки выбираются напрямую из SQL в ProductView,
+    сущности Product/Category/Rating не создаются
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductViewRepository {
+
+    private static final String SELECT = "SELECT p.product_id, p.title, p.price, p.description, p.image, p.version, p.updated_at, " +
+            "c.category_id, c.name AS category_name, r.rating_id, r.rate, r.count " +
+            "FROM product p " +
+            "LEFT JOIN category c ON c.category_id = p.category_id " +
+            "LEFT JOIN rating r ON r.rating_id = p.rating_id";
+
+    /*
+        Свойства сортировки -> выражения SQL
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "p.product_id",
+            "price", "p.price",
+            "category.name", "COALESCE(c.name, '')");
+
+    private static final RowMapper<ProductView> ROW_MAPPER = (rs, rowNum) -> new ProductView(
+            rs.getLong("product_id"),
+            rs.getString("title"),
+            rs.getBigDecimal("price"),
+            rs.getString("description"),
+            rs.getString("image"),
+            rs.getObject("category_id", Long.class),
+            rs.getString("category_name"),
+            rs.getObject("rating_id", Long.class),
+            rs.getObject("rate", Double.class),
+            rs.getObject("count", Integer.class),
+            rs.getLong("version"),
+            updatedAt(rs.getTimestamp("updated_at")));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /*
+        Получение товара по id
+        @param id идентификатор товара
+     */
+    public Optional<ProductView> findById(Long id) {
+        List<ProductView> result = jdbcTemplate.query(SELECT + " WHERE p.product_id = :id", Map.of("id", id), ROW_MAPPER);
+        return result.stream().findFirst();
+    }
+
+    /*
+        Получение товаров по списку id (в порядке возрастания id)
+        @param ids идентификаторы товаров
+     */
+    public List<ProductView> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(SELECT + " WHERE p.product_id IN (:ids) ORDER BY p.product_id", Map.of("ids", ids), ROW_MAPPER);
+    }
+
+    /*
+        Получение всех товаров по возрастанию id (для снимка каталога в памяти)
+     */
+    public List<ProductView> findAll() {
+        return jdbcTemplate.query(SELECT + " ORDER BY p.product_id", Map.of(), ROW_MAPPER);
+    }
+
+    /*
+        Обход товаров по возрастанию id курсором базы данных: строки читаются порциями по fetchSize
+        и передаются action по одной, поэтому память не зависит от размера каталога.
+        Курсор PostgreSQL открывается только внутри транзакции (без autocommit)
+        @param filter условия выборки
+        @param fetchSize количество строк, получаемых из базы данных за одно обращение
+        @param action обработчик товара
+     */
+    public void forEach(Filter filter, int fetchSize, Consumer<ProductView> action) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = SELECT + where(filter, params) + " ORDER BY p.product_id";
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        cursor.setFetchSize(fetchSize);
+        new NamedParameterJdbcTemplate(cursor).query(sql, params,
+                (RowCallbackHandler) rs -> action.accept(ROW_MAPPER.mapRow(rs, rs.getRow())));
+    }
+
+    /*
+        Получение страницы товаров (LIMIT/OFFSET).
+        Количество не запрашивается, если страница первая и неполная
+        @param filter условия выборки
+     */
+    public Page<ProductView> findPage(Filter filter, Pageable pageable) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SELECT).append(where(filter, params))
+                .append(" ORDER BY ").append(orderBy(withIdTieBreaker(pageable.getSort())))
+                .append(" LIMIT :limit OFFSET :offset");
+        params.addValue("limit", pageable.getPageSize());
+        params.addValue("offset", pageable.getOffset());
+        List<ProductView> content = jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(filter));
+    }
+
+    /*
+        Получение товаров, следующих за позицией after в порядке sort (keyset-пагинация без OFFSET)
+        @param filter условия выборки
+        @param sort сортировка, последним ключом должен быть id
+        @param after значения ключей сортировки последнего элемента предыдущей страницы (пустые — первая страница)
+        @param limit максимальное количество товаров
+     */
+    public List<ProductView> findAfter(Filter filter, Sort sort, Map<String, Object> after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SELECT).append(where(filter, params));
+        if (!after.isEmpty()) {
+            sql.append(filter.isEmpty() ? " WHERE " : " AND ").append(keysetPredicate(sort, after, params));
+        }
+        sql.append(" ORDER BY ").append(orderBy(sort)).append(" LIMIT :limit");
+        params.addValue("limit", limit);
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    /*
+        Подсчёт количества товаров, удовлетворяющих условиям
+        @param filter условия выборки
+     */
+    public long count(Filter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT COUNT(*) FROM product p LEFT JOIN category c ON c.category_id = p.category_id" + where(filter, params);
+        Long count = jdbcTemplate.queryForObject(sql, params, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private static String where(Filter filter, MapSqlParameterSource params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.minPrice() != null) {
+            conditions.add("p.price >= :minPrice");
+            params.addValue("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            conditions.add("p.price <= :maxPrice");
+            params.addValue("maxPrice", filter.maxPrice());
+        }
+        if (filter.categoryName() != null) {
+            conditions.add("c.name = :categoryName");
+            params.addValue("categoryName", filter.categoryName());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /*
+        Условие "строка после позиции". Если все ключи сортируются в одном направлении, это сравнение строк
+        (k1, k2) > (v1, v2), которое PostgreSQL использует как границу диапазона индекса (столбцы ключей не NULL).
+        Иначе — (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ... (для убывающих ключей сравнение обратное)
+     */
+    private static String keysetPredicate(Sort sort, Map<String, Object> after, MapSqlParameterSource params) {
+        List<Sort.Order> orders = sort.toList();
+        boolean ascending = orders.get(0).isAscending();
+        if (orders.stream().allMatch(order -> order.isAscending() == ascending)) {
+            List<String> columns = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                columns.add(column(orders.get(i)));
+                values.add(":k" + i);
+                params.addValue("k" + i, after.get(orders.get(i).getProperty()));
+            }
+            return "(" + String.join(", ", columns) + (ascending ? ") > (" : ") < (") + String.join(", ", values) + ")";
+        }
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            StringBuilder alternative = new StringBuilder("(");
+            for (int j = 0; j < i; j++) {
+                alternative.append(column(orders.get(j))).append(" = :k").append(j).append(" AND ");
+            }
+            Sort.Order order = orders.get(i);
+            alternative.append(column(order)).append(order.isAscending() ? " > :k" : " < :k").append(i).append(')');
+            alternatives.add(alternative.toString());
+            params.addValue("k" + i, after.get(order.getProperty()));
+        }
+        return "(" + String.join(" OR ", alternatives) + ")";
+    }
+
+    private static String orderBy(Sort sort) {
+        List<String> columns = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            columns.add(column(order) + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return String.join(", ", columns);
+    }
+
+    private static String column(Sort.Order order) {
+        String column = SORT_COLUMNS.get(order.getProperty());
+        if (column == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+        }
+        return column;
+    }
+
+    /*
+        Добавление id в конец сортировки, чтобы порядок товаров с равными ключами не менялся между страницами
+     */
+    private static Sort withIdTieBreaker(Sort sort) {
+        return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by(Sort.Order.asc("id")));
+    }
+
+    private static Instant updatedAt(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    /*
+        Условия выборки товаров (null — без ограничения)
+     */
+    public record Filter(BigDecimal minPrice, BigDecimal maxPrice, String categoryName) {
+
+        public static Filter all() {
+            return new Filter(null, null, null);
+        }
+
+        public static Filter priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+            return new Filter(minPrice, maxPrice, null);
+        }
+
+        public static Filter categoryName(String categoryName) {
+            return new Filter(null, null, categoryName);
+        }
+
+        boolean isEmpty() {
+            return minPrice == null && maxPrice == null && categoryName == null;
+        }
+    }
+}
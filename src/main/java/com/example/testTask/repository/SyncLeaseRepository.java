@@ -0,0 +1,89 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.SyncLease;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+    Аренда синхронизации в таблице sync_lease.
+    Все сроки считаются по часам базы данных (clock_timestamp()), поэтому расхождение часов экземпляров не влияет на аренду
+ */
+@Repository
+@RequiredArgsConstructor
+public class SyncLeaseRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /*
+        Получение аренды одним запросом: аренда берётся, если её ещё нет, она истекла или уже принадлежит owner
+        @param dueAfter если задан, аренда берётся, только если последняя синхронизация завершилась раньше, чем dueAfter назад
+        @return true, если аренда принадлежит owner
+     */
+    public boolean tryAcquire(String name, String owner, Duration ttl, Duration dueAfter) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("name", name)
+                .addValue("owner", owner)
+                .addValue("ttlMs", ttl.toMillis())
+                .addValue("checkDue", dueAfter != null)
+                .addValue("dueAfterMs", dueAfter != null ? dueAfter.toMillis() : 0L);
+        return jdbcTemplate.update("INSERT INTO sync_lease AS l (name, owner, acquired_at, heartbeat_at, expires_at) " +
+                "VALUES (:name, :owner, clock_timestamp(), clock_timestamp(), clock_timestamp() + :ttlMs * interval '1 millisecond') " +
+                "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, " +
+                "acquired_at = CASE WHEN l.owner = EXCLUDED.owner AND l.expires_at >= clock_timestamp() " +
+                "THEN l.acquired_at ELSE EXCLUDED.acquired_at END, " +
+                "heartbeat_at = EXCLUDED.heartbeat_at, expires_at = EXCLUDED.expires_at " +
+                "WHERE (l.expires_at < clock_timestamp() OR l.owner = EXCLUDED.owner) " +
+                "AND (NOT :checkDue OR l.last_run_finished_at IS NULL " +
+                "OR l.last_run_finished_at < clock_timestamp() - :dueAfterMs * interval '1 millisecond')", params) == 1;
+    }
+
+    /*
+        Продление аренды владельцем
+        @return false, если аренда истекла и её взял другой экземпляр
+     */
+    public boolean renew(String name, String owner, Duration ttl) {
+        return jdbcTemplate.update("UPDATE sync_lease SET heartbeat_at = clock_timestamp(), " +
+                        "expires_at = clock_timestamp() + :ttlMs * interval '1 millisecond' WHERE name = :name AND owner = :owner",
+                Map.of("name", name, "owner", owner, "ttlMs", ttl.toMillis())) == 1;
+    }
+
+    /*
+        Освобождение аренды с записью результата синхронизации
+        @return false, если аренда уже принадлежит другому экземпляру (результат не записывается)
+     */
+    public boolean release(String name, String owner, Instant runStartedAt, String runState) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("name", name)
+                .addValue("owner", owner)
+                .addValue("startedAt", Timestamp.from(runStartedAt))
+                .addValue("state", runState);
+        return jdbcTemplate.update("UPDATE sync_lease SET expires_at = clock_timestamp(), last_run_owner = owner, " +
+                "last_run_started_at = :startedAt, last_run_finished_at = clock_timestamp(), last_run_state = :state " +
+                "WHERE name = :name AND owner = :owner", params) == 1;
+    }
+
+    public Optional<SyncLease> find(String name) {
+        List<SyncLease> result = jdbcTemplate.query("SELECT * FROM sync_lease WHERE name = :name", Map.of("name", name),
+                (rs, rowNum) -> new SyncLease(rs.getString("name"), rs.getString("owner"),
+                        instant(rs, "acquired_at"), instant(rs, "heartbeat_at"), instant(rs, "expires_at"),
+                        rs.getString("last_run_owner"), instant(rs, "last_run_started_at"),
+                        instant(rs, "last_run_finished_at"), rs.getString("last_run_state")));
+        return result.stream().findFirst();
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/*
+    Сброс кэшей каталога после изменения товаров на этом или другом узле:
+    товары по id и их json удаляются точечно, результаты запросов — полностью
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheEvictor {
+
+    private final CacheManager cacheManager;
+    private final ProductJsonCache productJsonCache;
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null && event.all()) {
+            products.clear();
+        } else if (products != null) {
+            event.productIds().forEach(products::evict);
+        }
+        productJsonCache.evictAll(event.productIds());
+        clear(CacheConfig.PRODUCT_QUERIES);
+        clear(CacheConfig.CATEGORIES);
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.testTask.service;
+
+import java.util.Set;
+
+/*
+    Событие изменения каталога (на этом или другом узле), публикуется после фиксации транзакции
+    @param productIds добавленные, изменённые или удалённые товары
+    @param all изменённые товары неизвестны (уведомления могли быть потеряны при переподключении слушателя)
+ */
+public record CatalogChangedEvent(Set<Long> productIds, boolean all) {
+
+    public static CatalogChangedEvent of(Set<Long> productIds) {
+        return new CatalogChangedEvent(productIds, false);
+    }
+
+    public static CatalogChangedEvent unknown() {
+        return new CatalogChangedEvent(Set.of(), true);
+    }
+}
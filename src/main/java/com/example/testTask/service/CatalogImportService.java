@@ -0,0 +1,296 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ImportProperties;
+import com.example.testTask.dto.ImportProgress;
+import com.example.testTask.dto.ImportReport;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.repository.ImportStageRepository;
+import com.example.testTask.repository.ImportStageRepository.StagedProduct;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/*
+    Импорт товаров из нескольких источников (ImportSource) в три этапа:
+    параллельная загрузка источников и их страниц с записью в промежуточную таблицу -> слияние -> запись порциями.
+    Одновременно выполняется не больше app.import.fetch-concurrency запросов, поэтому время загрузки
+    близко ко времени самого медленного источника, а не к сумме времён. Ответы разбираются потоком
+    (ProductImportPipeline) и сразу записываются в import_stage, а слияние читает её порциями по id,
+    поэтому память не зависит ни от размера ответов, ни от размера каталога.
+    При совпадении id товар берётся из источника с меньшим priority (затем — по имени источника),
+    внутри источника — с меньшей страницей, поэтому результат не зависит от порядка ответов
+ */
+@Slf4j
+@Service
+public class CatalogImportService {
+
+    private static final Comparator<ImportSource> SOURCE_ORDER =
+            Comparator.comparingInt(ImportSource::getPriority).thenComparing(ImportSource::getName);
+
+    private final ImportProperties importProperties;
+    private final ProductImportPipeline productImportPipeline;
+    private final ImportStageRepository importStageRepository;
+    private final ImportMetrics importMetrics;
+    private final List<ImportSource> sources;
+
+    @Autowired
+    public CatalogImportService(ImportProperties importProperties, ProductImportPipeline productImportPipeline,
+                                ImportStageRepository importStageRepository, ImportMetrics importMetrics,
+                                RestClient restClient, ObjectProvider<ImportSource> customSources) {
+        this(importProperties, productImportPipeline, importStageRepository, importMetrics,
+                sources(importProperties, restClient, customSources.orderedStream().toList()));
+    }
+
+    CatalogImportService(ImportProperties importProperties, ProductImportPipeline productImportPipeline,
+                         ImportStageRepository importStageRepository, ImportMetrics importMetrics,
+                         List<ImportSource> sources) {
+        this.importProperties = importProperties;
+        this.productImportPipeline = productImportPipeline;
+        this.importStageRepository = importStageRepository;
+        this.importMetrics = importMetrics;
+        this.sources = sources.stream().sorted(SOURCE_ORDER).toList();
+    }
+
+    /*
+        Импорт товаров из всех источников. Вызывается задачами импорта (ImportJobService), которые выполняются по одной.
+        Если все источники ответили 304, товары не перезаписываются
+        @param progress счётчики импорта и флаг отмены
+        @throws CancellationException если импорт отменён
+        @throws RuntimeException если не удалось загрузить хотя бы один источник (без него слияние было бы неполным)
+     */
+    public ImportReport importAll(ImportProgress progress) {
+        long start = System.nanoTime();
+        UUID runId = UUID.randomUUID();
+        ImportReport report;
+        try {
+            List<SourceResult> results = fetchAll(runId, progress);
+            if (results.stream().allMatch(SourceResult::notModified)) {
+                report = new ImportReport();
+                report.setNotModified(true);
+                importStageRepository.discard(runId);
+            } else {
+                for (SourceResult result : results) {
+                    if (result.notModified()) {
+                        int copied = importStageRepository.copyCommitted(runId, result.source().getName(), result.rank());
+                        log.info("Import source {}: not modified, {} products taken from the last import",
+                                result.source().getName(), copied);
+                    }
+                }
+                report = merge(runId, progress);
+                results.forEach(result -> report.addSkipped(result.skipped()));
+                importStageRepository.commit(runId);
+            }
+        } catch (RuntimeException e) {
+            importStageRepository.discard(runId);
+            throw e;
+        }
+        sources.forEach(ImportSource::onImported);
+
+        report.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        log.info("Import finished: sources={}, notModified={}, inserted={}, updated={}, unchanged={}, skipped={}, elapsed={} ms",
+                sources.size(), report.isNotModified(), report.getInserted(), report.getUpdated(), report.getUnchanged(),
+                report.getSkipped(), report.getElapsedMs());
+        return report;
+    }
+
+    public List<ImportSource> getSources() {
+        return sources;
+    }
+
+    private List<SourceResult> fetchAll(UUID runId, ImportProgress progress) {
+        Semaphore permits = new Semaphore(Math.max(1, importProperties.getFetchConcurrency()));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<SourceResult>> futures = new ArrayList<>(sources.size());
+            for (int rank = 0; rank < sources.size(); rank++) {
+                ImportSource source = sources.get(rank);
+                int sourceRank = rank;
+                futures.add(executor.submit(() -> fetchSource(source, sourceRank, runId, executor, permits, progress)));
+            }
+            List<SourceResult> results = new ArrayList<>(futures.size());
+            try {
+                for (Future<SourceResult> future : futures) {
+                    results.add(await(future));
+                }
+            } catch (RuntimeException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+            return results;
+        }
+    }
+
+    /*
+        Загрузка источника. Страницы запрашиваются окнами по app.import.fetch-concurrency, пока не встретится
+        последняя; страницы окна после последней дожидаются и удаляются из промежуточной таблицы
+     */
+    private SourceResult fetchSource(ImportSource source, int rank, UUID runId, ExecutorService executor,
+                                     Semaphore permits, ImportProgress progress) {
+        long start = System.nanoTime();
+        int items = 0;
+        int skipped = 0;
+        boolean notModified = true;
+        boolean last = false;
+        int pages = 0;
+        int requested = 0;
+        int window = source.isPaginated() ? Math.max(1, importProperties.getFetchConcurrency()) : 1;
+        int maxPages = Math.max(1, source.getMaxPages());
+        for (int first = 1; !last && first <= maxPages; first += window) {
+            List<Future<PageResult>> batch = new ArrayList<>(window);
+            for (int page = first; page < first + window && page <= maxPages; page++) {
+                int number = page;
+                batch.add(executor.submit(() -> fetchPage(source, rank, number, runId, permits, progress)));
+                requested = page;
+            }
+            for (Future<PageResult> future : batch) {
+                if (last) {
+                    awaitQuietly(future);
+                    continue;
+                }
+                PageResult page = await(future);
+                pages++;
+                items += page.page().items();
+                skipped += page.skipped();
+                notModified &= page.page().notModified();
+                last = page.page().last();
+            }
+        }
+        if (requested > pages) {
+            importStageRepository.deletePagesAfter(runId, source.getName(), pages);
+        }
+        log.info("Import source {}: pages={}, items={}, notModified={}, elapsed={} ms", source.getName(), pages,
+                items, notModified, (System.nanoTime() - start) / 1_000_000);
+        return new SourceResult(source, rank, notModified, skipped);
+    }
+
+    /*
+        Загрузка страницы: товары разбираются по мере чтения ответа и записываются в import_stage порциями,
+        id сдвигается на смещение источника
+     */
+    private PageResult fetchPage(ImportSource source, int rank, int page, UUID runId, Semaphore permits,
+                                 ImportProgress progress) throws InterruptedException {
+        progress.throwIfCancelled();
+        permits.acquire();
+        Timer.Sample sample = importMetrics.start();
+        try {
+            AtomicInteger skipped = new AtomicInteger();
+            ImportSource.Page result = source.fetch(page, body -> {
+                ProductImportPipeline.Result read = productImportPipeline.read(body, source.getName(), progress,
+                        chunk -> stage(source, rank, page, runId, chunk));
+                skipped.addAndGet(read.skipped());
+                return read.items();
+            });
+            return new PageResult(result, skipped.get());
+        } finally {
+            importMetrics.stop(sample, ImportMetrics.FETCH, source.getName());
+            permits.release();
+        }
+    }
+
+    private void stage(ImportSource source, int rank, int page, UUID runId, List<ProductDTO> chunk) {
+        if (source.getIdOffset() != 0) {
+            chunk.stream().filter(dto -> dto.getId() != null).forEach(dto -> dto.setId(dto.getId() + source.getIdOffset()));
+        }
+        Timer.Sample sample = importMetrics.start();
+        importStageRepository.stage(runId, source.getName(), rank, page, chunk);
+        importMetrics.stop(sample, ImportMetrics.WRITE, source.getName());
+    }
+
+    /*
+        Слияние: товары с id читаются из import_stage порциями по возрастанию id (на каждый id — товар самого
+        важного источника), затем товары без id; каждая порция записывается в отдельной транзакции
+     */
+    private ImportReport merge(UUID runId, ImportProgress progress) {
+        int chunkSize = Math.max(1, importProperties.getChunkSize());
+        ImportReport report = new ImportReport();
+        int duplicates = importStageRepository.countDuplicates(runId);
+        if (duplicates > 0) {
+            log.info("Import: {} products skipped, their ids are taken by higher priority sources", duplicates);
+            report.addSkipped(duplicates);
+            progress.addFailed(duplicates);
+        }
+
+        List<StagedProduct> chunk = importStageRepository.findMerged(runId, Long.MIN_VALUE, chunkSize);
+        while (!chunk.isEmpty()) {
+            long lastId = chunk.getLast().product().getId();
+            productImportPipeline.write(products(chunk), report, progress);
+            chunk = importStageRepository.findMerged(runId, lastId, chunkSize);
+        }
+        chunk = importStageRepository.findWithoutId(runId, 0, chunkSize);
+        while (!chunk.isEmpty()) {
+            long lastStageId = chunk.getLast().stageId();
+            productImportPipeline.write(products(chunk), report, progress);
+            chunk = importStageRepository.findWithoutId(runId, lastStageId, chunkSize);
+        }
+        return report;
+    }
+
+    private static List<ProductDTO> products(List<StagedProduct> staged) {
+        return staged.stream().map(StagedProduct::product).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Import interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new RuntimeException("Product import failed", cause);
+        }
+    }
+
+    /*
+        Ожидание страницы после последней: её ошибка не прерывает импорт
+     */
+    private static void awaitQuietly(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Import interrupted");
+        } catch (ExecutionException e) {
+            log.debug("Page after the last one failed: {}", e.getCause().getMessage());
+        }
+    }
+
+    private static List<ImportSource> sources(ImportProperties importProperties, RestClient restClient,
+                                              List<ImportSource> customSources) {
+        List<ImportSource> sources = new ArrayList<>(customSources);
+        for (ImportProperties.Source source : importProperties.getSources()) {
+            if (!source.isEnabled()) {
+                continue;
+            }
+            RestClient client = source.getBaseUrl() == null || source.getBaseUrl().isBlank()
+                    ? restClient
+                    : restClient.mutate().baseUrl(source.getBaseUrl()).build();
+            sources.add(new HttpJsonImportSource(source, client));
+        }
+        if (sources.isEmpty()) {
+            throw new IllegalStateException("No import sources configured (app.import.sources)");
+        }
+        return sources;
+    }
+
+    private record SourceResult(ImportSource source, int rank, boolean notModified, int skipped) {
+    }
+
+    private record PageResult(ImportSource.Page page, int skipped) {
+    }
+}
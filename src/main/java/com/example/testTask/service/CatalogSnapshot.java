@@ -0,0 +1,317 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/*
+    Неизменяемый снимок каталога в памяти для фильтрации и сортировки товаров без обращения к базе данных.
+    Товары хранятся по возрастанию id, ключи — в отдельных массивах примитивов по позиции товара:
+    цена в копейках, плотный ранг цены и номер категории в отсортированном списке названий.
+    byPrice — позиции по (цена, id), byCategory — по (категория, цена, id), поэтому фильтр по цене и категории —
+    двоичный поиск границ, а страница в том же порядке — срез массива. Прочие порядки сортируются по упакованному
+    в long ключу (ранги ключей сортировки и позиция), для всего каталога результат запоминается в снимке.
+    Названия категорий сравниваются посимвольно (как COLLATE "C" в PostgreSQL)
+ */
+public final class CatalogSnapshot {
+
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "price", "category.name");
+    private static final List<Key> ID_ORDER = List.of(new Key("id", true));
+    private static final List<Key> PRICE_ORDER = List.of(new Key("price", true), new Key("id", true));
+    private static final List<Key> CATEGORY_ORDER =
+            List.of(new Key("category.name", true), new Key("price", true), new Key("id", true));
+    private static final int MAX_MEMOIZED_ORDERS = 32;
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final long version;
+    private final ProductView[] products;
+    private final long[] priceCents;
+    private final int[] priceRank;
+    private final int priceRankCount;
+    private final int[] category;
+    private final String[] categoryNames;
+    private final int[] byId;
+    private final int[] byPrice;
+    private final int[] byCategory;
+    private final int[] categoryStart;
+    private final Map<List<Key>, int[]> sortedAll = new ConcurrentHashMap<>();
+
+    private CatalogSnapshot(long version, ProductView[] products) {
+        int size = products.length;
+        this.version = version;
+        this.products = products;
+        this.priceCents = new long[size];
+        this.category = new int[size];
+        this.categoryNames = Arrays.stream(products).map(CatalogSnapshot::categoryKey)
+                .distinct().sorted().toArray(String[]::new);
+        for (int i = 0; i < size; i++) {
+            priceCents[i] = products[i].price().movePointRight(2).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+            category[i] = Arrays.binarySearch(categoryNames, categoryKey(products[i]));
+        }
+        this.byId = IntStream.range(0, size).toArray();
+        this.byPrice = sorted(size, Comparator.comparingLong(i -> priceCents[i]));
+        this.byCategory = sorted(size, Comparator.<Integer>comparingInt(i -> category[i])
+                .thenComparingLong(i -> priceCents[i]));
+
+        this.priceRank = new int[size];
+        int rank = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || priceCents[byPrice[i]] != priceCents[byPrice[i - 1]]) {
+                rank++;
+            }
+            priceRank[byPrice[i]] = rank;
+        }
+        this.priceRankCount = rank + 1;
+
+        this.categoryStart = new int[categoryNames.length + 1];
+        for (int index : category) {
+            categoryStart[index + 1]++;
+        }
+        for (int i = 0; i < categoryNames.length; i++) {
+            categoryStart[i + 1] += categoryStart[i];
+        }
+    }
+
+    /*
+        Построение снимка
+        @param version версия каталога, при которой прочитаны товары
+        @param products товары по возрастанию id
+     */
+    public static CatalogSnapshot of(long version, List<ProductView> products) {
+        return new CatalogSnapshot(version, products.toArray(ProductView[]::new));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    /*
+        Страница товаров, удовлетворяющих условиям, в том же порядке, что и в базе данных (с id в конце сортировки)
+        @param filter условия выборки
+        @return страница или пусто, если запрос нельзя выполнить в снимке
+        @throws IllegalArgumentException если свойство сортировки не поддерживается
+     */
+    public Optional<Page<ProductView>> findPage(Filter filter, Pageable pageable) {
+        List<Key> keys = keys(pageable.getSort(), filter.categoryName() != null);
+        int[] order;
+        int from;
+        int to;
+        List<Key> natural;
+        if (filter.categoryName() != null) {
+            if (filter.categoryName().isEmpty()) {
+                // "" в снимке обозначает товары без категории
+                return Optional.empty();
+            }
+            int index = Arrays.binarySearch(categoryNames, filter.categoryName());
+            if (index < 0) {
+                return Optional.of(page(byCategory, 0, 0, pageable));
+            }
+            order = byCategory;
+            from = categoryStart[index];
+            to = categoryStart[index + 1];
+            natural = PRICE_ORDER;
+        } else if (filter.minPrice() != null || filter.maxPrice() != null) {
+            order = byPrice;
+            from = 0;
+            to = products.length;
+            natural = PRICE_ORDER;
+        } else {
+            return sortedAll(keys).map(sorted -> page(sorted, 0, sorted.length, pageable));
+        }
+
+        long minCents = cents(filter.minPrice(), RoundingMode.CEILING, Long.MIN_VALUE);
+        long maxCents = cents(filter.maxPrice(), RoundingMode.FLOOR, Long.MAX_VALUE);
+        from = lowerBound(order, from, to, minCents);
+        if (maxCents != Long.MAX_VALUE) {
+            to = Math.max(from, lowerBound(order, from, to, maxCents + 1));
+        }
+        if (keys.equals(natural)) {
+            return Optional.of(page(order, from, to, pageable));
+        }
+        return sort(order, from, to, keys).map(sorted -> page(sorted, 0, sorted.length, pageable));
+    }
+
+    /*
+        Все товары в порядке keys: готовые перестановки или запомненный результат сортировки
+     */
+    private Optional<int[]> sortedAll(List<Key> keys) {
+        if (keys.equals(ID_ORDER)) {
+            return Optional.of(byId);
+        }
+        if (keys.equals(PRICE_ORDER)) {
+            return Optional.of(byPrice);
+        }
+        if (keys.equals(CATEGORY_ORDER)) {
+            return Optional.of(byCategory);
+        }
+        int[] cached = sortedAll.get(keys);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<int[]> sorted = sort(byId, 0, byId.length, keys);
+        if (sorted.isPresent() && sortedAll.size() < MAX_MEMOIZED_ORDERS) {
+            sortedAll.putIfAbsent(keys, sorted.get());
+        }
+        return sorted;
+    }
+
+    /*
+        Сортировка позиций order[from, to) по keys. Ключ каждого товара — ранги его значений, упакованные в long
+        (для убывающих ключей ранг инвертирован), последним рангом всегда идёт позиция товара (id)
+        @return отсортированные позиции или пусто, если ранги не помещаются в long
+     */
+    private Optional<int[]> sort(int[] order, int from, int to, List<Key> keys) {
+        int[][] columns = new int[keys.size()][];
+        int[] maxValues = new int[keys.size()];
+        int[] bits = new int[keys.size()];
+        int totalBits = 0;
+        for (int k = 0; k < keys.size(); k++) {
+            switch (keys.get(k).property()) {
+                case "price" -> {
+                    columns[k] = priceRank;
+                    maxValues[k] = priceRankCount - 1;
+                }
+                case "category.name" -> {
+                    columns[k] = category;
+                    maxValues[k] = categoryNames.length - 1;
+                }
+                default -> {
+                    columns[k] = byId;
+                    maxValues[k] = products.length - 1;
+                }
+            }
+            bits[k] = bitLength(maxValues[k]);
+            totalBits += bits[k];
+        }
+        if (totalBits > 63) {
+            return Optional.empty();
+        }
+
+        long[] packed = new long[to - from];
+        for (int i = from; i < to; i++) {
+            int position = order[i];
+            long key = 0;
+            for (int k = 0; k < columns.length; k++) {
+                int value = columns[k][position];
+                key = (key << bits[k]) | (keys.get(k).ascending() ? value : maxValues[k] - value);
+            }
+            packed[i - from] = key;
+        }
+        Arrays.sort(packed);
+
+        int last = keys.size() - 1;
+        long mask = (1L << bits[last]) - 1;
+        boolean ascending = keys.get(last).ascending();
+        int[] result = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            int value = (int) (packed[i] & mask);
+            result[i] = ascending ? value : maxValues[last] - value;
+        }
+        return Optional.of(result);
+    }
+
+    private Page<ProductView> page(int[] order, int from, int to, Pageable pageable) {
+        int total = to - from;
+        List<ProductView> content = new ArrayList<>();
+        if (pageable.getOffset() < total) {
+            int start = from + (int) pageable.getOffset();
+            int end = (int) Math.min(to, (long) start + pageable.getPageSize());
+            for (int i = start; i < end; i++) {
+                content.add(products[order[i]]);
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /*
+        Первая позиция в order[from, to) (упорядоченном по цене) с ценой не меньше cents
+     */
+    private int lowerBound(int[] order, int from, int to, long cents) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (priceCents[order[middle]] < cents) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /*
+        Ключи сортировки в порядке применения: повторы и ключи после id отбрасываются, id добавляется в конец.
+        При выборке одной категории её название одинаково у всех товаров и не участвует в сортировке
+     */
+    private static List<Key> keys(Sort sort, boolean singleCategory) {
+        List<Key> keys = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            if (!SORT_PROPERTIES.contains(property)) {
+                throw new IllegalArgumentException("Unsupported sort property: " + property);
+            }
+            if (!seen.add(property) || (singleCategory && property.equals("category.name"))) {
+                continue;
+            }
+            keys.add(new Key(property, order.isAscending()));
+            if (property.equals("id")) {
+                return keys;
+            }
+        }
+        keys.add(new Key("id", true));
+        return keys;
+    }
+
+    private static int[] sorted(int size, Comparator<Integer> comparator) {
+        return IntStream.range(0, size).boxed()
+                .sorted(comparator.thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static long cents(BigDecimal price, RoundingMode roundingMode, long unbounded) {
+        if (price == null) {
+            return unbounded;
+        }
+        BigDecimal cents = price.movePointRight(2).setScale(0, roundingMode);
+        if (cents.compareTo(MAX_CENTS) >= 0) {
+            return Long.MAX_VALUE - 1;
+        }
+        if (cents.compareTo(MIN_CENTS) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValue();
+    }
+
+    private static String categoryKey(ProductView view) {
+        return view.categoryName() != null ? view.categoryName() : "";
+    }
+
+    private static int bitLength(int maxValue) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(maxValue, 0));
+    }
+
+    private record Key(String property, boolean ascending) {
+    }
+}
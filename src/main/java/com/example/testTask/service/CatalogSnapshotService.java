@@ -0,0 +1,111 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.CatalogSnapshotProperties;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.CatalogVersionRepository;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+    Снимок каталога в памяти (app.products.snapshot.enabled).
+    Перестраивается в фоне после каждого изменения каталога (CatalogChangedEvent) и подменяется целиком,
+    чтение не берёт блокировок. Снимок используется, только если его версия совпадает с текущей версией каталога,
+    иначе (пока новый снимок строится) запрос выполняется в базе данных, поэтому ответ не старше своего ETag
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotService {
+
+    private final CatalogSnapshotProperties properties;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ProductViewRepository productViewRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("catalog-snapshot").factory());
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogSnapshotService(CatalogSnapshotProperties properties,
+                                  CatalogVersionService catalogVersionService,
+                                  CatalogVersionRepository catalogVersionRepository,
+                                  ProductViewRepository productViewRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.catalogVersionService = catalogVersionService;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.productViewRepository = productViewRepository;
+        // версия каталога и товары читаются в одном снимке базы данных
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    /*
+        Страница товаров из снимка
+        @param filter условия выборки
+        @return страница или пусто, если снимок выключен, устарел или не поддерживает запрос
+     */
+    public Optional<Page<ProductView>> findPage(Filter filter, Pageable pageable) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || pageable.isUnpaged()
+                || current.version() != catalogVersionService.current().version()) {
+            return Optional.empty();
+        }
+        return current.findPage(filter, pageable);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        requestRebuild();
+    }
+
+    /*
+        Запрос перестроения снимка. Запросы, поступившие во время перестроения, объединяются в одно следующее
+     */
+    public void requestRebuild() {
+        if (properties.isEnabled() && rebuildRequested.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void rebuild() {
+        rebuildRequested.set(false);
+        long start = System.nanoTime();
+        try {
+            CatalogSnapshot built = snapshotTransaction.execute(status -> CatalogSnapshot.of(
+                    catalogVersionRepository.find().version(), productViewRepository.findAll()));
+            snapshot = built;
+            log.info("Catalog snapshot built: version={}, products={}, elapsed={} ms",
+                    built.version(), built.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Failed to build catalog snapshot: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.CatalogVersion;
+import com.example.testTask.repository.CatalogVersionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/*
+    Версия каталога. Текущее значение хранится в памяти и обновляется после фиксации изменений
+    на этом узле и по уведомлению (LISTEN/NOTIFY) с других узлов (свои уведомления пропускаются, чтобы изменение
+    не обрабатывалось дважды); пока слушатель не подключён, читается из базы.
+    Каждое изменение публикует CatalogChangedEvent для сброса кэшей
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogVersionService {
+
+    static final String CHANNEL = "catalog_changed";
+    private static final int MAX_PAYLOAD_LENGTH = 7000;
+
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final PgNotificationListener notificationListener;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<CatalogVersion> current = new AtomicReference<>();
+
+    @PostConstruct
+    void subscribe() {
+        notificationListener.subscribeToOtherNodes(CHANNEL, this::onNotification,
+                () -> changed(CatalogChangedEvent.unknown()));
+    }
+
+    /*
+        Получение текущей версии каталога
+     */
+    public CatalogVersion current() {
+        CatalogVersion version = current.get();
+        if (version == null || !notificationListener.isConnected()) {
+            return catalogVersionRepository.find();
+        }
+        return version;
+    }
+
+    /*
+        Увеличение версии каталога. Вызывается в транзакции, изменяющей товары,
+        чтобы новая версия стала видна одновременно с изменениями
+        @param productIds добавленные, изменённые или удалённые товары
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bump(Collection<Long> productIds) {
+        catalogVersionRepository.increment();
+        for (String payload : payloads(productIds)) {
+            notificationListener.notify(CHANNEL, payload);
+        }
+        Set<Long> changedIds = Set.copyOf(productIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changed(CatalogChangedEvent.of(changedIds));
+            }
+        });
+    }
+
+    private void onNotification(String payload) {
+        Set<Long> productIds = payload == null || payload.isEmpty()
+                ? Set.of()
+                : Arrays.stream(payload.split(",")).map(Long::valueOf).collect(Collectors.toSet());
+        changed(CatalogChangedEvent.of(productIds));
+    }
+
+    private void changed(CatalogChangedEvent event) {
+        CatalogVersion found = catalogVersionRepository.find();
+        // более медленное чтение не должно перезаписать более новую версию
+        current.accumulateAndGet(found, (previous, next) ->
+                previous == null || next.version() > previous.version() ? next : previous);
+        eventPublisher.publishEvent(event);
+    }
+
+    /*
+        Разбиение списка товаров на уведомления допустимого размера
+     */
+    private static List<String> payloads(Collection<Long> productIds) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder();
+        for (Long id : productIds) {
+            if (payload.length() > MAX_PAYLOAD_LENGTH) {
+                payloads.add(payload.toString());
+                payload.setLength(0);
+            }
+            if (!payload.isEmpty()) {
+                payload.append(',');
+            }
+            payload.append(id);
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.testTask.service;
+
+import com.example.testTask.model.Category;
+import com.example.testTask.repository.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+    Кэш справочника категорий (название -> категория).
+    Заполняется при старте приложения, новые категории добавляются при первом обращении.
+    Сбрасывается на всех узлах через CategoryCacheInvalidator
+ */
+@Slf4j
+@Component
+public class CategoryCache {
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate newTransaction;
+    private final ConcurrentMap<String, Category> byName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Category>> inFlight = new ConcurrentHashMap<>();
+
+    public CategoryCache(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        // новая категория фиксируется сразу, чтобы откат внешней транзакции не оставил в кэше несуществующую запись
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /*
+        Загрузка всех категорий в кэш
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        byName.clear();
+        categoryRepository.findAll().forEach(category -> byName.put(category.getName(), category));
+        log.info("Category cache loaded: {} categories", byName.size());
+    }
+
+    /*
+        Получение категории по названию с созданием новой, если её нет.
+        Для одного названия загрузка/создание выполняется одним потоком, остальные ждут результата
+        @param name название категории
+     */
+    public Category getOrCreate(String name) {
+        Category cached = byName.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        // не computeIfAbsent: он выполняет загрузку под монитором корзины ConcurrentHashMap,
+        // и виртуальный поток, ожидающий базу данных, оставался бы закреплённым за потоком-носителем
+        CompletableFuture<Category> loading = new CompletableFuture<>();
+        CompletableFuture<Category> running = inFlight.putIfAbsent(name, loading);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Category category = byName.get(name);
+            if (category == null) {
+                category = loadOrCreate(name);
+                byName.put(name, category);
+            }
+            loading.complete(category);
+            return category;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(name, loading);
+        }
+    }
+
+    /*
+        Получение категории из кэша без обращения к базе данных
+        @param name название категории
+        @return категория или null, если её нет в кэше
+     */
+    public Category getIfPresent(String name) {
+        return byName.get(name);
+    }
+
+    /*
+        Добавление категории в кэш после фиксации текущей транзакции
+        (сразу, если транзакции нет)
+        @param category сохранённая категория
+     */
+    public void putAfterCommit(Category category) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    byName.putIfAbsent(category.getName(), category);
+                }
+            });
+        } else {
+            byName.putIfAbsent(category.getName(), category);
+        }
+    }
+
+    /*
+        Удаление категории из кэша
+        @param name название категории
+     */
+    public void evict(String name) {
+        byName.remove(name);
+    }
+
+    private Category loadOrCreate(String name) {
+        Category category = categoryRepository.findByName(name);
+        if (category != null) {
+            return category;
+        }
+        try {
+            return newTransaction.execute(status -> {
+                Category created = new Category();
+                created.setName(name);
+                return categoryRepository.save(created);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // категорию с таким названием одновременно создал другой узел
+            Category created = categoryRepository.findByName(name);
+            if (created == null) {
+                throw e;
+            }
+            return created;
+        }
+    }
+}
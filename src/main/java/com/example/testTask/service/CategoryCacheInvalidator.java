@@ -0,0 +1,40 @@
+package com.example.testTask.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+    Сброс кэша категорий на всех узлах через PostgreSQL LISTEN/NOTIFY.
+    При переподключении слушателя кэш перезагружается, так как уведомления за время разрыва теряются
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryCacheInvalidator {
+
+    static final String CHANNEL = "category_cache";
+
+    private final PgNotificationListener notificationListener;
+    private final CategoryCache categoryCache;
+
+    @PostConstruct
+    void subscribe() {
+        notificationListener.subscribe(CHANNEL, this::apply, categoryCache::reload);
+    }
+
+    /*
+        Сброс кэша категорий на всех узлах
+        @param name название категории или null для сброса всего кэша
+     */
+    public void invalidate(String name) {
+        notificationListener.notify(CHANNEL, name != null ? name : "");
+    }
+
+    private void apply(String name) {
+        if (name == null || name.isEmpty()) {
+            categoryCache.reload();
+        } else {
+            categoryCache.evict(name);
+        }
+    }
+}
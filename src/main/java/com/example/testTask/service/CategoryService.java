@@ -1,22 +1,46 @@
 package com.example.testTask.service;
 
+import com.example.testTask.config.CacheConfig;
+import com.example.testTask.dto.CategoryStatsDTO;
 import com.example.testTask.model.Category;
 import com.example.testTask.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
+@Timed(value = "catalog.service", histogram = true)
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryCacheInvalidator categoryCacheInvalidator;
+    private final CategoryStatsService categoryStatsService;
 
     /*
         Получение списка всех уникальных категорий
+        Читается из поддерживаемой статистики category_stats, без сканирования товаров
      */
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, keyGenerator = "catalogKeyGenerator")
     public List<Category> findAllUniqueCategories() {
         return categoryRepository.findAllUniqueCategories();
     }
+
+    /*
+        Получение статистики по категориям (количество товаров, цены, средняя оценка)
+     */
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, keyGenerator = "catalogKeyGenerator")
+    public List<CategoryStatsDTO> findAllCategoryStats() {
+        return categoryStatsService.findAll();
+    }
+
+    /*
+        Сброс кэша категорий на всех узлах
+     */
+    public void invalidateCache() {
+        categoryCacheInvalidator.invalidate(null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.CategoryStatsDTO;
+import com.example.testTask.model.CategoryStats;
+import com.example.testTask.model.CategoryStatsDelta;
+import com.example.testTask.repository.CategoryStatsJdbcRepository;
+import com.example.testTask.repository.CategoryStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryStatsService {
+
+    private final CategoryStatsRepository categoryStatsRepository;
+    private final CategoryStatsJdbcRepository categoryStatsJdbcRepository;
+
+    /*
+        Применение накопленных изменений статистики в текущей транзакции
+        @param delta изменения по категориям
+     */
+    public void apply(CategoryStatsDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        categoryStatsJdbcRepository.applyDeltas(delta.getEntries());
+        List<Long> removedFrom = delta.getEntries().stream()
+                .filter(CategoryStatsDelta.Entry::isRemoved)
+                .map(CategoryStatsDelta.Entry::getCategoryId)
+                .toList();
+        if (!removedFrom.isEmpty()) {
+            categoryStatsJdbcRepository.refreshMinMax(removedFrom);
+        }
+    }
+
+    /*
+        Получение статистики по всем категориям, в которых есть товары
+     */
+    @Transactional(readOnly = true)
+    public List<CategoryStatsDTO> findAll() {
+        return categoryStatsRepository.findAllWithCategory().stream()
+                .map(this::convertToDto)
+                .toList();
+    }
+
+    /*
+        Заполнение статистики при первом запуске на уже существующих данных
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfMissing() {
+        if (categoryStatsJdbcRepository.isMissing()) {
+            log.info("Category statistics are empty, rebuilding from product table");
+            categoryStatsJdbcRepository.rebuild();
+        }
+    }
+
+    private CategoryStatsDTO convertToDto(CategoryStats stats) {
+        CategoryStatsDTO dto = new CategoryStatsDTO();
+        dto.setId(stats.getCategoryId());
+        dto.setName(stats.getCategory().getName());
+        dto.setProductCount(stats.getProductCount());
+        dto.setMinPrice(stats.getMinPrice());
+        dto.setMaxPrice(stats.getMaxPrice());
+        dto.setAvgPrice(stats.getPriceSum().divide(BigDecimal.valueOf(stats.getProductCount()), 2, RoundingMode.HALF_UP));
+        dto.setAvgRating(stats.getRatingCount() > 0 ? stats.getRatingSum() / stats.getRatingCount() : null);
+        return dto;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.testTask.service;
+
+import java.time.Duration;
+
+/*
+    Уже выполняется app.products.export.max-concurrent выгрузок, новая выгрузка не начата
+ */
+public class ExportLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ExportLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /*
+        Через сколько стоит повторить запрос
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
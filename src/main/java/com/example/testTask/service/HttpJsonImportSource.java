@@ -0,0 +1,112 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ImportProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClient;
+
+/*
+    Источник товаров из app.import.sources: json-массив товаров по http, целиком или постранично.
+    Запрос источника без страниц условный (If-None-Match/If-Modified-Since); при ответе 304 тело не читается,
+    а товары для слияния с другими источниками берутся из последнего успешного импорта
+ */
+class HttpJsonImportSource implements ImportSource {
+
+    private final ImportProperties.Source config;
+    private final RestClient restClient;
+
+    /*
+        Валидаторы последнего успешно импортированного ответа и ответа текущего импорта
+     */
+    private volatile Snapshot committed;
+    private volatile Snapshot pending;
+
+    HttpJsonImportSource(ImportProperties.Source config, RestClient restClient) {
+        this.config = config;
+        this.restClient = restClient;
+    }
+
+    @Override
+    public String getName() {
+        return config.getName();
+    }
+
+    @Override
+    public int getPriority() {
+        return config.getPriority();
+    }
+
+    @Override
+    public long getIdOffset() {
+        return config.getIdOffset();
+    }
+
+    @Override
+    public boolean isPaginated() {
+        return config.getPageSize() > 0;
+    }
+
+    @Override
+    public int getMaxPages() {
+        return isPaginated() ? Math.max(1, config.getMaxPages()) : 1;
+    }
+
+    @Override
+    public Page fetch(int page, PageReader reader) {
+        if (!isPaginated()) {
+            return fetchAll(reader);
+        }
+        int items = restClient.get()
+                .uri(uriBuilder -> uriBuilder.path(config.getPath())
+                        .queryParam(config.getPageParam(), page)
+                        .queryParam(config.getSizeParam(), config.getPageSize())
+                        .build())
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new RuntimeException("Failed to fetch products from " + getName() + " (page " + page + "): "
+                                + response.getStatusCode());
+                    }
+                    return reader.read(response.getBody());
+                });
+        return new Page(items, items < config.getPageSize(), false);
+    }
+
+    @Override
+    public void onImported() {
+        Snapshot snapshot = pending;
+        if (snapshot != null) {
+            committed = snapshot;
+            pending = null;
+        }
+    }
+
+    private Page fetchAll(PageReader reader) {
+        Snapshot last = committed;
+        return restClient.get()
+                .uri(config.getPath())
+                .headers(headers -> {
+                    if (last != null && last.eTag() != null) {
+                        headers.setIfNoneMatch(last.eTag());
+                    }
+                    if (last != null && last.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, last.lastModified());
+                    }
+                })
+                .exchange((request, response) -> {
+                    if (last != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return new Page(0, true, true);
+                    }
+                    if (response.getStatusCode().isError()) {
+                        throw new RuntimeException("Failed to fetch products from " + getName() + ": "
+                                + response.getStatusCode());
+                    }
+                    int items = reader.read(response.getBody());
+                    pending = new Snapshot(response.getHeaders().getETag(),
+                            response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+                    return new Page(items, true, false);
+                });
+    }
+
+    private record Snapshot(String eTag, String lastModified) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.testTask.service;
+
+/*
+    Задача импорта уже завершена и не может быть отменена
+ */
+public class ImportJobFinishedException extends RuntimeException {
+
+    public ImportJobFinishedException(String message) {
+        super(message);
+    }
+}
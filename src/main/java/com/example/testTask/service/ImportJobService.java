@@ -0,0 +1,213 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ImportProperties;
+import com.example.testTask.config.ImportProperties.OverlapPolicy;
+import com.example.testTask.dto.ImportJob;
+import com.example.testTask.dto.ImportJob.State;
+import com.example.testTask.dto.ImportJob.Trigger;
+import com.example.testTask.dto.ImportProgress;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToLongFunction;
+
+/*
+    Задачи импорта товаров. Задачи выполняются по одной в отдельном потоке, поэтому импорт по api
+    и плановый импорт никогда не пересекаются, а между экземплярами приложения — только под арендой (SyncLeaseService).
+    Пересекающиеся запросы обрабатываются по app.import.overlap-policy.
+    Хранятся активные задачи и последние завершённые.
+    Метрики: catalog.import.jobs — задачи в очереди и выполняющиеся, catalog.import.progress — счётчики выполняющейся задачи
+ */
+@Slf4j
+@Service
+public class ImportJobService implements MeterBinder {
+
+    private static final int FINISHED_JOBS_RETAINED = 20;
+
+    private final CatalogImportService catalogImportService;
+    private final SyncLeaseService syncLeaseService;
+    private final ImportProperties importProperties;
+    private final ImportMetrics importMetrics;
+    private final ExecutorService executor;
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    @Autowired
+    public ImportJobService(CatalogImportService catalogImportService, SyncLeaseService syncLeaseService,
+                            ImportProperties importProperties, ImportMetrics importMetrics) {
+        this(catalogImportService, syncLeaseService, importProperties, importMetrics,
+                Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("product-import").factory()));
+    }
+
+    ImportJobService(CatalogImportService catalogImportService, SyncLeaseService syncLeaseService,
+                     ImportProperties importProperties, ImportMetrics importMetrics, ExecutorService executor) {
+        this.catalogImportService = catalogImportService;
+        this.syncLeaseService = syncLeaseService;
+        this.importProperties = importProperties;
+        this.importMetrics = importMetrics;
+        this.executor = executor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (State state : List.of(State.QUEUED, State.RUNNING)) {
+            Gauge.builder("catalog.import.jobs", this, service -> service.count(state))
+                    .description("Import jobs by state")
+                    .tag("state", state.name())
+                    .register(registry);
+        }
+        Map<String, ToLongFunction<ImportProgress>> counters = Map.of(
+                "fetched", ImportProgress::getFetched,
+                "mapped", ImportProgress::getMapped,
+                "written", ImportProgress::getWritten,
+                "failed", ImportProgress::getFailed);
+        counters.forEach((name, counter) ->
+                Gauge.builder("catalog.import.progress", this, service -> service.running()
+                                .map(job -> (double) counter.applyAsLong(job.getProgress()))
+                                .orElse(0.0))
+                        .description("Products processed by the running import job")
+                        .tag("counter", name)
+                        .register(registry));
+    }
+
+    /*
+        Постановка импорта в очередь по app.import.overlap-policy
+        @param trigger источник запуска
+        @return новая задача или (для COALESCE) уже поставленная
+        @throws ImportQueueFullException если очередь задач заполнена (для QUEUE)
+     */
+    public ImportJob submit(Trigger trigger) {
+        return submit(trigger, importProperties.getOverlapPolicy());
+    }
+
+    /*
+        @Scheduled планировщик, синхронизирующий товары из внешнего api раз в app.import.lease.sync-interval на весь кластер.
+        Экземпляры проверяют срок каждые app.import.lease.check-interval, запускает синхронизацию тот, кто получил аренду.
+        Плановый запуск всегда объединяется с уже поставленной задачей, чтобы не копить очередь
+     */
+    @Scheduled(fixedDelayString = "${app.import.lease.check-interval}")
+    public void scheduledImport() {
+        if (syncLeaseService.acquireIfDue()) {
+            submit(Trigger.SCHEDULED, OverlapPolicy.COALESCE);
+        }
+    }
+
+    /*
+        Продление аренды, пока импорт выполняется. Если аренда потеряна (экземпляр не продлевал её дольше ttl,
+        например из-за паузы), импорт отменяется: его уже может выполнять другой экземпляр
+     */
+    @Scheduled(fixedDelayString = "${app.import.lease.heartbeat-interval}")
+    public void heartbeat() {
+        if (!syncLeaseService.renew()) {
+            synchronized (this) {
+                jobs.values().forEach(ImportJob::cancel);
+            }
+        }
+    }
+
+    public synchronized Optional<ImportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /*
+        Отмена задачи импорта
+        @param id идентификатор задачи
+        @return задача или пустой Optional, если задача не найдена
+        @throws ImportJobFinishedException если задача уже завершена
+     */
+    public synchronized Optional<ImportJob> cancel(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (!job.cancel()) {
+            throw new ImportJobFinishedException("Import job is already finished: " + id);
+        }
+        log.info("Import job {} cancel requested", id);
+        return Optional.of(job);
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            jobs.values().forEach(ImportJob::cancel);
+        }
+        executor.shutdownNow();
+    }
+
+    private synchronized ImportJob submit(Trigger trigger, OverlapPolicy policy) {
+        List<ImportJob> active = jobs.values().stream().filter(ImportJob::isActive).toList();
+        if (!active.isEmpty()) {
+            if (policy == OverlapPolicy.COALESCE) {
+                // последняя задача ещё не завершена: она и так загрузит актуальные товары
+                ImportJob current = active.getLast();
+                log.info("Import requested by {} coalesced with job {} ({})", trigger, current.getId(), current.getState());
+                return current;
+            }
+            long queued = active.stream().filter(job -> job.getState() == State.QUEUED).count();
+            if (queued >= importProperties.getMaxQueuedJobs()) {
+                throw new ImportQueueFullException("Import queue is full: " + queued + " jobs are waiting");
+            }
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), trigger);
+        jobs.put(job.getId(), job);
+        evictFinished();
+        executor.execute(() -> run(job));
+        log.info("Import job {} submitted by {}", job.getId(), trigger);
+        return job;
+    }
+
+    private void run(ImportJob job) {
+        if (!job.start()) {
+            return;
+        }
+        // импорт выполняется только владельцем аренды, в том числе запущенный по api
+        if (!syncLeaseService.acquire()) {
+            job.fail("Import is running on another node");
+            return;
+        }
+        try {
+            job.succeed(catalogImportService.importAll(job.getProgress()));
+        } catch (RuntimeException e) {
+            log.warn("Import job {} stopped: {}", job.getId(), e.getMessage());
+            job.fail(e.getMessage());
+        }
+        syncLeaseService.release(job.getStartedAt(), job.getState().name());
+        importMetrics.job(job);
+        log.info("Import job {} finished: state={}, written={}, failed={}", job.getId(), job.getState(),
+                job.getProgress().getWritten(), job.getProgress().getFailed());
+    }
+
+    private synchronized long count(State state) {
+        return jobs.values().stream().filter(job -> job.getState() == state).count();
+    }
+
+    private synchronized Optional<ImportJob> running() {
+        return jobs.values().stream().filter(job -> job.getState() == State.RUNNING).findFirst();
+    }
+
+    private void evictFinished() {
+        long finished = jobs.values().stream().filter(job -> !job.isActive()).count();
+        Iterator<ImportJob> iterator = jobs.values().iterator();
+        while (finished > FINISHED_JOBS_RETAINED && iterator.hasNext()) {
+            if (!iterator.next().isActive()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ImportChunkReport;
+import com.example.testTask.dto.ImportJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/*
+    Метрики импорта товаров:
+    catalog.import.stage — время стадий (stage: fetch, parse, map, write; source — источник или all),
+    catalog.import.rows — записанные товары по результату (inserted, updated, unchanged, skipped),
+    catalog.import.job — длительность задач импорта (trigger, state).
+    Гистограммы процентилей включаются management.metrics.distribution.percentiles-histogram.catalog
+ */
+@Component
+public class ImportMetrics {
+
+    public static final String FETCH = "fetch";
+    public static final String PARSE = "parse";
+    public static final String MAP = "map";
+    public static final String WRITE = "write";
+    public static final String ALL_SOURCES = "all";
+
+    private final MeterRegistry registry;
+
+    public ImportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /*
+        Завершение замера стадии
+        @param sample замер, начатый start()
+        @param stage стадия импорта
+        @param source источник товаров или ALL_SOURCES
+     */
+    public void stop(Timer.Sample sample, String stage, String source) {
+        sample.stop(Timer.builder("catalog.import.stage")
+                .description("Import stage duration")
+                .tag("stage", stage)
+                .tag("source", source)
+                .register(registry));
+    }
+
+    public void rows(ImportChunkReport report) {
+        rows("inserted", report.getInserted());
+        rows("updated", report.getUpdated());
+        rows("unchanged", report.getUnchanged());
+        rows("skipped", report.getSkipped());
+    }
+
+    public void job(ImportJob job) {
+        if (job.getStartedAt() == null || job.getFinishedAt() == null) {
+            return;
+        }
+        Timer.builder("catalog.import.job")
+                .description("Import job duration")
+                .tag("trigger", job.getTrigger().name())
+                .tag("state", job.getState().name())
+                .register(registry)
+                .record(Duration.between(job.getStartedAt(), job.getFinishedAt()));
+    }
+
+    private void rows(String result, int count) {
+        if (count > 0) {
+            Counter.builder("catalog.import.rows")
+                    .description("Imported products by write result")
+                    .tag("result", result)
+                    .register(registry)
+                    .increment(count);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.testTask.service;
+
+/*
+    Очередь задач импорта заполнена (app.import.max-queued-jobs), задача не поставлена
+ */
+public class ImportQueueFullException extends RuntimeException {
+
+    public ImportQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.testTask.service;
+
+import java.io.InputStream;
+
+/*
+    Источник товаров для импорта. Источники из app.import.sources создаются CatalogImportService,
+    другие источники подключаются как бины, реализующие этот интерфейс
+ */
+public interface ImportSource {
+
+    String getName();
+
+    /*
+        Приоритет при совпадении id товаров разных источников: меньшее значение важнее
+     */
+    default int getPriority() {
+        return 0;
+    }
+
+    /*
+        Смещение, прибавляемое к id товаров источника
+     */
+    default long getIdOffset() {
+        return 0;
+    }
+
+    /*
+        Источник отдаёт товары постранично; страницы загружаются параллельно, пока не встретится последняя
+     */
+    default boolean isPaginated() {
+        return false;
+    }
+
+    default int getMaxPages() {
+        return 1;
+    }
+
+    /*
+        Загрузка страницы товаров: тело ответа передаётся reader, который разбирает и сохраняет товары по мере чтения
+        @param page номер страницы, начиная с 1 (для источника без страниц — всегда 1)
+        @param reader разбор json-массива товаров
+     */
+    Page fetch(int page, PageReader reader);
+
+    /*
+        Вызывается после успешной записи товаров источника, например чтобы запомнить валидаторы ответа
+     */
+    default void onImported() {
+    }
+
+    /*
+        Разбор тела страницы
+     */
+    @FunctionalInterface
+    interface PageReader {
+
+        /*
+            @param body json-массив товаров
+            @return количество элементов массива
+         */
+        int read(InputStream body);
+    }
+
+    /*
+        Страница товаров
+        @param items количество элементов страницы
+        @param last последняя страница источника
+        @param notModified данные не изменились с прошлого успешного импорта: тело не читается,
+                           товары берутся из прошлого импорта
+     */
+    record Page(int items, boolean last, boolean notModified) {
+    }
+}
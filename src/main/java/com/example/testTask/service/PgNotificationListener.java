@@ -0,0 +1,148 @@
+package com.example.testTask.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/*
+    Уведомления между узлами через PostgreSQL LISTEN/NOTIFY.
+    Слушатель держит для всех каналов одно собственное соединение вне пула (пул не теряет соединение навсегда)
+    и при (пере)подключении вызывает onConnect подписчиков, так как уведомления за время разрыва теряются.
+    Уведомление отправляется с идентификатором узла: NOTIFY уходит с соединения пула,
+    поэтому отличить свои уведомления по pid соединения нельзя
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PgNotificationListener {
+
+    private static final int POLL_TIMEOUT_MS = 5000;
+
+    private final JdbcConnectionDetails connectionDetails;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private volatile boolean connected;
+
+    /*
+        Подписка на канал, включая уведомления этого узла. Выполняется до запуска слушателя (при создании бинов)
+        @param channel канал
+        @param onNotification обработчик полезной нагрузки уведомления
+        @param onConnect действие после подключения слушателя
+     */
+    public void subscribe(String channel, Consumer<String> onNotification, Runnable onConnect) {
+        subscriptions.put(channel, new Subscription(onNotification, onConnect, true));
+    }
+
+    /*
+        Подписка на уведомления других узлов: свои изменения подписчик обрабатывает сам после фиксации
+     */
+    public void subscribeToOtherNodes(String channel, Consumer<String> onNotification, Runnable onConnect) {
+        subscriptions.put(channel, new Subscription(onNotification, onConnect, false));
+    }
+
+    /*
+        Отправка уведомления. В транзакции уведомление доставляется только после её фиксации
+        @param channel канал
+        @param payload полезная нагрузка (до 7900 байт)
+     */
+    public void notify(String channel, String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, channel,
+                nodeId + ':' + payload);
+    }
+
+    /*
+        Подключён ли слушатель (пока нет, уведомления других узлов не принимаются)
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread.ofPlatform().daemon().name("pg-notification-listener").start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(connectionDetails.getJdbcUrl(),
+                    connectionDetails.getUsername(), connectionDetails.getPassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : subscriptions.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                connected = true;
+                subscriptions.values().forEach(subscription -> subscription.onConnect().run());
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                connected = false;
+                if (running) {
+                    log.warn("Notification listener disconnected, retrying: {}", e.getMessage());
+                    pause();
+                }
+            }
+        }
+        connected = false;
+    }
+
+    void dispatch(PGNotification notification) {
+        Subscription subscription = subscriptions.get(notification.getName());
+        String parameter = notification.getParameter();
+        int separator = parameter.indexOf(':');
+        if (subscription == null || separator < 0
+                || !subscription.own() && parameter.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            subscription.onNotification().accept(parameter.substring(separator + 1));
+        } catch (RuntimeException e) {
+            log.warn("Failed to handle notification on {}: {}", notification.getName(), e.getMessage());
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private record Subscription(Consumer<String> onNotification, Runnable onConnect, boolean own) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.BatchItemResult;
+import com.example.testTask.dto.BatchItemResult.Status;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.model.CategoryStatsDelta;
+import com.example.testTask.model.Product;
+import com.example.testTask.model.Rating;
+import com.example.testTask.repository.ProductRepository;
+import com.example.testTask.repository.RatingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Запись порции товаров пакетного api через JPA.
+    Идентификаторы выдаются из последовательностей с шагом 50 без обращения к базе данных на каждую строку,
+    поэтому вставки и обновления (hibernate.jdbc.batch_size, order_inserts/order_updates) уходят пакетами при flush
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductBatchWriter {
+
+    private final ProductRepository productRepository;
+    private final RatingRepository ratingRepository;
+    private final CategoryCache categoryCache;
+    private final CategoryStatsService categoryStatsService;
+    private final CatalogVersionService catalogVersionService;
+
+    /*
+        Запись порции товаров в одной транзакции: товары без id создаются, с id — обновляются на месте
+        (версию товара увеличивает Hibernate).
+        Существующие товары загружаются одним запросом вместе с категорией и рейтингом.
+        Некорректные товары отмечаются ошибкой и не мешают записи остальных
+        @param products порция товаров
+        @param offset позиция первого товара порции в запросе
+        @return результаты по товарам порции в том же порядке
+     */
+    @Transactional
+    public List<BatchItemResult> writeChunk(List<ProductDTO> products, int offset) {
+        Set<Long> ids = products.stream().map(ProductDTO::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Product> existing = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        BatchItemResult[] results = new BatchItemResult[products.size()];
+        Map<Integer, Product> created = new LinkedHashMap<>();
+        List<Product> updated = new ArrayList<>();
+        List<Rating> newRatings = new ArrayList<>();
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        Set<Long> seen = new HashSet<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < products.size(); i++) {
+            ProductDTO dto = products.get(i);
+            int index = offset + i;
+            String error = validate(dto);
+            if (error != null) {
+                results[i] = BatchItemResult.failed(index, dto.getId(), error);
+            } else if (dto.getId() == null) {
+                Product product = new Product();
+                copy(dto, product, newRatings, now);
+                created.put(i, product);
+            } else if (!seen.add(dto.getId())) {
+                results[i] = BatchItemResult.failed(index, dto.getId(), "Duplicate product id in batch: " + dto.getId());
+            } else if (!existing.containsKey(dto.getId())) {
+                results[i] = BatchItemResult.failed(index, dto.getId(), "Product not found with id: " + dto.getId());
+            } else {
+                Product product = existing.get(dto.getId());
+                if (ProductFingerprint.of(dto).equals(product.getFingerprint())) {
+                    results[i] = BatchItemResult.of(index, product.getId(), Status.UNCHANGED);
+                    continue;
+                }
+                // старое состояние учитывается до изменения управляемой сущности
+                delta.remove(product);
+                copy(dto, product, newRatings, now);
+                updated.add(product);
+                results[i] = BatchItemResult.of(index, product.getId(), Status.UPDATED);
+            }
+        }
+        if (created.isEmpty() && updated.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        ratingRepository.saveAll(newRatings);
+        productRepository.saveAll(created.values());
+        // статистика категорий пересчитывается запросами к таблице товаров, поэтому изменения записываются до неё
+        productRepository.flush();
+
+        created.forEach((i, product) -> {
+            delta.add(product);
+            results[i] = BatchItemResult.of(offset + i, product.getId(), Status.CREATED);
+        });
+        updated.forEach(delta::add);
+        categoryStatsService.apply(delta);
+        List<Long> changedIds = new ArrayList<>(created.size() + updated.size());
+        created.values().forEach(product -> changedIds.add(product.getId()));
+        updated.forEach(product -> changedIds.add(product.getId()));
+        catalogVersionService.bump(changedIds);
+        return Arrays.asList(results);
+    }
+
+    private static String validate(ProductDTO dto) {
+        if (dto.getTitle() == null || dto.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (dto.getPrice() == null || dto.getPrice().signum() < 0) {
+            return "Price must be non-negative";
+        }
+        if (dto.getCategory() == null) {
+            return "Category is required";
+        }
+        if (dto.getRating() != null && (dto.getRating().getRate() == null || dto.getRating().getCount() == null)) {
+            return "Rating rate and count are required";
+        }
+        return null;
+    }
+
+    /*
+        Перенос полей dto в сущность. Существующий рейтинг товара изменяется на месте, новый добавляется в newRatings,
+        рейтинг, который больше не нужен товару, удаляется
+     */
+    private void copy(ProductDTO dto, Product product, List<Rating> newRatings, Instant now) {
+        product.setTitle(dto.getTitle());
+        product.setPrice(dto.getPrice());
+        product.setDescription(dto.getDescription());
+        product.setImage(dto.getImage());
+        product.setFingerprint(ProductFingerprint.of(dto));
+        product.setUpdatedAt(now);
+        if (product.getCategory() == null || !product.getCategory().getName().equals(dto.getCategory())) {
+            product.setCategory(categoryCache.getOrCreate(dto.getCategory()));
+        }
+
+        if (dto.getRating() == null) {
+            if (product.getRating() != null) {
+                ratingRepository.delete(product.getRating());
+                product.setRating(null);
+            }
+            return;
+        }
+        Rating rating = product.getRating();
+        if (rating == null) {
+            rating = new Rating();
+            newRatings.add(rating);
+            product.setRating(rating);
+        }
+        rating.setRate(dto.getRating().getRate());
+        rating.setCount(dto.getRating().getCount());
+    }
+}
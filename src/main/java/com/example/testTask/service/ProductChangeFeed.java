@@ -0,0 +1,216 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductChangeProperties;
+import com.example.testTask.dto.ChangeBatch;
+import com.example.testTask.dto.ProductChange;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductChangeRepository;
+import com.example.testTask.repository.ProductViewRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Лента изменений товаров для потребителей, которые синхронизируют свои копии каталога:
+    порциями по запросу (since) и потоком server-sent events.
+    Подписчикам изменения отправляются не сразу, а через app.products.changes.coalesce-window после изменения каталога
+    на любом узле (CatalogChangedEvent); лента хранит одно изменение на товар, поэтому частые изменения одного товара
+    приходят одним событием. Все отправки выполняются одним потоком.
+    Метрика catalog.changes.subscribers — количество подписчиков
+ */
+@Slf4j
+@Service
+public class ProductChangeFeed implements MeterBinder {
+
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductViewRepository productViewRepository;
+    private final ProductChangeProperties properties;
+    private final TransactionTemplate readTransaction;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("product-change-feed").factory());
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+
+    public ProductChangeFeed(ProductChangeRepository productChangeRepository,
+                             ProductViewRepository productViewRepository,
+                             ProductChangeProperties properties,
+                             PlatformTransactionManager transactionManager) {
+        this.productChangeRepository = productChangeRepository;
+        this.productViewRepository = productViewRepository;
+        this.properties = properties;
+        // изменения и товары читаются в одном снимке базы данных
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("catalog.changes.subscribers", subscribers, List::size)
+                .description("Change stream subscribers")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        long heartbeat = properties.getHeartbeatInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /*
+        Получение изменений товаров после since
+        @param since номер последнего полученного изменения (0 — с начала ленты, то есть весь каталог)
+        @param limit максимальное количество изменений (не больше app.products.changes.max-batch-size)
+        @throws IllegalArgumentException если since отрицательный или limit не положительный
+     */
+    public ChangeBatch getChanges(long since, int limit) {
+        if (since < 0 || limit <= 0) {
+            throw new IllegalArgumentException("since must be non-negative and limit must be positive");
+        }
+        int size = Math.min(limit, properties.getMaxBatchSize());
+        return readTransaction.execute(status -> {
+            List<ProductChange> changes = productChangeRepository.findSince(since, size + 1);
+            boolean hasMore = changes.size() > size;
+            if (hasMore) {
+                changes = changes.subList(0, size);
+            }
+            List<Long> ids = changes.stream().filter(change -> !change.deleted()).map(ProductChange::productId).toList();
+            Map<Long, ProductView> products = productViewRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(ProductView::id, Function.identity()));
+            List<ProductChange> result = changes.stream()
+                    .map(change -> change.withProduct(products.get(change.productId())))
+                    .toList();
+            long next = result.isEmpty() ? since : result.getLast().seq();
+            return new ChangeBatch(result, next, hasMore);
+        });
+    }
+
+    /*
+        Подписка на изменения товаров после since. Событие upsert или delete с id, равным номеру изменения,
+        поэтому браузер или клиент при переподключении продолжает с Last-Event-ID
+     */
+    public SseEmitter subscribe(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must be non-negative");
+        }
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, since);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // накопившиеся изменения отправляются сразу
+        scheduleDispatch(Duration.ZERO);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!subscribers.isEmpty()) {
+            scheduleDispatch(properties.getCoalesceWindow());
+        }
+    }
+
+    private void scheduleDispatch(Duration delay) {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::dispatch, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+        Отправка изменений подписчикам: лента читается одной выборкой от самого отстающего подписчика
+     */
+    void dispatch() {
+        dispatchScheduled.set(false);
+        try {
+            while (!subscribers.isEmpty()) {
+                long from = subscribers.stream().mapToLong(subscriber -> subscriber.cursor).min().orElseThrow();
+                ChangeBatch batch = getChanges(from, properties.getMaxBatchSize());
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.send(batch.changes());
+                }
+                if (!batch.hasMore()) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to dispatch product changes: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.send(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        private void send(List<ProductChange> changes) {
+            for (ProductChange change : changes) {
+                if (change.seq() <= cursor) {
+                    continue;
+                }
+                if (!send(SseEmitter.event()
+                        .id(Long.toString(change.seq()))
+                        .name(change.deleted() ? "delete" : "upsert")
+                        .data(change, MediaType.APPLICATION_JSON))) {
+                    return;
+                }
+                cursor = change.seq();
+            }
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // клиент отключился
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
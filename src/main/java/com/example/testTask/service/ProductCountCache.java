@@ -0,0 +1,42 @@
+package com.example.testTask.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+    Кэш результатов COUNT(*) для курсорных страниц, у которых общее количество нельзя взять из category_stats.
+    Значения живут TTL_MS, поэтому могут немного отставать от данных
+ */
+@Component
+public class ProductCountCache {
+
+    private static final long TTL_MS = 60_000;
+    private static final int MAX_ENTRIES = 1024;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    /*
+        Получение количества из кэша или его вычисление
+        @param key ключ запроса
+        @param counter подсчёт количества при промахе
+     */
+    public long get(String key, Supplier<Long> counter) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count;
+        }
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.clear();
+        }
+        long count = counter.get();
+        counts.put(key, new CachedCount(count, now + TTL_MS));
+        return count;
+    }
+
+    private record CachedCount(long count, long expiresAt) {
+    }
+}
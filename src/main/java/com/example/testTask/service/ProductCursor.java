@@ -0,0 +1,79 @@
+package com.example.testTask.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+    Непрозрачный курсор для keyset-пагинации товаров.
+    Содержит значения ключей сортировки (цена, название категории, id) последнего элемента страницы
+ */
+public final class ProductCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> KEYS_TYPE = new TypeReference<>() {
+    };
+
+    private ProductCursor() {
+    }
+
+    /*
+        Кодирование позиции в курсор
+        @param position позиция последнего элемента страницы
+     */
+    public static String encode(ScrollPosition position) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        ((KeysetScrollPosition) position).getKeys()
+                .forEach((key, value) -> keys.put(key, value != null ? value.toString() : null));
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(keys));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    /*
+        Декодирование курсора в позицию для сортировки sort
+        @param cursor курсор (пустой — первая страница)
+        @param sort сортировка, для которой курсор был выдан
+        @throws IllegalArgumentException если курсор повреждён или выдан для другой сортировки
+     */
+    public static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, String> encoded;
+        try {
+            encoded = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), KEYS_TYPE);
+        } catch (IllegalArgumentException | java.io.IOException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        Set<String> expected = sort.stream().map(Sort.Order::getProperty).collect(Collectors.toSet());
+        if (!encoded.keySet().equals(expected)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        Map<String, Object> keys = new HashMap<>();
+        try {
+            encoded.forEach((key, value) -> keys.put(key, value == null ? null : switch (key) {
+                case "id" -> Long.valueOf(value);
+                case "price" -> new BigDecimal(value);
+                default -> value;
+            }));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductExportProperties;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    Выгрузка всего каталога (или его части по фильтру) одним потоком в NDJSON или CSV.
+    Товары читаются курсором базы данных порциями по app.products.export.fetch-size и сразу записываются в ответ,
+    поэтому память не зависит от размера каталога, а запросы страниц с OFFSET и COUNT(*) не выполняются
+ */
+@Slf4j
+@Service
+public class ProductExportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ProductViewRepository productViewRepository;
+    private final ProductExportProperties properties;
+    private final TransactionTemplate readTransaction;
+    private final Semaphore permits;
+
+    public ProductExportService(ProductViewRepository productViewRepository, ProductExportProperties properties,
+                                PlatformTransactionManager transactionManager) {
+        this.productViewRepository = productViewRepository;
+        this.properties = properties;
+        // курсор PostgreSQL работает только внутри транзакции
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.permits = new Semaphore(Math.max(1, properties.getMaxConcurrent()));
+    }
+
+    /*
+        Формат выгрузки
+     */
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /*
+            @throws IllegalArgumentException если формат не поддерживается
+         */
+        public static Format of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + name + " (ndjson, csv)");
+            }
+        }
+    }
+
+    /*
+        Подготовка выгрузки товаров; товары читаются при записи ответа.
+        Выгрузка занимает разрешение до конца записи ответа; если запись так и не началась (асинхронный запрос
+        завершился по тайм-ауту или с ошибкой раньше), разрешение возвращает ExportStream.release()
+        @param format формат выгрузки
+        @param filter условия выборки
+        @param gzip сжимать выгрузку
+        @throws ExportLimitExceededException если уже выполняется app.products.export.max-concurrent выгрузок
+     */
+    public ExportStream export(Format format, Filter filter, boolean gzip) {
+        if (!permits.tryAcquire()) {
+            throw new ExportLimitExceededException("Too many exports in progress, retry later", properties.getRetryAfter());
+        }
+        return new ExportStream(format, filter, gzip);
+    }
+
+    /*
+        Клиент принимает gzip: кодировка gzip (или x-gzip) указана в Accept-Encoding с q больше 0,
+        а если не указана — с q больше 0 указана любая кодировка (*). "gzip;q=0" означает отказ от gzip
+        @param acceptEncoding значение заголовка Accept-Encoding
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        // некорректное значение не разрешает кодировку
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = Math.max(any, q);
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : any > 0;
+    }
+
+    /*
+        Запись товаров в out; для сжатого потока дописывается окончание gzip
+        @return количество выгруженных товаров
+     */
+    long write(Format format, Filter filter, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        long[] rows = new long[1];
+        try {
+            readTransaction.executeWithoutResult(status ->
+                    productViewRepository.forEach(filter, properties.getFetchSize(), view -> {
+                        try {
+                            writer.write(view);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                    }));
+        } catch (UncheckedIOException e) {
+            // клиент закрыл соединение: курсор закрыт вместе с транзакцией
+            log.info("Export aborted after {} products: {}", rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        writer.finish();
+        if (out instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Export finished: format={}, products={}, elapsed={} ms, throughput={} products/s",
+                format, rows[0], elapsedMs, rows[0] * 1000 / elapsedMs);
+        return rows[0];
+    }
+
+    /*
+        Тело ответа выгрузки. Разрешение возвращается один раз: после записи или вызовом release(),
+        выгрузка, разрешение которой уже возвращено, не начинается
+     */
+    public final class ExportStream implements StreamingResponseBody {
+
+        private final Format format;
+        private final Filter filter;
+        private final boolean gzip;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ExportStream(Format format, Filter filter, boolean gzip) {
+            this.format = format;
+            this.filter = filter;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                if (released.get()) {
+                    throw new IOException("Export request completed before the export started");
+                }
+                write(format, filter, gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out);
+            } finally {
+                release();
+            }
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private interface RowWriter {
+
+        void write(ProductView view) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /*
+        Один товар в строке, в формате ответов GET /api/products/{id}
+     */
+    private static final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator gen;
+
+        private NdjsonWriter(OutputStream out) throws IOException {
+            this.gen = JSON_FACTORY.createGenerator(out);
+            this.gen.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ProductView view) throws IOException {
+            ProductViewSerializer.write(view, gen);
+            gen.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            gen.flush();
+        }
+    }
+
+    /*
+        CSV (RFC 4180) с заголовком; значения с запятой, кавычкой или переводом строки заключаются в кавычки
+     */
+    private static final class CsvWriter implements RowWriter {
+
+        private static final String HEADER =
+                "id,title,price,description,image,category_id,category_name,rating_id,rate,rating_count\r\n";
+
+        private final Writer writer;
+
+        private CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            this.writer.write(HEADER);
+        }
+
+        @Override
+        public void write(ProductView view) throws IOException {
+            writer.write(Long.toString(view.id()));
+            field(view.title());
+            field(view.price() != null ? view.price().toPlainString() : null);
+            field(view.description());
+            field(view.image());
+            field(view.categoryId());
+            field(view.categoryName());
+            field(view.ratingId());
+            field(view.rate());
+            field(view.ratingCount());
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void field(Object value) throws IOException {
+            writer.write(',');
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
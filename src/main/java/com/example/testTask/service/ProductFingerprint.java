@@ -0,0 +1,64 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.model.Product;
+import com.example.testTask.model.Rating;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/*
+    Отпечаток содержимого товара (sha-256 от названия, цены, описания, изображения, категории и рейтинга).
+    Совпадение отпечатков означает, что товар не изменился и его не нужно перезаписывать
+ */
+public final class ProductFingerprint {
+
+    private static final char SEPARATOR = '\u001f';
+
+    private ProductFingerprint() {
+    }
+
+    /*
+        Вычисление отпечатка товара
+        @param dto dto товара
+     */
+    public static String of(ProductDTO dto) {
+        return of(dto.getTitle(), dto.getPrice(), dto.getDescription(), dto.getImage(), dto.getCategory(),
+                dto.getRating() != null, dto.getRating() != null ? dto.getRating().getRate() : null,
+                dto.getRating() != null ? dto.getRating().getCount() : null);
+    }
+
+    /*
+        Вычисление отпечатка текущего состояния сущности товара (совпадает с отпечатком dto с теми же полями)
+        @param product товар с загруженными категорией и рейтингом
+     */
+    public static String of(Product product) {
+        Rating rating = product.getRating();
+        return of(product.getTitle(), product.getPrice(), product.getDescription(), product.getImage(),
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                rating != null, rating != null ? rating.getRate() : null, rating != null ? rating.getCount() : null);
+    }
+
+    private static String of(String title, BigDecimal price, String description, String image, String category,
+                             boolean rated, Double rate, Integer count) {
+        StringBuilder content = new StringBuilder()
+                .append(title).append(SEPARATOR)
+                .append(price != null ? price.stripTrailingZeros().toPlainString() : null).append(SEPARATOR)
+                .append(description).append(SEPARATOR)
+                .append(image).append(SEPARATOR)
+                .append(category).append(SEPARATOR);
+        if (rated) {
+            content.append(rate).append(SEPARATOR)
+                    .append(count);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ImportProperties;
+import com.example.testTask.dto.ImportChunkReport;
+import com.example.testTask.dto.ImportProgress;
+import com.example.testTask.dto.ImportReport;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.RatingDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/*
+    Потоковый разбор товаров из трёх стадий:
+    разбор json-массива -> преобразование в ProductDTO (несколько потоков) -> передача порциями получателю.
+    Стадии связаны ограниченными очередями: если получатель не успевает, разбор ответа приостанавливается,
+    поэтому расход памяти не зависит от размера ответа
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportPipeline {
+
+    private static final JsonNode END_OF_INPUT = MissingNode.getInstance();
+    private static final ProductDTO END_OF_MAPPING = new ProductDTO();
+    private static final long POLL_TIMEOUT_MS = 100;
+    /* Длины столбцов таблицы product */
+    private static final int TITLE_LENGTH = 255;
+    private static final int DESCRIPTION_LENGTH = 2000;
+    private static final int IMAGE_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+    private final ProductImportWriter productImportWriter;
+    private final ImportProperties importProperties;
+    private final ImportMetrics importMetrics;
+
+    /*
+        Разбор товаров из потока с передачей порций по app.import.chunk-size
+        @param body json-массив товаров
+        @param source источник товаров (для метрик стадий)
+        @param progress счётчики импорта и флаг отмены (проверяется перед каждым элементом и порцией)
+        @param chunks получатель порций; вызывается из одного потока
+        @throws CancellationException если импорт отменён
+     */
+    public Result read(InputStream body, String source, ImportProgress progress, Consumer<List<ProductDTO>> chunks) {
+        int parallelism = Math.max(1, importProperties.getParallelism());
+        int capacity = Math.max(1, importProperties.getQueueCapacity());
+        BlockingQueue<JsonNode> parsed = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<ProductDTO> mapped = new ArrayBlockingQueue<>(capacity);
+        PipelineState state = new PipelineState(progress);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism + 1)) {
+            Timer.Sample mapSample = importMetrics.start();
+            for (int i = 0; i < parallelism; i++) {
+                executor.submit(() -> stage(state, () -> map(parsed, mapped, state)));
+            }
+            executor.submit(() -> stage(state, () -> collect(mapped, parallelism, chunks, mapSample, source, state)));
+            Timer.Sample parseSample = importMetrics.start();
+            stage(state, () -> parse(body, parsed, parallelism, state));
+            importMetrics.stop(parseSample, ImportMetrics.PARSE, source);
+        }
+
+        Throwable failure = state.failure.get();
+        if (failure != null) {
+            throw failure instanceof RuntimeException runtime ? runtime : new RuntimeException("Product import failed", failure);
+        }
+        return new Result(state.items.get(), state.mappingSkipped.get());
+    }
+
+    /*
+        Запись порции товаров в базу данных
+        @param chunk товары в порядке записи
+        @param report отчёт импорта, в который добавляется результат порции
+        @param progress счётчики импорта и флаг отмены (проверяется перед записью)
+        @throws CancellationException если импорт отменён
+     */
+    public void write(List<ProductDTO> chunk, ImportReport report, ImportProgress progress) {
+        progress.throwIfCancelled();
+        Timer.Sample sample = importMetrics.start();
+        ImportChunkReport chunkReport = productImportWriter.writeChunk(chunk);
+        importMetrics.stop(sample, ImportMetrics.WRITE, ImportMetrics.ALL_SOURCES);
+        importMetrics.rows(chunkReport);
+        report.addChunk(chunkReport);
+        progress.addWritten(chunkReport.getInserted() + chunkReport.getUpdated() + chunkReport.getUnchanged());
+        progress.addFailed(chunkReport.getSkipped());
+        log.info("Import chunk {}: inserted={}, updated={}, skipped={}, elapsed={} ms",
+                report.getChunks().size(), chunkReport.getInserted(), chunkReport.getUpdated(),
+                chunkReport.getSkipped(), chunkReport.getElapsedMs());
+    }
+
+    /*
+        Стадия разбора: json-массив читается по одному элементу
+     */
+    private Void parse(InputStream body, BlockingQueue<JsonNode> parsed, int consumers, PipelineState state) throws Exception {
+        ImportProgress progress = state.progress;
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("Expected json array of products");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                progress.throwIfCancelled();
+                JsonNode node = parser.readValueAsTree();
+                state.items.incrementAndGet();
+                progress.addFetched(1);
+                put(parsed, node != null ? node : NullNode.getInstance(), state);
+            }
+        }
+        for (int i = 0; i < consumers; i++) {
+            put(parsed, END_OF_INPUT, state);
+        }
+        return null;
+    }
+
+    /*
+        Стадия преобразования: элемент json -> ProductDTO, некорректные элементы пропускаются
+     */
+    private Void map(BlockingQueue<JsonNode> parsed, BlockingQueue<ProductDTO> mapped, PipelineState state) throws Exception {
+        while (true) {
+            JsonNode node = take(parsed, state);
+            if (node == END_OF_INPUT) {
+                put(mapped, END_OF_MAPPING, state);
+                return null;
+            }
+            ProductDTO dto = convert(node);
+            if (dto == null) {
+                state.mappingSkipped.incrementAndGet();
+                state.progress.addFailed(1);
+            } else {
+                state.progress.addMapped(1);
+                put(mapped, dto, state);
+            }
+        }
+    }
+
+    /*
+        Стадия сбора: товары собираются в порции по app.import.chunk-size и передаются получателю
+     */
+    private Void collect(BlockingQueue<ProductDTO> mapped, int producers, Consumer<List<ProductDTO>> chunks,
+                         Timer.Sample mapSample, String source, PipelineState state) throws Exception {
+        int chunkSize = Math.max(1, importProperties.getChunkSize());
+        List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+        int finished = 0;
+        while (finished < producers) {
+            ProductDTO dto = take(mapped, state);
+            if (dto == END_OF_MAPPING) {
+                finished++;
+                continue;
+            }
+            chunk.add(dto);
+            if (chunk.size() == chunkSize) {
+                state.progress.throwIfCancelled();
+                chunks.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        importMetrics.stop(mapSample, ImportMetrics.MAP, source);
+        if (!chunk.isEmpty()) {
+            state.progress.throwIfCancelled();
+            chunks.accept(chunk);
+        }
+        return null;
+    }
+
+    /*
+        Преобразование элемента json в товар.
+        Товар проверяется здесь, а не при записи: строка, не подходящая под ограничения таблиц product и rating,
+        прервала бы запись всей порции
+        @return null, если элемент некорректен, в нём нет обязательных полей, рейтинг неполон
+        или поле длиннее столбца
+     */
+    ProductDTO convert(JsonNode node) {
+        try {
+            ProductDTO dto = objectMapper.treeToValue(node, ProductDTO.class);
+            if (dto == null || dto.getTitle() == null || dto.getPrice() == null || dto.getCategory() == null) {
+                return null;
+            }
+            RatingDTO rating = dto.getRating();
+            if (rating != null && rating.getRate() == null && rating.getCount() == null) {
+                dto.setRating(null);
+            } else if (rating != null && (rating.getRate() == null || rating.getCount() == null)) {
+                log.warn("Skipping product {} with incomplete rating", dto.getId());
+                return null;
+            }
+            if (tooLong(dto.getTitle(), TITLE_LENGTH) || tooLong(dto.getDescription(), DESCRIPTION_LENGTH)
+                    || tooLong(dto.getImage(), IMAGE_LENGTH)) {
+                log.warn("Skipping product {} with a field longer than its column", dto.getId());
+                return null;
+            }
+            return dto;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Skipping malformed product: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean tooLong(String value, int length) {
+        return value != null && value.length() > length;
+    }
+
+    private <T> T stage(PipelineState state, Callable<T> body) {
+        try {
+            return body.call();
+        } catch (Throwable e) {
+            state.failure.compareAndSet(null, e);
+            return null;
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item, PipelineState state) throws InterruptedException {
+        while (!queue.offer(item, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            state.throwIfFailed();
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue, PipelineState state) throws InterruptedException {
+        while (true) {
+            state.throwIfFailed();
+            T item = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+    }
+
+    private static final class PipelineState {
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicInteger items = new AtomicInteger();
+        private final AtomicInteger mappingSkipped = new AtomicInteger();
+        private final ImportProgress progress;
+
+        private PipelineState(ImportProgress progress) {
+            this.progress = progress;
+        }
+
+        private void throwIfFailed() {
+            progress.throwIfCancelled();
+            if (failure.get() != null) {
+                throw new CancellationException("Import pipeline stopped after a failure in another stage");
+            }
+        }
+    }
+
+    /*
+        Результат разбора
+        @param items количество элементов массива
+        @param skipped количество пропущенных некорректных элементов
+     */
+    public record Result(int items, int skipped) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ImportChunkReport;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.RatingDTO;
+import com.example.testTask.model.Category;
+import com.example.testTask.model.CategoryStatsDelta;
+import com.example.testTask.repository.ProductJdbcRepository;
+import com.example.testTask.repository.ProductJdbcRepository.ExistingProduct;
+import com.example.testTask.repository.ProductJdbcRepository.ProductRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class ProductImportWriter {
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final CategoryCache categoryCache;
+    private final CategoryStatsService categoryStatsService;
+    private final CatalogVersionService catalogVersionService;
+
+    /*
+        Запись порции импортируемых товаров в одной транзакции.
+        Существующие товары и категории загружаются одним запросом,
+        рейтинги, товары и новые категории записываются пакетами.
+        Товары из внешнего api находятся по external_id, их идентификаторы выдаёт последовательность.
+        Товары, отпечаток которых не изменился, не перезаписываются.
+        Статистика и версия каталога обновляются в той же транзакции
+        @param products порция товаров из внешнего api
+     */
+    @Transactional
+    public ImportChunkReport writeChunk(List<ProductDTO> products) {
+        long start = System.nanoTime();
+        int skipped = 0;
+        int unchanged = 0;
+
+        Map<Long, ProductDTO> withId = new LinkedHashMap<>();
+        List<ProductDTO> withoutId = new ArrayList<>();
+        for (ProductDTO dto : products) {
+            if (dto.getTitle() == null || dto.getPrice() == null || dto.getCategory() == null) {
+                skipped++;
+            } else if (dto.getId() == null) {
+                withoutId.add(dto);
+            } else if (withId.put(dto.getId(), dto) != null) {
+                skipped++;
+            }
+        }
+
+        Map<Long, ExistingProduct> existing = productJdbcRepository.findExistingByExternalIds(withId.keySet());
+        Map<ProductDTO, String> fingerprints = new IdentityHashMap<>();
+        List<ProductDTO> toUpdate = new ArrayList<>();
+        List<ProductDTO> toInsert = new ArrayList<>(withoutId);
+        for (ProductDTO dto : withId.values()) {
+            String fingerprint = ProductFingerprint.of(dto);
+            fingerprints.put(dto, fingerprint);
+            ExistingProduct current = existing.get(dto.getId());
+            if (current == null) {
+                toInsert.add(dto);
+            } else if (fingerprint.equals(current.getFingerprint())) {
+                unchanged++;
+            } else {
+                toUpdate.add(dto);
+            }
+        }
+        withoutId.forEach(dto -> fingerprints.put(dto, ProductFingerprint.of(dto)));
+
+        if (toUpdate.isEmpty() && toInsert.isEmpty()) {
+            return new ImportChunkReport(0, 0, unchanged, skipped, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        Map<String, Long> categoryIds = resolveCategoryIds(toUpdate, toInsert);
+
+        Map<Long, RatingDTO> ratingsToUpdate = new HashMap<>();
+        List<RatingDTO> ratingsToInsert = new ArrayList<>();
+        for (ProductDTO dto : toUpdate) {
+            Long ratingId = existing.get(dto.getId()).getRatingId();
+            if (dto.getRating() != null && ratingId != null) {
+                ratingsToUpdate.put(ratingId, dto.getRating());
+            } else if (dto.getRating() != null) {
+                ratingsToInsert.add(dto.getRating());
+            }
+        }
+        for (ProductDTO dto : toInsert) {
+            if (dto.getRating() != null) {
+                ratingsToInsert.add(dto.getRating());
+            }
+        }
+
+        productJdbcRepository.updateRatings(ratingsToUpdate);
+        Iterator<Long> newRatingIds = productJdbcRepository.insertRatings(ratingsToInsert).iterator();
+
+        List<ProductRow> updateRows = new ArrayList<>(toUpdate.size());
+        List<Long> ratingsToDelete = new ArrayList<>();
+        for (ProductDTO dto : toUpdate) {
+            Long ratingId = null;
+            ExistingProduct current = existing.get(dto.getId());
+            Long existingRatingId = current.getRatingId();
+            if (dto.getRating() != null) {
+                ratingId = existingRatingId != null ? existingRatingId : newRatingIds.next();
+            } else if (existingRatingId != null) {
+                ratingsToDelete.add(existingRatingId);
+            }
+            updateRows.add(new ProductRow(dto, current.getProductId(), categoryIds.get(dto.getCategory()), ratingId,
+                    fingerprints.get(dto)));
+        }
+        List<ProductRow> insertRows = new ArrayList<>(toInsert.size());
+        for (ProductDTO dto : toInsert) {
+            Long ratingId = dto.getRating() != null ? newRatingIds.next() : null;
+            insertRows.add(new ProductRow(dto, null, categoryIds.get(dto.getCategory()), ratingId, fingerprints.get(dto)));
+        }
+
+        productJdbcRepository.updateProducts(updateRows);
+        List<Long> insertedIds = productJdbcRepository.insertProducts(insertRows);
+        // рейтинг, который товар потерял, больше ни на что не ссылается
+        productJdbcRepository.deleteRatings(ratingsToDelete);
+
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        for (ProductRow row : updateRows) {
+            ExistingProduct previous = existing.get(row.getProduct().getId());
+            delta.remove(previous.getCategoryId(), previous.getPrice(), previous.getRate());
+            delta.add(row.getCategoryId(), row.getProduct().getPrice(), rate(row.getProduct()));
+        }
+        for (ProductRow row : insertRows) {
+            delta.add(row.getCategoryId(), row.getProduct().getPrice(), rate(row.getProduct()));
+        }
+        categoryStatsService.apply(delta);
+        List<Long> changedIds = new ArrayList<>(insertedIds);
+        updateRows.forEach(row -> changedIds.add(row.getProductId()));
+        catalogVersionService.bump(changedIds);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return new ImportChunkReport(toInsert.size(), toUpdate.size(), unchanged, skipped, elapsedMs);
+    }
+
+    private static Double rate(ProductDTO dto) {
+        return dto.getRating() != null ? dto.getRating().getRate() : null;
+    }
+
+    /*
+        Получение идентификаторов всех категорий порции с созданием недостающих.
+        Категории, известные кэшу, в базе данных не запрашиваются
+     */
+    private Map<String, Long> resolveCategoryIds(List<ProductDTO> toUpdate, List<ProductDTO> toInsert) {
+        Set<String> names = new HashSet<>();
+        toUpdate.forEach(dto -> names.add(dto.getCategory()));
+        toInsert.forEach(dto -> names.add(dto.getCategory()));
+
+        Map<String, Long> categoryIds = new HashMap<>();
+        Set<String> uncached = new HashSet<>();
+        for (String name : names) {
+            Category cached = categoryCache.getIfPresent(name);
+            if (cached != null) {
+                categoryIds.put(name, cached.getId());
+            } else {
+                uncached.add(name);
+            }
+        }
+        if (uncached.isEmpty()) {
+            return categoryIds;
+        }
+
+        Map<String, Long> found = productJdbcRepository.findCategoryIdsByNames(uncached);
+        if (found.size() < uncached.size()) {
+            Set<String> missing = new HashSet<>(uncached);
+            missing.removeAll(found.keySet());
+            productJdbcRepository.insertMissingCategories(missing);
+            found.putAll(productJdbcRepository.findCategoryIdsByNames(missing));
+        }
+        found.forEach((name, id) -> {
+            Category category = new Category();
+            category.setId(id);
+            category.setName(name);
+            categoryCache.putAfterCommit(category);
+        });
+        categoryIds.putAll(found);
+        return categoryIds;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductJsonCacheProperties;
+import com.example.testTask.dto.ProductView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+    Кэш сериализованного json товаров (id -> номер версии и json).
+    Запись используется, только если её номер версии совпадает с версией прочитанного товара,
+    поэтому устаревший json не может быть отдан даже при гонке чтения и записи или изменении на другом узле.
+    При изменении товара запись удаляется, чтобы не занимать память
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductJsonCache {
+
+    private final ProductJsonCacheProperties properties;
+    private final Map<Long, CachedJson> byId = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /*
+        Получение json товара из кэша или его сериализация
+        @param view прочитанный товар
+        @param serializer сериализация товара при промахе
+     */
+    public String get(ProductView view, Function<ProductView, String> serializer) {
+        CachedJson cached = byId.get(view.id());
+        if (cached != null && cached.version == view.version()) {
+            return cached.json;
+        }
+        if (byId.size() >= properties.getMaxEntries()) {
+            byId.clear();
+        }
+        String json = serializer.apply(view);
+        byId.put(view.id(), new CachedJson(view.version(), json));
+        return json;
+    }
+
+    /*
+        Удаление json товара из кэша
+        @param id идентификатор товара
+     */
+    public void evict(Long id) {
+        byId.remove(id);
+    }
+
+    /*
+        Удаление json нескольких товаров из кэша
+        @param ids идентификаторы товаров
+     */
+    public void evictAll(Collection<Long> ids) {
+        ids.forEach(byId::remove);
+    }
+
+    private record CachedJson(long version, String json) {
+    }
+}
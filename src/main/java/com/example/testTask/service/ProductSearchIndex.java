@@ -0,0 +1,317 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/*
+    Полнотекстовый поиск товаров по названию и описанию: обратный индекс в памяти с ранжированием BM25.
+    Списки вхождений терма хранятся в массиве байт (разность номеров документов и частота в varint).
+    Индекс обновляется по CatalogChangedEvent: добавленные и изменённые товары перечитываются,
+    прежняя версия документа помечается удалённой.
+    Когда удалённых документов становится больше четверти, индекс перестраивается из базы данных
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    /*
+        Вхождение слова в название весит как два вхождения в описание
+     */
+    private static final int TITLE_WEIGHT = 2;
+    private static final double MAX_DELETED_RATIO = 0.25;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ProductViewRepository productViewRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /*
+        ReentrantLock, а не synchronized: обновление читает базу данных и не должно закреплять виртуальный поток
+        за потоком-носителем
+     */
+    private final Lock updateLock = new ReentrantLock();
+
+    private Segment segment = new Segment();
+    private boolean stale;
+
+    public ProductSearchIndex(ProductViewRepository productViewRepository) {
+        this.productViewRepository = productViewRepository;
+    }
+
+    /*
+        Поиск товаров: совпадение хотя бы с одним словом запроса, по убыванию релевантности (затем по id)
+        @param query текст запроса
+        @param filter ограничения по цене и категории
+        @return страница идентификаторов товаров
+     */
+    public Page<Long> search(String query, Filter filter, Pageable pageable) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Segment current = segment;
+            current.score(terms, filter).forEach((doc, score) -> hits.add(new Hit(current.productIds[doc], score)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort((a, b) -> a.score() != b.score()
+                ? Double.compare(b.score(), a.score())
+                : Long.compare(a.productId(), b.productId()));
+
+        List<Long> content = new ArrayList<>();
+        if (pageable.getOffset() < hits.size()) {
+            int end = (int) Math.min(hits.size(), pageable.getOffset() + pageable.getPageSize());
+            for (int i = (int) pageable.getOffset(); i < end; i++) {
+                content.add(hits.get(i).productId());
+            }
+        }
+        return new PageImpl<>(content, pageable, hits.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        updateLock.lock();
+        try {
+            rebuild();
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /*
+        Обновление индекса после изменения каталога. Обновления выполняются по одному,
+        поэтому каждое следующее читает из базы данных состояние не старше предыдущего
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        updateLock.lock();
+        try {
+            if (event.all() || stale) {
+                rebuild();
+                return;
+            }
+            List<ProductView> changed = productViewRepository.findAllById(event.productIds());
+            boolean compact;
+            lock.writeLock().lock();
+            try {
+                event.productIds().forEach(segment::remove);
+                changed.forEach(segment::add);
+                compact = segment.deletedRatio() > MAX_DELETED_RATIO;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (compact) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            // ошибка не должна отменять уже зафиксированное изменение, индекс перестроится при следующем
+            stale = true;
+            log.warn("Failed to update search index: {}", e.getMessage());
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        try {
+            Segment built = new Segment();
+            productViewRepository.findAll().forEach(built::add);
+            lock.writeLock().lock();
+            try {
+                segment = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            stale = false;
+            log.info("Search index built: products={}, terms={}, elapsed={} ms",
+                    built.liveCount(), built.postings.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            stale = true;
+            log.warn("Failed to build search index: {}", e.getMessage());
+        }
+    }
+
+    /*
+        Разбиение текста на слова в нижнем регистре (последовательности букв и цифр)
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    /*
+        Документы индекса: номер документа — позиция в массивах, выдаётся по возрастанию
+     */
+    private static final class Segment {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] productIds = new long[256];
+        private int[] lengths = new int[256];
+        private BigDecimal[] prices = new BigDecimal[256];
+        private String[] categories = new String[256];
+        private int docCount;
+        private long totalLength;
+
+        void add(ProductView view) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            tokenize(view.title()).forEach(token -> frequencies.merge(token, TITLE_WEIGHT, Integer::sum));
+            tokenize(view.description()).forEach(token -> frequencies.merge(token, 1, Integer::sum));
+
+            remove(view.id());
+            int doc = docCount++;
+            if (doc == productIds.length) {
+                int capacity = doc * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+            }
+            int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+            productIds[doc] = view.id();
+            lengths[doc] = length;
+            prices[doc] = view.price();
+            categories[doc] = view.categoryName();
+            totalLength += length;
+            docByProduct.put(view.id(), doc);
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, frequency));
+        }
+
+        void remove(Long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc != null) {
+                deleted.set(doc);
+            }
+        }
+
+        int liveCount() {
+            return docByProduct.size();
+        }
+
+        double deletedRatio() {
+            return docCount == 0 ? 0 : (double) deleted.cardinality() / docCount;
+        }
+
+        /*
+            Сумма BM25 по словам запроса для документов, удовлетворяющих фильтру.
+            Число документов и средняя длина учитывают и удалённые документы, как и частоты в списках вхождений
+         */
+        Map<Integer, Double> score(List<String> terms, Filter filter) {
+            Map<Integer, Double> scores = new HashMap<>();
+            double averageLength = docCount == 0 ? 1 : (double) totalLength / docCount;
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - termPostings.docFrequency + 0.5) / (termPostings.docFrequency + 0.5));
+                termPostings.forEach((doc, frequency) -> {
+                    if (deleted.get(doc) || !matches(doc, filter)) {
+                        return;
+                    }
+                    double norm = frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengths[doc] / averageLength));
+                    scores.merge(doc, idf * norm, Double::sum);
+                });
+            }
+            return scores;
+        }
+
+        private boolean matches(int doc, Filter filter) {
+            return (filter.minPrice() == null || prices[doc].compareTo(filter.minPrice()) >= 0)
+                    && (filter.maxPrice() == null || prices[doc].compareTo(filter.maxPrice()) <= 0)
+                    && (filter.categoryName() == null || filter.categoryName().equals(categories[doc]));
+        }
+    }
+
+    /*
+        Список вхождений терма: пары (разность номера документа с предыдущим, частота) в varint
+     */
+    private static final class Postings {
+
+        private byte[] data = new byte[8];
+        private int size;
+        private int lastDoc = -1;
+        private int docFrequency;
+
+        void add(int doc, int frequency) {
+            write(doc - lastDoc);
+            write(frequency);
+            lastDoc = doc;
+            docFrequency++;
+        }
+
+        void forEach(PostingConsumer consumer) {
+            int position = 0;
+            int doc = -1;
+            while (position < size) {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[position++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                int frequency = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[position++];
+                    frequency |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                doc += delta;
+                consumer.accept(doc, frequency);
+            }
+        }
+
+        private void write(int value) {
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    private interface PostingConsumer {
+        void accept(int doc, int frequency);
+    }
+
+    private record Hit(long productId, double score) {
+    }
+}
@@ -1,39 +1,88 @@
 package com.example.testTask.service;
 
+import com.example.testTask.config.CacheConfig;
+import com.example.testTask.config.ProductBatchProperties;
+import com.example.testTask.dto.BatchItemResult;
+import com.example.testTask.dto.BatchReport;
+import com.example.testTask.dto.CursorPage;
 import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.ProductFacets;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.dto.RatingDTO;
+import com.example.testTask.model.CategoryStatsDelta;
 import com.example.testTask.model.Product;
-import com.example.testTask.model.Category;
 import com.example.testTask.model.Rating;
-import com.example.testTask.repository.CategoryRepository;
+import com.example.testTask.repository.CategoryStatsRepository;
+import com.example.testTask.repository.ProductFacetRepository;
 import com.example.testTask.repository.ProductRepository;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
 import com.example.testTask.repository.RatingRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = "catalog.service", histogram = true)
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
+    private final ProductViewRepository productViewRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetRepository productFacetRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final CategoryCache categoryCache;
+    private final CategoryStatsService categoryStatsService;
+    private final CategoryStatsRepository categoryStatsRepository;
+    private final ProductCountCache productCountCache;
     private final RatingRepository ratingRepository;
-    private final RestClient restClient;
+    private final ProductBatchWriter productBatchWriter;
+    private final ProductBatchProperties productBatchProperties;
 
     /*
         Получение списка всех товаров
      */
-    public Page<Product> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable);
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public Page<ProductView> getAllProducts(Pageable pageable) {
+        return findPage(Filter.all(), pageable);
+    }
+
+    /*
+        Получение товара по id для ответа api
+        @param id идентификатор товара
+        @throws RuntimeException если товар не найден
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+    public ProductView getProductView(Long id) {
+        return productViewRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
 
     /*
@@ -50,32 +99,136 @@ public class ProductService {
         Создание нового товара
         @param productDto dto товара
      */
+    @Transactional
     public Product createProduct(ProductDTO productDTO) {
-        Product product = convertToEntity(productDTO);
-        return productRepository.save(product);
+        Product product = new Product();
+        copyToEntity(productDTO, product);
+        product.setFingerprint(ProductFingerprint.of(productDTO));
+        product.setUpdatedAt(Instant.now());
+        product = productRepository.save(product);
+        // вставка с id из последовательности откладывается до flush, а статистика читает таблицу товаров
+        productRepository.flush();
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        delta.add(product);
+        categoryStatsService.apply(delta);
+        catalogVersionService.bump(Set.of(product.getId()));
+        return product;
     }
 
     /*
-        Редактирование существующего товара по id
+        Редактирование существующего товара по id: все поля заменяются значениями из dto
         @param id идентификатор товара
         @param productDto dto товара
+        @param expectedVersion ожидаемая версия товара (из If-Match) или null
+        @throws RuntimeException если товар не найден
+        @throws ObjectOptimisticLockingFailureException если товар изменён после получения версии
+     */
+    @Transactional
+    public Product updateProduct(Long id, ProductDTO productDTO, Long expectedVersion) {
+        Product product = getProductById(id);
+        checkVersion(product, expectedVersion);
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        delta.remove(product);
+        String fingerprint = product.getFingerprint();
+        copyToEntity(productDTO, product);
+        return saveChanges(product, fingerprint, delta);
+    }
+
+    /*
+        Частичное редактирование товара по id: изменяются только поля, переданные в dto (не null)
+        @param id идентификатор товара
+        @param patch изменяемые поля товара
+        @param expectedVersion ожидаемая версия товара (из If-Match) или null
+        @throws RuntimeException если товар не найден
+        @throws ObjectOptimisticLockingFailureException если товар изменён после получения версии
      */
-    public Product updateProduct(Long id, ProductDTO productDTO) {
-        Product existingProduct = getProductById(id);
-        Product updatedProduct = convertToEntity(productDTO);
-        updatedProduct.setId(existingProduct.getId());
-        return productRepository.save(updatedProduct);
+    @Transactional
+    public Product patchProduct(Long id, ProductDTO patch, Long expectedVersion) {
+        Product product = getProductById(id);
+        checkVersion(product, expectedVersion);
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        delta.remove(product);
+        String fingerprint = product.getFingerprint();
+        if (patch.getTitle() != null) {
+            product.setTitle(patch.getTitle());
+        }
+        if (patch.getPrice() != null) {
+            product.setPrice(patch.getPrice());
+        }
+        if (patch.getDescription() != null) {
+            product.setDescription(patch.getDescription());
+        }
+        if (patch.getImage() != null) {
+            product.setImage(patch.getImage());
+        }
+        if (patch.getCategory() != null) {
+            setCategory(product, patch.getCategory());
+        }
+        if (patch.getRating() != null) {
+            setRating(product, patch.getRating());
+        }
+        return saveChanges(product, fingerprint, delta);
     }
 
     /*
-        Удаление товара по id
+        Удаление товара по id вместе с его рейтингом
         @param id идентификатор товара
         @throws RuntimeException если товар не найден
      */
+    @Transactional
     public void deleteProduct(Long id) {
-        if (productRepository.existsById(id)) {
-            productRepository.deleteById(id);
-        } else throw new RuntimeException("Product not found with id: " + id);
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        delta.remove(product);
+        productRepository.deleteById(id);
+        if (product.getRating() != null) {
+            ratingRepository.delete(product.getRating());
+        }
+        productRepository.flush();
+        categoryStatsService.apply(delta);
+        catalogVersionService.bump(Set.of(id));
+    }
+
+    /*
+        Пакетное создание и обновление товаров: товары без id создаются, с id — обновляются.
+        Запись идёт порциями по app.products.batch.chunk-size, каждая порция в своей транзакции.
+        Если порция не записалась целиком, её товары записываются по одному, чтобы ошибка одного товара
+        не отменяла остальные
+        @param products товары в порядке запроса
+        @throws IllegalArgumentException если товаров больше app.products.batch.max-items
+     */
+    public BatchReport batchUpsert(List<ProductDTO> products) {
+        if (products.size() > productBatchProperties.getMaxItems()) {
+            throw new IllegalArgumentException("Batch must contain at most " + productBatchProperties.getMaxItems() + " products");
+        }
+        long start = System.nanoTime();
+        int chunkSize = Math.max(1, productBatchProperties.getChunkSize());
+        BatchReport report = new BatchReport();
+        for (int offset = 0; offset < products.size(); offset += chunkSize) {
+            List<ProductDTO> chunk = products.subList(offset, Math.min(products.size(), offset + chunkSize));
+            try {
+                report.addAll(productBatchWriter.writeChunk(chunk, offset));
+            } catch (RuntimeException e) {
+                log.warn("Batch chunk at {} failed, writing its products one by one: {}", offset, e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    report.addAll(writeOne(chunk.get(i), offset + i));
+                }
+            }
+        }
+        report.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        log.info("Batch finished: created={}, updated={}, unchanged={}, failed={}, elapsed={} ms",
+                report.getCreated(), report.getUpdated(), report.getUnchanged(), report.getFailed(), report.getElapsedMs());
+        return report;
+    }
+
+    private List<BatchItemResult> writeOne(ProductDTO product, int index) {
+        try {
+            return productBatchWriter.writeChunk(List.of(product), index);
+        } catch (RuntimeException e) {
+            return List.of(BatchItemResult.failed(index, product.getId(),
+                    NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+        }
     }
 
     /*
@@ -83,16 +236,18 @@ public class ProductService {
         @param minPrice нижняя граница цены
         @param maxPrice верхняя граница цены
      */
-    public Page<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
-        return productRepository.findByPrice(minPrice, maxPrice, pageable);
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public Page<ProductView> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        return findPage(Filter.priceBetween(minPrice, maxPrice), pageable);
     }
 
     /*
         Получения товаров по категории
         @param categoryName наименование категории
      */
-    public Page<Product> getProductsByCategory(String categoryName, Pageable pageable) {
-        return productRepository.findAllByCategoryName(categoryName, pageable);
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public Page<ProductView> getProductsByCategory(String categoryName, Pageable pageable) {
+        return findPage(Filter.categoryName(categoryName), pageable);
     }
 
     /*
@@ -100,7 +255,8 @@ public class ProductService {
         @param priceDirection параметр сортировки по цене (asc/desc)
         @param categoryDirection параметр сортировки по категории (asc/desc)
      */
-    public Page<Product> getProductsSorted(String priceDirection, String categoryDirection, Pageable pageable) {
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public Page<ProductView> getProductsSorted(String priceDirection, String categoryDirection, Pageable pageable) {
         List<Sort.Order> orders = new ArrayList<>();
         if (priceDirection != null) {
             orders.add(new Sort.Order(Sort.Direction.fromString(priceDirection), "price"));
@@ -113,58 +269,222 @@ public class ProductService {
             pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
         }
 
-        return productRepository.findAll(pageable);
+        return findPage(Filter.all(), pageable);
     }
 
     /*
-        Импорт товаров с внешнего api
-        @Scheduled планировщик, синхронизирующий товары из внешнего api каждые 30 минут
+        Полнотекстовый поиск товаров по названию и описанию
+        @param query текст запроса
+        @param minPrice нижняя граница цены
+        @param maxPrice верхняя граница цены
+        @param categoryName наименование категории
      */
-    @Scheduled(fixedRate = 30 * 60 * 1000)
-    public void importProducts() {
-        ProductDTO[] products = restClient.get()
-                .uri("/products")
-                .retrieve()
-                .body(ProductDTO[].class);
+    public Page<ProductView> searchProducts(String query, BigDecimal minPrice, BigDecimal maxPrice,
+                                            String categoryName, Pageable pageable) {
+        Page<Long> ids = productSearchIndex.search(query, new Filter(minPrice, maxPrice, categoryName), pageable);
+        Map<Long, ProductView> views = productViewRepository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(ProductView::id, Function.identity()));
+        // товар, удалённый после поиска, пропускается
+        List<ProductView> content = ids.getContent().stream()
+                .map(views::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
 
-        if (products != null) {
-            for (ProductDTO productDTO : products) {
-                if (productDTO.getId() != null && productRepository.existsById(productDTO.getId())) {
-                    updateProduct(productDTO.getId(), productDTO);
-                } else {
-                    createProduct(productDTO);
-                }
-            }
+    /*
+        Фасеты товаров (категории, гистограмма цен, оценки) для фильтра одним запросом
+        @param minPrice нижняя граница цены
+        @param maxPrice верхняя граница цены
+        @param categoryName наименование категории
+        @param priceInterval ширина интервала гистограммы цен
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public ProductFacets getFacets(BigDecimal minPrice, BigDecimal maxPrice, String categoryName, BigDecimal priceInterval) {
+        ProductFacets facets = productFacetRepository.find(new Filter(minPrice, maxPrice, categoryName), priceInterval);
+        log.debug("Facets computed in {} ms", facets.getElapsedMs());
+        return facets;
+    }
+
+    /*
+        Получение всех товаров с курсорной пагинацией (по возрастанию id)
+        @param cursor курсор страницы (пустой — первая страница)
+        @param withTotal вернуть общее количество товаров (из category_stats)
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public CursorPage<ProductView> scrollAllProducts(String cursor, int size, boolean withTotal) {
+        Sort sort = Sort.by(Sort.Order.asc("id"));
+        return scroll(Filter.all(), sort, cursor, size,
+                withTotal ? categoryStatsRepository::countProducts : null);
+    }
+
+    /*
+        Получение товаров в ценовом диапазоне с курсорной пагинацией (по возрастанию цены)
+        @param minPrice нижняя граница цены
+        @param maxPrice верхняя граница цены
+        @param withTotal вернуть общее количество товаров (кэшируется на минуту)
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public CursorPage<ProductView> scrollProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice,
+                                                              String cursor, int size, boolean withTotal) {
+        Filter filter = Filter.priceBetween(minPrice, maxPrice);
+        Sort sort = Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"));
+        return scroll(filter, sort, cursor, size,
+                withTotal ? () -> productCountCache.get("price:" + minPrice + ":" + maxPrice, () -> productViewRepository.count(filter)) : null);
+    }
+
+    /*
+        Получение товаров категории с курсорной пагинацией (по возрастанию id)
+        @param categoryName наименование категории
+        @param withTotal вернуть общее количество товаров (из category_stats)
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public CursorPage<ProductView> scrollProductsByCategory(String categoryName, String cursor, int size, boolean withTotal) {
+        Sort sort = Sort.by(Sort.Order.asc("id"));
+        return scroll(Filter.categoryName(categoryName), sort, cursor, size,
+                withTotal ? () -> categoryStatsRepository.countProductsByCategoryName(categoryName) : null);
+    }
+
+    /*
+        Получение отсортированных товаров с курсорной пагинацией
+        @param priceDirection параметр сортировки по цене (asc/desc)
+        @param categoryDirection параметр сортировки по категории (asc/desc)
+        @param withTotal вернуть общее количество товаров (из category_stats)
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_QUERIES, keyGenerator = "catalogKeyGenerator")
+    public CursorPage<ProductView> scrollProductsSorted(String priceDirection, String categoryDirection,
+                                                        String cursor, int size, boolean withTotal) {
+        List<Sort.Order> orders = new ArrayList<>();
+        if (priceDirection != null) {
+            orders.add(new Sort.Order(Sort.Direction.fromString(priceDirection), "price"));
         }
+        if (categoryDirection != null) {
+            orders.add(new Sort.Order(Sort.Direction.fromString(categoryDirection), "category.name"));
+        }
+        orders.add(Sort.Order.asc("id"));
+        return scroll(Filter.all(), Sort.by(orders), cursor, size,
+                withTotal ? categoryStatsRepository::countProducts : null);
     }
 
     /*
-        Преобразование DTO товара в сущность Product
-        @param dto dto товара для преобразования
+        Получение страницы товаров из снимка каталога в памяти, а если он выключен или устарел — из базы данных
      */
-    private Product convertToEntity(ProductDTO dto) {
-        Product product = new Product();
+    private Page<ProductView> findPage(Filter filter, Pageable pageable) {
+        return catalogSnapshotService.findPage(filter, pageable)
+                .orElseGet(() -> productViewRepository.findPage(filter, pageable));
+    }
+
+    /*
+        Выборка страницы по ключу сортировки последнего элемента предыдущей страницы:
+        запрос не использует OFFSET и не выполняет COUNT(*), поэтому время не зависит от номера страницы.
+        Запрашивается на один товар больше, чтобы узнать, есть ли следующая страница
+     */
+    private CursorPage<ProductView> scroll(Filter filter, Sort sort, String cursor, int size, Supplier<Long> total) {
+        KeysetScrollPosition position = (KeysetScrollPosition) ProductCursor.decode(cursor, sort);
+        List<ProductView> rows = productViewRepository.findAfter(filter, sort, position.getKeys(), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ProductView> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext && !content.isEmpty()
+                ? ProductCursor.encode(ScrollPosition.forward(sortKeys(content.get(content.size() - 1), sort)))
+                : null;
+        return new CursorPage<>(content, content.size(), hasNext, nextCursor,
+                total != null ? total.get() : null);
+    }
+
+    /*
+        Значения ключей сортировки товара для курсора
+     */
+    private static Map<String, Object> sortKeys(ProductView view, Sort sort) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            keys.put(order.getProperty(), switch (order.getProperty()) {
+                case "id" -> view.id();
+                case "price" -> view.price();
+                case "category.name" -> view.categoryName() != null ? view.categoryName() : "";
+                default -> throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            });
+        }
+        return keys;
+    }
+
+    /*
+        Проверка версии товара, полученной клиентом. Изменения, сделанные после чтения товара в этой транзакции,
+        обнаружит сам Hibernate при обновлении (UPDATE ... WHERE version = ?)
+     */
+    private static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != product.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, product.getId());
+        }
+    }
+
+    /*
+        Запись изменений управляемой сущности: Hibernate обновит только изменённые столбцы и увеличит версию.
+        Если содержимое товара не изменилось, версия каталога и статистика не меняются
+     */
+    private Product saveChanges(Product product, String previousFingerprint, CategoryStatsDelta delta) {
+        product.setFingerprint(ProductFingerprint.of(product));
+        if (product.getFingerprint().equals(previousFingerprint)) {
+            return product;
+        }
+        product.setUpdatedAt(Instant.now());
+        productRepository.flush();
+        delta.add(product);
+        categoryStatsService.apply(delta);
+        catalogVersionService.bump(Set.of(product.getId()));
+        return product;
+    }
+
+    /*
+        Перенос всех полей dto в сущность товара (новую или управляемую)
+        @param dto dto товара
+        @param product товар
+     */
+    private void copyToEntity(ProductDTO dto, Product product) {
         product.setTitle(dto.getTitle());
         product.setPrice(dto.getPrice());
         product.setDescription(dto.getDescription());
         product.setImage(dto.getImage());
+        setCategory(product, dto.getCategory());
 
-        Category category = categoryRepository.findByName(dto.getCategory());
-        if (category == null) {
-            category = new Category();
-            category.setName(dto.getCategory());
-            category = categoryRepository.save(category);
+        if (dto.getRating() != null) {
+            setRating(product, dto.getRating());
+        } else if (product.getRating() != null) {
+            // рейтинг принадлежит только этому товару, поэтому удаляется вместе со связью
+            ratingRepository.delete(product.getRating());
+            product.setRating(null);
         }
-        product.setCategory(category);
+    }
 
-        if (dto.getRating() != null) {
-            Rating rating = new Rating();
-            rating.setRate(dto.getRating().getRate());
-            rating.setCount(dto.getRating().getCount());
-            Rating savedRating = ratingRepository.save(rating);
-            product.setRating(savedRating);
+    /*
+        Категория ищется в кэше, только если название изменилось
+     */
+    private void setCategory(Product product, String name) {
+        if (product.getCategory() == null || !product.getCategory().getName().equals(name)) {
+            product.setCategory(categoryCache.getOrCreate(name));
         }
+    }
 
-        return product;
+    /*
+        Изменение рейтинга товара на месте или создание рейтинга, если его не было
+        @throws IllegalArgumentException если для нового рейтинга не указаны оценка и количество
+     */
+    private void setRating(Product product, RatingDTO dto) {
+        Rating rating = product.getRating();
+        if (rating == null) {
+            if (dto.getRate() == null || dto.getCount() == null) {
+                throw new IllegalArgumentException("Rating rate and count are required");
+            }
+            rating = new Rating();
+            rating.setRate(dto.getRate());
+            rating.setCount(dto.getCount());
+            product.setRating(ratingRepository.save(rating));
+            return;
+        }
+        if (dto.getRate() != null) {
+            rating.setRate(dto.getRate());
+        }
+        if (dto.getCount() != null) {
+            rating.setCount(dto.getCount());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ProductView;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/*
+    Сериализация ProductView без рефлексии в формат сущности Product:
+    {id, title, price, description, image, category: {id, name}, rating: {id, rate, count}}.
+    Для json-ответов при включённом кэше товар записывается готовой строкой из ProductJsonCache
+ */
+@JsonComponent
+@RequiredArgsConstructor
+public class ProductViewSerializer extends JsonSerializer<ProductView> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ProductJsonCache productJsonCache;
+
+    @Override
+    public void serialize(ProductView view, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (productJsonCache.isEnabled() && gen instanceof JsonGeneratorImpl) {
+            gen.writeRawValue(productJsonCache.get(view, ProductViewSerializer::toJson));
+        } else {
+            write(view, gen);
+        }
+    }
+
+    @Override
+    public Class<ProductView> handledType() {
+        return ProductView.class;
+    }
+
+    static String toJson(ProductView view) {
+        StringWriter json = new StringWriter(256);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(json)) {
+            write(view, gen);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    static void write(ProductView view, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", view.id());
+        gen.writeStringField("title", view.title());
+        gen.writeFieldName("price");
+        gen.writeNumber(view.price());
+        gen.writeStringField("description", view.description());
+        gen.writeStringField("image", view.image());
+        gen.writeFieldName("category");
+        if (view.categoryId() != null) {
+            gen.writeStartObject();
+            gen.writeNumberField("id", view.categoryId());
+            gen.writeStringField("name", view.categoryName());
+            gen.writeEndObject();
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName("rating");
+        if (view.ratingId() != null) {
+            gen.writeStartObject();
+            gen.writeNumberField("id", view.ratingId());
+            gen.writeFieldName("rate");
+            if (view.rate() != null) {
+                gen.writeNumber(view.rate());
+            } else {
+                gen.writeNull();
+            }
+            gen.writeFieldName("count");
+            if (view.ratingCount() != null) {
+                gen.writeNumber(view.ratingCount());
+            } else {
+                gen.writeNull();
+            }
+            gen.writeEndObject();
+        } else {
+            gen.writeNull();
+        }
+        gen.writeEndObject();
+    }
+}
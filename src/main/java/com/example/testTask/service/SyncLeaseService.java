@@ -0,0 +1,116 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.SyncLeaseProperties;
+import com.example.testTask.dto.SyncStatus;
+import com.example.testTask.repository.SyncLeaseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.UUID;
+
+/*
+    Аренда синхронизации товаров для нескольких экземпляров приложения с общей базой данных.
+    Импорт выполняет только владелец аренды; владелец продлевает её, пока импорт идёт.
+    Если экземпляр остановился, аренда истекает через app.import.lease.ttl, и синхронизацию берёт другой экземпляр.
+    Метрика catalog.sync.lease.held — 1, пока экземпляр владеет арендой
+ */
+@Slf4j
+@Service
+public class SyncLeaseService implements MeterBinder {
+
+    static final String PRODUCT_SYNC = "product-sync";
+
+    private final SyncLeaseRepository syncLeaseRepository;
+    private final SyncLeaseProperties properties;
+    private final String nodeId;
+
+    private volatile boolean held;
+
+    public SyncLeaseService(SyncLeaseRepository syncLeaseRepository, SyncLeaseProperties properties) {
+        this.syncLeaseRepository = syncLeaseRepository;
+        this.properties = properties;
+        this.nodeId = properties.getNodeId().isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID().toString().substring(0, 8)
+                : properties.getNodeId();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("catalog.sync.lease.held", this, service -> service.isHeld() ? 1 : 0)
+                .description("Whether this node holds the sync lease")
+                .register(registry);
+    }
+
+    /*
+        Получение аренды для плановой синхронизации: только если её не выполнял ни один экземпляр
+        за последний app.import.lease.sync-interval
+     */
+    public boolean acquireIfDue() {
+        return acquire(true);
+    }
+
+    /*
+        Получение аренды для импорта независимо от времени последней синхронизации
+        @return false, если аренда принадлежит другому экземпляру
+     */
+    public boolean acquire() {
+        return acquire(false);
+    }
+
+    /*
+        Продление аренды, если экземпляр ею владеет
+        @return false, если аренда потеряна (истекла и взята другим экземпляром)
+     */
+    public boolean renew() {
+        if (!held) {
+            return true;
+        }
+        if (syncLeaseRepository.renew(PRODUCT_SYNC, nodeId, properties.getTtl())) {
+            return true;
+        }
+        held = false;
+        log.warn("Sync lease lost by node {}", nodeId);
+        return false;
+    }
+
+    /*
+        Освобождение аренды с записью результата синхронизации, другие экземпляры не запустят её
+        раньше app.import.lease.sync-interval
+     */
+    public void release(Instant runStartedAt, String runState) {
+        held = false;
+        if (!syncLeaseRepository.release(PRODUCT_SYNC, nodeId, runStartedAt, runState)) {
+            log.warn("Sync lease was taken over before node {} finished the run", nodeId);
+        }
+    }
+
+    public boolean isHeld() {
+        return held;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public SyncStatus getStatus() {
+        return new SyncStatus(nodeId, held, syncLeaseRepository.find(PRODUCT_SYNC).orElse(null));
+    }
+
+    private boolean acquire(boolean onlyIfDue) {
+        boolean acquired = syncLeaseRepository.tryAcquire(PRODUCT_SYNC, nodeId, properties.getTtl(),
+                onlyIfDue ? properties.getSyncInterval() : null);
+        if (acquired && !held) {
+            log.info("Sync lease acquired by node {}", nodeId);
+        }
+        // отказ по времени синхронизации не означает, что аренда принадлежит другому экземпляру
+        if (acquired || !onlyIfDue) {
+            held = acquired;
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,46 @@
+-- Схема каталога. Выполняется и на базе, созданной вручную до появления миграций
+-- (baseline-version=0), поэтому все объекты создаются только при их отсутствии
+
+CREATE TABLE IF NOT EXISTS category (
+    category_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS rating (
+    rating_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rate      DOUBLE PRECISION NOT NULL,
+    count     INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS product (
+    product_id  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title       VARCHAR(255) NOT NULL,
+    price       NUMERIC(10, 2) NOT NULL,
+    description VARCHAR(2000),
+    image       VARCHAR(255),
+    category_id BIGINT REFERENCES category (category_id),
+    rating_id   BIGINT UNIQUE REFERENCES rating (rating_id)
+);
+
+ALTER TABLE product ADD COLUMN IF NOT EXISTS fingerprint VARCHAR(64);
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE;
+
+CREATE TABLE IF NOT EXISTS category_stats (
+    category_id   BIGINT PRIMARY KEY REFERENCES category (category_id),
+    product_count BIGINT NOT NULL,
+    price_sum     NUMERIC(19, 2) NOT NULL,
+    min_price     NUMERIC(10, 2),
+    max_price     NUMERIC(10, 2),
+    rating_sum    DOUBLE PRECISION NOT NULL,
+    rating_count  BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS catalog_version (
+    id         BIGINT PRIMARY KEY,
+    version    BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO catalog_version (id, version, updated_at) VALUES (1, 0, now())
+ON CONFLICT (id) DO NOTHING;
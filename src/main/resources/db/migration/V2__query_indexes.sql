@@ -0,0 +1,13 @@
+-- Индексы под запросы чтения каталога
+
+-- поиск категории по названию (фильтр по категории, импорт, кэш категорий);
+-- уникальность защищает от дублей при одновременном создании категории на разных узлах
+CREATE UNIQUE INDEX IF NOT EXISTS category_name_uq ON category (name);
+
+-- фильтр и сортировка по цене (страницы и keyset-пагинация по price, product_id),
+-- category_id включён, чтобы подсчёт и пересчёт статистики не читали строки таблицы
+CREATE INDEX IF NOT EXISTS product_price_idx ON product (price, product_id) INCLUDE (category_id);
+
+-- товары категории по цене и min/max цены категории (category_stats.refreshMinMax),
+-- rating_id включён для пересчёта статистики категорий без чтения строк таблицы
+CREATE INDEX IF NOT EXISTS product_category_price_idx ON product (category_id, price, product_id) INCLUDE (rating_id);
@@ -0,0 +1,29 @@
+-- Идентификаторы из последовательностей с шагом 50 (pooled-оптимизатор Hibernate) вместо IDENTITY,
+-- чтобы Hibernate мог объединять вставки в пакеты. Hibernate резервирует диапазон (значение - 49, значение],
+-- поэтому последовательность начинается с max(id) + 50. Вставки через JDBC по-прежнему берут id
+-- из значения по умолчанию столбца (nextval), и их значения не пересекаются с диапазонами Hibernate
+
+DO $$
+DECLARE
+    t RECORD;
+    next_id BIGINT;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES ('category', 'category_id', 'category_seq'),
+                                   ('rating', 'rating_id', 'rating_seq'),
+                                   ('product', 'product_id', 'product_seq')) AS v(table_name, column_name, sequence_name)
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', t.sequence_name);
+        EXECUTE format('SELECT COALESCE(MAX(%I), 0) + 50 FROM %I', t.column_name, t.table_name) INTO next_id;
+        PERFORM setval(t.sequence_name::regclass, next_id, false);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP IDENTITY IF EXISTS', t.table_name, t.column_name);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I SET DEFAULT nextval(%L)', t.table_name, t.column_name, t.sequence_name);
+        EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.%I', t.sequence_name, t.table_name, t.column_name);
+    END LOOP;
+END
+$$;
+
+-- Импорт хранит id товара во внешнем api отдельно от product_id: записанные им id совпадали бы
+-- с диапазонами Hibernate. Товары, созданные через api приложения, external_id не имеют
+ALTER TABLE product ADD COLUMN IF NOT EXISTS external_id BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS product_external_id_idx ON product (external_id);
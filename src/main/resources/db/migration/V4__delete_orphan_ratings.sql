@@ -0,0 +1,7 @@
+-- Однократное удаление рейтингов, на которые не ссылается ни один товар.
+-- Раньше редактирование товара создавало новый рейтинг, а старый оставался в таблице;
+-- теперь рейтинг изменяется на месте и удаляется вместе с товаром.
+-- product.rating_id уникален, поэтому проверка NOT EXISTS идёт по индексу
+
+DELETE FROM rating r
+WHERE NOT EXISTS (SELECT 1 FROM product p WHERE p.rating_id = r.rating_id);
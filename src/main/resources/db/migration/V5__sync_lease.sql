@@ -0,0 +1,15 @@
+-- Аренда (lease) для плановой синхронизации товаров на нескольких экземплярах приложения.
+-- Владелец продлевает аренду, пока выполняет импорт; после истечения expires_at её может взять другой экземпляр.
+-- Время последнего запуска хранится здесь же, чтобы синхронизация выполнялась один раз за интервал на весь кластер
+
+CREATE TABLE IF NOT EXISTS sync_lease (
+    name                 VARCHAR(64) PRIMARY KEY,
+    owner                VARCHAR(255) NOT NULL,
+    acquired_at          TIMESTAMP WITH TIME ZONE NOT NULL,
+    heartbeat_at         TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at           TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_run_owner       VARCHAR(255),
+    last_run_started_at  TIMESTAMP WITH TIME ZONE,
+    last_run_finished_at TIMESTAMP WITH TIME ZONE,
+    last_run_state       VARCHAR(16)
+);
@@ -0,0 +1,54 @@
+-- Лента изменений товаров: по одной строке на товар с номером последнего изменения (повторные изменения
+-- одного товара объединяются), удалённые товары остаются с deleted = true.
+-- Номера выдаёт триггер под блокировкой строки catalog_version, которую изменяющая товары транзакция
+-- всё равно берёт (CatalogVersionService.bump), поэтому порядок номеров совпадает с порядком фиксации
+-- и читатель с since = N не пропустит изменение, зафиксированное позже с меньшим номером.
+-- Блокировка берётся триггером перед выполнением запроса, до блокировок строк товаров,
+-- поэтому транзакции, изменяющие одни и те же товары, не блокируют друг друга взаимно
+
+CREATE SEQUENCE IF NOT EXISTS product_change_seq;
+
+CREATE TABLE IF NOT EXISTS product_change (
+    product_id BIGINT PRIMARY KEY,
+    seq        BIGINT NOT NULL,
+    deleted    BOOLEAN NOT NULL,
+    changed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS product_change_seq_idx ON product_change (seq);
+
+CREATE OR REPLACE FUNCTION lock_catalog_version() RETURNS trigger AS $$
+BEGIN
+    PERFORM 1 FROM catalog_version WHERE id = 1 FOR UPDATE;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_product_change() RETURNS trigger AS $$
+DECLARE
+    changed_id BIGINT;
+BEGIN
+    changed_id := CASE WHEN TG_OP = 'DELETE' THEN OLD.product_id ELSE NEW.product_id END;
+    INSERT INTO product_change (product_id, seq, deleted, changed_at)
+    VALUES (changed_id, nextval('product_change_seq'), TG_OP = 'DELETE', now())
+    ON CONFLICT (product_id) DO UPDATE
+        SET seq = EXCLUDED.seq, deleted = EXCLUDED.deleted, changed_at = EXCLUDED.changed_at;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS product_change_lock_trigger ON product;
+CREATE TRIGGER product_change_lock_trigger
+    BEFORE INSERT OR UPDATE OR DELETE ON product
+    FOR EACH STATEMENT EXECUTE FUNCTION lock_catalog_version();
+
+DROP TRIGGER IF EXISTS product_change_trigger ON product;
+CREATE TRIGGER product_change_trigger
+    AFTER INSERT OR UPDATE OR DELETE ON product
+    FOR EACH ROW EXECUTE FUNCTION record_product_change();
+
+-- существующие товары попадают в ленту, чтобы потребитель мог начать с since = 0
+INSERT INTO product_change (product_id, seq, deleted, changed_at)
+SELECT product_id, nextval('product_change_seq'), false, now()
+FROM (SELECT product_id FROM product ORDER BY product_id) p
+ON CONFLICT (product_id) DO NOTHING;
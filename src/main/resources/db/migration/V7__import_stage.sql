@@ -0,0 +1,31 @@
+-- Товары импорта из нескольких источников до слияния. Источники загружаются параллельно и записывают товары сюда
+-- порциями по мере разбора ответа, поэтому импорт не держит в памяти ни ответы, ни каталог целиком.
+-- После загрузки всех источников товары читаются порциями по id; из товаров с одинаковым id берётся товар источника
+-- с меньшим рангом (приоритет, затем имя), внутри источника — с меньшей страницей.
+-- Строки последнего успешного импорта (import_stage_run) остаются до следующего: источник, ответивший
+-- 304 Not Modified, копирует из них свои товары. Таблица не журналируется: после сбоя её содержимое не нужно
+
+CREATE UNLOGGED TABLE IF NOT EXISTS import_stage (
+    stage_id    BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    run_id      UUID NOT NULL,
+    source      VARCHAR(255) NOT NULL,
+    source_rank INTEGER NOT NULL,
+    page        INTEGER NOT NULL,
+    product_id  BIGINT,
+    title       TEXT NOT NULL,
+    price       NUMERIC NOT NULL,
+    description TEXT,
+    image       TEXT,
+    category    TEXT NOT NULL,
+    rate        DOUBLE PRECISION,
+    rate_count  INTEGER
+);
+
+CREATE INDEX IF NOT EXISTS import_stage_merge_idx ON import_stage (run_id, product_id, source_rank, page, stage_id);
+
+CREATE INDEX IF NOT EXISTS import_stage_source_idx ON import_stage (source, run_id);
+
+CREATE UNLOGGED TABLE IF NOT EXISTS import_stage_run (
+    run_id       UUID PRIMARY KEY,
+    committed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,62 @@
+package com.example.testTask.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+    }
+
+    /**
+     * Проверяет, что соединение сверх лимита не выдаётся, пока не закрыто предыдущее,
+     * а повторное закрытие не возвращает лишнее разрешение
+     */
+    @Test
+    void getConnection_OverLimit_ShouldWaitForClose() throws SQLException {
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+
+        Connection first = dataSource.getConnection();
+        assertEquals(1, dataSource.getActiveConnections());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        Connection second = dataSource.getConnection();
+        assertEquals(1, dataSource.getActiveConnections());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        second.close();
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+
+    /**
+     * Проверяет, что разрешение возвращается, если пул не выдал соединение
+     */
+    @Test
+    void getConnection_WhenPoolFails_ShouldReleasePermit() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("pool is closed"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.testTask.config;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение пропускной способности и p99 обработки запросов на потоках платформы и виртуальных потоках.
+ * Запрос моделирует обработчик api: блокирующий вызов внешнего сервиса и короткий запрос к базе данных
+ * через ConnectionLimitingDataSource с пулом из 10 соединений. Потоков платформы — 200, как у Tomcat по умолчанию.
+ * Запускается отдельно: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class ThreadModeBenchmark {
+
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 2_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int POOL_SIZE = 10;
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(20);
+    private static final Duration QUERY_TIME = Duration.ofMillis(1);
+
+    /**
+     * Выводит пропускную способность, p50 и p99 для обоих режимов
+     */
+    @Test
+    void compareThreadModes() throws Exception {
+        run(Executors.newFixedThreadPool(PLATFORM_THREADS), REQUESTS / 10);
+        run(Executors.newVirtualThreadPerTaskExecutor(), REQUESTS / 10);
+
+        Result platform = run(Executors.newFixedThreadPool(PLATFORM_THREADS), REQUESTS);
+        Result virtual = run(Executors.newVirtualThreadPerTaskExecutor(), REQUESTS);
+
+        System.out.printf("%-10s %12s %10s %10s%n", "mode", "requests/s", "p50, ms", "p99, ms");
+        System.out.printf("%-10s %12.0f %10.1f %10.1f%n", "platform", platform.throughput(), platform.p50Ms(), platform.p99Ms());
+        System.out.printf("%-10s %12.0f %10.1f %10.1f%n", "virtual", virtual.throughput(), virtual.p50Ms(), virtual.p99Ms());
+        assertEquals(REQUESTS, platform.completed());
+        assertEquals(REQUESTS, virtual.completed());
+    }
+
+    /*
+        Выполнение requests запросов, не больше CONCURRENCY одновременно (как у клиентов с ограниченным числом
+        соединений). Задержка считается от отправки запроса, поэтому включает ожидание свободного потока
+     */
+    private Result run(ExecutorService executor, int requests) throws InterruptedException {
+        ConnectionLimitingDataSource dataSource =
+                new ConnectionLimitingDataSource(new StubDataSource(), POOL_SIZE, Duration.ofSeconds(30));
+        long[] latencies = new long[requests];
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger completed = new AtomicInteger();
+        long start = System.nanoTime();
+        try (executor) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                int request = i;
+                long submitted = System.nanoTime();
+                executor.execute(() -> {
+                    try {
+                        handle(dataSource);
+                        completed.incrementAndGet();
+                    } finally {
+                        latencies[request] = System.nanoTime() - submitted;
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(completed.get(), requests * 1e9 / elapsed,
+                latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.99)] / 1e6);
+    }
+
+    private static void handle(ConnectionLimitingDataSource dataSource) {
+        try {
+            Thread.sleep(UPSTREAM_LATENCY);
+            try (Connection connection = dataSource.getConnection()) {
+                Thread.sleep(QUERY_TIME);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Result(int completed, double throughput, double p50Ms, double p99Ms) {
+    }
+
+    private static final class StubDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.testTask.config;
+
+import com.example.testTask.config.UpstreamCallStats.Outcome;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Проверка клиента внешнего api на локальном сервере-заглушке, который добавляет задержки и ошибки
+ */
+class UpstreamClientTest {
+
+    private static final String PRODUCTS = "[{\"id\":1,\"title\":\"Laptop\"}]";
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failFirst;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile String acceptEncoding;
+    private volatile Duration chunkDelay = Duration.ZERO;
+    private volatile int stallAfterChunk = Integer.MAX_VALUE;
+
+    private UpstreamClientProperties properties;
+    private UpstreamCircuitBreaker circuitBreaker;
+    private UpstreamCallStats stats;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/products", this::handle);
+        server.createContext("/catalog", this::handleSlowBody);
+        server.start();
+
+        properties = new UpstreamClientProperties();
+        properties.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        properties.setReadTimeout(Duration.ofMillis(200));
+        properties.setInitialBackoff(Duration.ofMillis(10));
+        properties.setMaxBackoff(Duration.ofMillis(20));
+        stats = new UpstreamCallStats();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private RestClient client() {
+        circuitBreaker = new UpstreamCircuitBreaker(properties.getFailureThreshold(), properties.getOpenDuration());
+        return new AppConfig().restClient(properties, circuitBreaker, stats, ObservationRegistry.NOOP);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int request = requests.incrementAndGet();
+        acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (request <= failFirst) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(PRODUCTS.getBytes(StandardCharsets.UTF_8));
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, compressed.size());
+        try (OutputStream body = exchange.getResponseBody()) {
+            compressed.writeTo(body);
+        }
+    }
+
+    /*
+        Тело из 10 частей с паузой chunkDelay между ними; после части stallAfterChunk сервер замолкает на секунду
+     */
+    private void handleSlowBody(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write('[');
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(i > stallAfterChunk ? 1000 : chunkDelay.toMillis());
+                body.write(((i > 0 ? "," : "") + i).getBytes(StandardCharsets.UTF_8));
+                body.flush();
+            }
+            body.write(']');
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+            // клиент закрыл соединение по тайм-ауту
+        }
+    }
+
+    /**
+     * Проверяет, что тайм-аут чтения ограничивает паузу в передаче, а не весь ответ:
+     * тело, которое передаётся дольше тайм-аута без долгих пауз, читается целиком
+     */
+    @Test
+    void get_WithSlowSteadyBody_ShouldReadWholeBody() {
+        chunkDelay = Duration.ofMillis(50);
+
+        String body = client().get().uri("/catalog").retrieve().body(String.class);
+
+        assertEquals("[0,1,2,3,4,5,6,7,8,9]", body);
+    }
+
+    /**
+     * Проверяет, что остановившаяся на середине передача тела прерывается по тайм-ауту чтения
+     */
+    @Test
+    void get_WhenBodyStalls_ShouldTimeOut() {
+        stallAfterChunk = 3;
+        RestClient client = client();
+
+        long start = System.nanoTime();
+        RestClientException e = assertThrows(RestClientException.class,
+                () -> client.get().uri("/catalog").retrieve().body(String.class));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(900)) < 0);
+        assertInstanceOf(HttpTimeoutException.class, e.getMostSpecificCause());
+    }
+
+    /**
+     * Проверяет, что ответ 503 повторяется с задержкой, а сжатый ответ распаковывается
+     */
+    @Test
+    void get_WithTransientErrors_ShouldRetryAndDecompress() {
+        failFirst = 2;
+
+        String body = client().get().uri("/products").retrieve().body(String.class);
+
+        assertEquals(PRODUCTS, body);
+        assertEquals("gzip", acceptEncoding);
+        assertEquals(3, requests.get());
+        assertEquals(2, stats.getRetries());
+        assertEquals(2, stats.getCount(Outcome.SERVER_ERROR));
+        assertEquals(1, stats.getCount(Outcome.SUCCESS));
+        assertEquals(UpstreamCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    /**
+     * Проверяет, что зависший ответ прерывается по тайм-ауту чтения после всех попыток
+     */
+    @Test
+    void get_WhenUpstreamHangs_ShouldTimeOut() {
+        latency = Duration.ofMillis(1000);
+        properties.setMaxAttempts(2);
+        RestClient client = client();
+
+        long start = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () -> client.get().uri("/products").retrieve().body(String.class));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(900)) < 0);
+        assertEquals(2, stats.getCount(Outcome.IO_ERROR));
+    }
+
+    /**
+     * Проверяет, что после серии ошибок размыкатель отклоняет запросы, не обращаясь к серверу
+     */
+    @Test
+    void get_AfterRepeatedFailures_ShouldOpenCircuit() {
+        failFirst = Integer.MAX_VALUE;
+        properties.setMaxAttempts(1);
+        properties.setFailureThreshold(2);
+        RestClient client = client();
+
+        assertThrows(HttpServerErrorException.class, () -> client.get().uri("/products").retrieve().body(String.class));
+        assertThrows(HttpServerErrorException.class, () -> client.get().uri("/products").retrieve().body(String.class));
+        assertThrows(ResourceAccessException.class, () -> client.get().uri("/products").retrieve().body(String.class));
+
+        assertEquals(2, requests.get());
+        assertEquals(1, stats.getCount(Outcome.REJECTED));
+        assertEquals(UpstreamCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.testTask.controller;
+
+import com.example.testTask.config.HttpCacheProperties;
+import com.example.testTask.dto.CatalogVersion;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.service.CatalogVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConditionalRequestsTest {
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    private ConditionalRequests conditionalRequests;
+    private MockHttpServletRequest servletRequest;
+    private MockHttpServletResponse servletResponse;
+    private ServletWebRequest request;
+
+    private final CatalogVersion catalog = new CatalogVersion(5, Instant.parse("2026-01-01T00:00:00Z"));
+
+    @BeforeEach
+    void setUp() {
+        HttpCacheProperties properties = new HttpCacheProperties();
+        properties.setMaxAge(Duration.ofSeconds(30));
+        conditionalRequests = new ConditionalRequests(catalogVersionService, properties);
+        servletRequest = new MockHttpServletRequest("GET", "/api/products");
+        servletResponse = new MockHttpServletResponse();
+        request = new ServletWebRequest(servletRequest, servletResponse);
+    }
+
+    /**
+     * Проверяет ответ 304 на список при неизменной версии каталога
+     */
+    @Test
+    void isCatalogNotModified_WithCurrentETag_ShouldReturn304() {
+        when(catalogVersionService.current()).thenReturn(catalog);
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"5\"");
+
+        assertTrue(conditionalRequests.isCatalogNotModified(request));
+        assertEquals(304, servletResponse.getStatus());
+        assertTrue(servletResponse.getHeader(HttpHeaders.CACHE_CONTROL).contains("max-age=30"));
+    }
+
+    /**
+     * Проверяет, что после изменения каталога выдаётся новый ETag
+     */
+    @Test
+    void isCatalogNotModified_WithOutdatedETag_ShouldSetNewETag() {
+        when(catalogVersionService.current()).thenReturn(catalog);
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"4\"");
+
+        assertFalse(conditionalRequests.isCatalogNotModified(request));
+        assertEquals("W/\"5\"", servletResponse.getHeader(HttpHeaders.ETAG));
+        assertNotNull(servletResponse.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    /**
+     * Проверяет ответ 304 на товар по ETag текущей версии каталога без чтения товара
+     */
+    @Test
+    void isProductNotModified_WithCurrentCatalogVersion_ShouldReturn304() {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"4.1\", \"5.3\"");
+
+        assertTrue(conditionalRequests.isProductNotModified(request, catalog));
+        assertEquals(304, servletResponse.getStatus());
+        assertEquals("W/\"5.3\"", servletResponse.getHeader(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Проверяет, что после изменения каталога товар проверяется по его версии и получает новый ETag
+     */
+    @Test
+    void isProductNotModified_WithOutdatedCatalogVersion_ShouldCheckProductVersion() {
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"4.3\"");
+        ProductView product = new ProductView(1L, "Laptop", new BigDecimal("999.99"), null, null,
+                1L, "Electronics", null, null, null, 3, Instant.parse("2025-12-01T00:00:00Z"));
+
+        assertFalse(conditionalRequests.isProductNotModified(request, catalog));
+        assertFalse(conditionalRequests.isProductNotModified(request, catalog, product));
+        assertEquals("W/\"5.3\"", servletResponse.getHeader(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Проверяет, что ответ в двоичной кодировке получает свой ETag, а ETag json-ответа ему не подходит
+     */
+    @Test
+    void isCatalogNotModified_WithBinaryEncoding_ShouldUseEncodingETag() {
+        when(catalogVersionService.current()).thenReturn(catalog);
+        servletRequest.addHeader(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"5\"");
+
+        assertFalse(conditionalRequests.isCatalogNotModified(request));
+        assertEquals("W/\"cbor-5\"", servletResponse.getHeader(HttpHeaders.ETAG));
+        assertTrue(servletResponse.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * Проверяет выбор кодировки по Accept: наибольшее качество, при равном — первый тип, шаблон — json
+     */
+    @Test
+    void encoding_ShouldFollowAcceptHeader() {
+        assertEquals("", ConditionalRequests.encoding(request));
+
+        servletRequest.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json");
+        assertEquals("smile-", ConditionalRequests.encoding(request));
+
+        MockHttpServletRequest wildcard = new MockHttpServletRequest("GET", "/api/products");
+        wildcard.addHeader(HttpHeaders.ACCEPT, "*/*");
+        assertEquals("", ConditionalRequests.encoding(new ServletWebRequest(wildcard, servletResponse)));
+    }
+
+    /**
+     * Проверяет, что из If-Match берётся версия товара, а версия каталога не учитывается
+     */
+    @Test
+    void expectedProductVersion_ShouldReadProductVersionFromIfMatch() {
+        assertNull(conditionalRequests.expectedProductVersion(request));
+
+        servletRequest.addHeader(HttpHeaders.IF_MATCH, "\"4.3\"");
+        assertEquals(3L, conditionalRequests.expectedProductVersion(request));
+
+        MockHttpServletRequest weak = new MockHttpServletRequest("PUT", "/api/products/1");
+        weak.addHeader(HttpHeaders.IF_MATCH, "W/\"cbor-4.7\"");
+        assertEquals(7L, conditionalRequests.expectedProductVersion(new ServletWebRequest(weak, servletResponse)));
+    }
+
+    /**
+     * Проверяет отклонение If-Match, не являющегося ETag товара
+     */
+    @Test
+    void expectedProductVersion_WithCatalogETag_ShouldThrowException() {
+        servletRequest.addHeader(HttpHeaders.IF_MATCH, "\"5\"");
+
+        assertThrows(IllegalArgumentException.class, () -> conditionalRequests.expectedProductVersion(request));
+    }
+}
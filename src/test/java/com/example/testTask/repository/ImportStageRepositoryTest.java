@@ -0,0 +1,99 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.repository.ImportStageRepository.StagedProduct;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Слияние товаров нескольких источников в промежуточной таблице PostgreSQL со схемой из миграций.
+    Выполняется только при доступном Docker
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ImportStageRepository.class)
+class ImportStageRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ImportStageRepository importStageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static ProductDTO product(Long id, String title) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setPrice(new BigDecimal("10.50"));
+        dto.setCategory("Electronics");
+        return dto;
+    }
+
+    private static List<String> titles(List<StagedProduct> staged) {
+        return staged.stream().map(product -> product.product().getTitle()).toList();
+    }
+
+    /**
+     * Проверяет, что на каждый id берётся товар источника с меньшим рангом независимо от порядка записи,
+     * внутри источника — с меньшей страницей, а занятые id считаются дубликатами
+     */
+    @Test
+    void findMerged_ShouldKeepProductOfMostImportantSource() {
+        UUID runId = UUID.randomUUID();
+        importStageRepository.stage(runId, "secondary", 1, 1, List.of(product(1L, "secondary 1"), product(2L, "secondary 2")));
+        importStageRepository.stage(runId, "primary", 0, 2, List.of(product(1L, "primary 1 page 2")));
+        importStageRepository.stage(runId, "primary", 0, 1, List.of(product(1L, "primary 1"), product(3L, "primary 3")));
+        importStageRepository.stage(runId, "primary", 0, 1, List.of(product(null, "without id")));
+
+        List<StagedProduct> first = importStageRepository.findMerged(runId, Long.MIN_VALUE, 2);
+        List<StagedProduct> second = importStageRepository.findMerged(runId, first.getLast().product().getId(), 2);
+
+        assertEquals(List.of("primary 1", "secondary 2"), titles(first));
+        assertEquals(List.of("primary 3"), titles(second));
+        assertEquals(List.of("without id"), titles(importStageRepository.findWithoutId(runId, 0, 10)));
+        assertEquals(2, importStageRepository.countDuplicates(runId));
+    }
+
+    /**
+     * Проверяет, что товары источника копируются из последнего успешного импорта с новым рангом,
+     * а фиксация импорта удаляет строки прежних импортов
+     */
+    @Test
+    void copyCommitted_ShouldCopySourceFromLastCommittedRun() {
+        UUID previous = UUID.randomUUID();
+        importStageRepository.stage(previous, "cached", 0, 1, List.of(product(1L, "cached 1")));
+        importStageRepository.stage(previous, "fresh", 1, 1, List.of(product(2L, "fresh 2")));
+        importStageRepository.commit(previous);
+        UUID failed = UUID.randomUUID();
+        importStageRepository.stage(failed, "cached", 0, 1, List.of(product(5L, "failed 5")));
+
+        UUID current = UUID.randomUUID();
+        int copied = importStageRepository.copyCommitted(current, "cached", 2);
+        importStageRepository.stage(current, "fresh", 1, 1, List.of(product(1L, "fresh 1")));
+        importStageRepository.commit(current);
+
+        assertEquals(1, copied);
+        assertEquals(List.of("fresh 1"), titles(importStageRepository.findMerged(current, Long.MIN_VALUE, 10)));
+        assertEquals(List.of(current.toString()), jdbcTemplate.queryForList(
+                "SELECT DISTINCT run_id::text FROM import_stage", String.class));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.ProductChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Заполнение ленты изменений триггером на таблице product в PostgreSQL со схемой из миграций.
+    Выполняется только при доступном Docker
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductChangeRepository.class)
+class ProductChangeRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long since;
+
+    @BeforeEach
+    void setUp() {
+        since = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM product_change", Long.class);
+    }
+
+    private long insert(String title) {
+        return jdbcTemplate.queryForObject("INSERT INTO product (title, price) VALUES (?, 10) RETURNING product_id",
+                Long.class, title);
+    }
+
+    /**
+     * Проверяет, что повторные изменения товара объединяются в одно изменение с последним номером,
+     * а удалённый товар остаётся в ленте с признаком deleted
+     */
+    @Test
+    void findSince_ShouldCoalesceChangesAndKeepDeletes() {
+        long laptop = insert("Laptop");
+        long phone = insert("Phone");
+        jdbcTemplate.update("UPDATE product SET price = 20 WHERE product_id = ?", laptop);
+        jdbcTemplate.update("UPDATE product SET price = 30 WHERE product_id = ?", laptop);
+        jdbcTemplate.update("DELETE FROM product WHERE product_id = ?", phone);
+
+        List<ProductChange> changes = productChangeRepository.findSince(since, 10);
+
+        assertEquals(List.of(phone, laptop), changes.stream().map(ProductChange::productId).toList());
+        assertTrue(changes.get(0).deleted());
+        assertFalse(changes.get(1).deleted());
+        assertTrue(changes.get(0).seq() < changes.get(1).seq());
+        assertTrue(productChangeRepository.findSince(changes.get(1).seq(), 10).isEmpty());
+    }
+
+    /**
+     * Проверяет, что лента читается порциями по возрастанию номера изменения
+     */
+    @Test
+    void findSince_ShouldReturnChangesInSeqOrderWithLimit() {
+        long first = insert("First");
+        long second = insert("Second");
+        long third = insert("Third");
+
+        List<ProductChange> head = productChangeRepository.findSince(since, 2);
+        List<ProductChange> tail = productChangeRepository.findSince(head.getLast().seq(), 2);
+
+        assertEquals(List.of(first, second), head.stream().map(ProductChange::productId).toList());
+        assertEquals(List.of(third), tail.stream().map(ProductChange::productId).toList());
+    }
+}
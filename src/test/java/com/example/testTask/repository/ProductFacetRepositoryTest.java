@@ -0,0 +1,97 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.config.ProductFacetProperties;
+import com.example.testTask.dto.FacetCount;
+import com.example.testTask.dto.ProductFacets;
+import com.example.testTask.dto.RangeCount;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Фасеты проверяются на PostgreSQL (GROUPING SETS, COUNT(*) FILTER). Выполняется только при доступном Docker
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductFacetRepository.class, ProductFacetProperties.class})
+class ProductFacetRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ProductFacetRepository productFacetRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO category (name) VALUES ('Books'), ('Electronics')");
+        jdbcTemplate.update("INSERT INTO rating (rate, count) VALUES (4.5, 10), (5.0, 3), (2.2, 7)");
+        jdbcTemplate.update("INSERT INTO product (title, price, category_id, rating_id) VALUES " +
+                "('Novel', 15.00, (SELECT category_id FROM category WHERE name = 'Books'), " +
+                "(SELECT MIN(rating_id) FROM rating WHERE rate = 4.5)), " +
+                "('Laptop', 120.00, (SELECT category_id FROM category WHERE name = 'Electronics'), " +
+                "(SELECT MIN(rating_id) FROM rating WHERE rate = 5.0)), " +
+                "('Phone', 60.00, (SELECT category_id FROM category WHERE name = 'Electronics'), " +
+                "(SELECT MIN(rating_id) FROM rating WHERE rate = 2.2)), " +
+                "('Cable', 5.00, (SELECT category_id FROM category WHERE name = 'Electronics'), NULL)");
+    }
+
+    /**
+     * Проверяет все фасеты без фильтра
+     */
+    @Test
+    void find_WithoutFilter_ShouldCountAllFacets() {
+        ProductFacets facets = productFacetRepository.find(Filter.all(), new BigDecimal("50"));
+
+        assertEquals(4, facets.getTotal());
+        assertEquals(List.of(new FacetCount("Books", 1), new FacetCount("Electronics", 3)), facets.getCategories());
+        assertEquals(List.of(
+                new RangeCount(new BigDecimal("0"), new BigDecimal("50"), 2),
+                new RangeCount(new BigDecimal("50"), new BigDecimal("100"), 1),
+                new RangeCount(new BigDecimal("100"), new BigDecimal("150"), 1)), facets.getPrices());
+        assertEquals(List.of(
+                new RangeCount(new BigDecimal("2"), new BigDecimal("3"), 1),
+                new RangeCount(new BigDecimal("4"), new BigDecimal("5"), 2),
+                new RangeCount(null, null, 1)), facets.getRatings());
+    }
+
+    /**
+     * Проверяет, что фильтр по категории не сужает фасет категорий, но сужает остальные
+     */
+    @Test
+    void find_WithCategory_ShouldKeepSiblingCategoryCounts() {
+        ProductFacets facets = productFacetRepository.find(
+                new Filter(new BigDecimal("10"), null, "Electronics"), new BigDecimal("50"));
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(List.of(new FacetCount("Books", 1), new FacetCount("Electronics", 2)), facets.getCategories());
+        assertEquals(2, facets.getPrices().stream().mapToLong(RangeCount::count).sum());
+    }
+
+    /**
+     * Проверяет, что ширина интервала цен должна быть положительной
+     */
+    @Test
+    void find_WithZeroInterval_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> productFacetRepository.find(Filter.all(), BigDecimal.ZERO));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.model.Category;
+import com.example.testTask.model.Product;
+import com.example.testTask.model.Rating;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "spring.flyway.enabled=false"})
+class ProductRepositoryTest {
+
+    /**
+     * Запрос страницы и запрос общего количества
+     */
+    private static final long PAGE_BUDGET = 2;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCountGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("Electronics", "Books", "Clothing")) {
+            Category category = new Category();
+            category.setName(name);
+            entityManager.persist(category);
+            for (int i = 1; i <= 10; i++) {
+                Rating rating = new Rating();
+                rating.setRate(i / 2.0);
+                rating.setCount(i * 10);
+                entityManager.persist(rating);
+
+                Product product = new Product();
+                product.setTitle(name + " " + i);
+                product.setPrice(BigDecimal.valueOf(i * 10L));
+                product.setCategory(category);
+                product.setRating(rating);
+                entityManager.persist(product);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        guard = new QueryCountGuard(entityManagerFactory);
+    }
+
+    /**
+     * Проверяет, что страница всех товаров вместе с категориями и рейтингами загружается без N+1
+     */
+    @Test
+    void findAll_ShouldFetchCategoryAndRatingWithinBudget() {
+        Page<Product> page = guard.expectAtMost(PAGE_BUDGET, () -> touch(productRepository.findAll(PageRequest.of(0, 20))));
+
+        assertEquals(20, page.getNumberOfElements());
+        assertEquals(30, page.getTotalElements());
+    }
+
+    /**
+     * Проверяет, что сортировка по названию категории не нарушает пагинацию и не приводит к N+1
+     */
+    @Test
+    void findAll_SortedByCategory_ShouldPaginateCorrectlyWithinBudget() {
+        Sort sort = Sort.by(Sort.Order.asc("category.name"), Sort.Order.desc("price"));
+        Page<Product> page = guard.expectAtMost(PAGE_BUDGET, () -> touch(productRepository.findAll(PageRequest.of(1, 10, sort))));
+
+        assertEquals(10, page.getNumberOfElements());
+        assertEquals(30, page.getTotalElements());
+        assertTrue(page.getContent().stream().allMatch(product -> "Clothing".equals(product.getCategory().getName())));
+        assertEquals(new BigDecimal("100.00"), page.getContent().get(0).getPrice());
+    }
+
+    /**
+     * Проверяет загрузку одного товара вместе со связями одним запросом
+     */
+    @Test
+    void findById_ShouldFetchCategoryAndRatingInSingleStatement() {
+        Long id = productRepository.findAll(PageRequest.of(0, 1)).getContent().get(0).getId();
+        entityManager.clear();
+
+        Product product = guard.expectAtMost(1, () -> touch(productRepository.findById(id).orElseThrow()));
+
+        assertNotNull(product.getCategory().getName());
+    }
+
+    private Page<Product> touch(Page<Product> page) {
+        page.forEach(this::touch);
+        return page;
+    }
+
+    /*
+        Обращение к связям так же, как при сериализации ответа
+     */
+    private Product touch(Product product) {
+        assertNotNull(product.getCategory().getName());
+        assertNotNull(product.getRating().getRate());
+        return product;
+    }
+}
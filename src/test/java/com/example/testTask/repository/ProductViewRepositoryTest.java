@@ -0,0 +1,167 @@
+package com.example.testTask.repository;
+
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.model.Category;
+import com.example.testTask.model.Product;
+import com.example.testTask.model.Rating;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "spring.flyway.enabled=false"})
+@Import(ProductViewRepository.class)
+class ProductViewRepositoryTest {
+
+    @Autowired
+    private ProductViewRepository productViewRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long laptopId;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("Electronics", "Books", "Clothing")) {
+            Category category = new Category();
+            category.setName(name);
+            entityManager.persist(category);
+            for (int i = 1; i <= 10; i++) {
+                Rating rating = new Rating();
+                rating.setRate(i / 2.0);
+                rating.setCount(i * 10);
+                entityManager.persist(rating);
+
+                Product product = new Product();
+                product.setTitle(name + " " + i);
+                product.setPrice(BigDecimal.valueOf(i % 5 * 10L + 10));
+                product.setCategory(category);
+                product.setRating(rating);
+                product.setFingerprint("fp-" + name + i);
+                entityManager.persist(product);
+                if (laptopId == null) {
+                    laptopId = product.getId();
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Проверяет, что товар читается одной плоской строкой вместе с категорией и рейтингом
+     */
+    @Test
+    void findById_ShouldMapCategoryAndRating() {
+        ProductView view = productViewRepository.findById(laptopId).orElseThrow();
+
+        assertEquals("Electronics 1", view.title());
+        assertEquals(0, new BigDecimal("20").compareTo(view.price()));
+        assertEquals("Electronics", view.categoryName());
+        assertEquals(0.5, view.rate());
+        assertEquals(10, view.ratingCount());
+        assertEquals(0, view.version());
+    }
+
+    /**
+     * Проверяет постраничную выборку товаров категории с общим количеством
+     */
+    @Test
+    void findPage_ByCategory_ShouldReturnPageWithTotal() {
+        Page<ProductView> page = productViewRepository.findPage(Filter.categoryName("Books"), PageRequest.of(1, 4));
+
+        assertEquals(4, page.getNumberOfElements());
+        assertEquals(10, page.getTotalElements());
+        assertTrue(page.getContent().stream().allMatch(view -> "Books".equals(view.categoryName())));
+    }
+
+    /**
+     * Проверяет фильтрацию по цене и сортировку по категории и цене
+     */
+    @Test
+    void findPage_ByPriceSorted_ShouldApplyFilterAndOrder() {
+        Sort sort = Sort.by(Sort.Order.desc("category.name"), Sort.Order.asc("price"));
+        Page<ProductView> page = productViewRepository.findPage(
+                Filter.priceBetween(new BigDecimal("20"), new BigDecimal("30")), PageRequest.of(0, 20, sort));
+
+        assertEquals(12, page.getTotalElements());
+        assertEquals("Electronics", page.getContent().get(0).categoryName());
+        assertEquals(0, new BigDecimal("20").compareTo(page.getContent().get(0).price()));
+        assertEquals("Books", page.getContent().get(11).categoryName());
+    }
+
+    /**
+     * Проверяет, что keyset-выборка по страницам проходит все товары без пропусков и повторов
+     * при сортировке с равными значениями ключей
+     */
+    @Test
+    void findAfter_ShouldWalkAllProductsWithoutGapsOrDuplicates() {
+        Sort sort = Sort.by(Sort.Order.desc("price"), Sort.Order.asc("category.name"), Sort.Order.asc("id"));
+        Set<Long> seen = new HashSet<>();
+        Map<String, Object> after = Map.of();
+        BigDecimal previousPrice = null;
+        while (true) {
+            List<ProductView> rows = productViewRepository.findAfter(Filter.all(), sort, after, 7);
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (ProductView view : rows) {
+                assertTrue(seen.add(view.id()));
+                assertTrue(previousPrice == null || previousPrice.compareTo(view.price()) >= 0);
+                previousPrice = view.price();
+            }
+            ProductView last = rows.get(rows.size() - 1);
+            after = Map.of("price", last.price(), "category.name", last.categoryName(), "id", last.id());
+        }
+
+        assertEquals(30, seen.size());
+    }
+
+    /**
+     * Проверяет, что keyset-выборка с ключами одного направления (сравнение строк) проходит все товары
+     * без пропусков и повторов
+     */
+    @Test
+    void findAfter_WithSameDirections_ShouldWalkAllProducts() {
+        Sort sort = Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"));
+        Set<Long> seen = new HashSet<>();
+        Map<String, Object> after = Map.of();
+        BigDecimal previousPrice = null;
+        while (true) {
+            List<ProductView> rows = productViewRepository.findAfter(Filter.all(), sort, after, 7);
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (ProductView view : rows) {
+                assertTrue(seen.add(view.id()));
+                assertTrue(previousPrice == null || previousPrice.compareTo(view.price()) <= 0);
+                previousPrice = view.price();
+            }
+            ProductView last = rows.get(rows.size() - 1);
+            after = Map.of("price", last.price(), "id", last.id());
+        }
+
+        assertEquals(30, seen.size());
+    }
+
+    /**
+     * Проверяет, что неизвестное свойство сортировки отклоняется
+     */
+    @Test
+    void findPage_WithUnknownSortProperty_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> productViewRepository.findPage(
+                Filter.all(), PageRequest.of(0, 10, Sort.by("title"))));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.testTask.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Ограничение количества SQL-запросов, выполняемых в тесте (по статистике Hibernate)
+ */
+class QueryCountGuard {
+
+    private final Statistics statistics;
+
+    QueryCountGuard(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    /**
+     * Выполняет действие и проверяет, что оно уложилось в заданное количество запросов
+     * @param budget допустимое количество запросов
+     * @param action проверяемое действие
+     */
+    <T> T expectAtMost(long budget, Supplier<T> action) {
+        statistics.clear();
+        T result = action.get();
+        long executed = statistics.getPrepareStatementCount();
+        if (executed > budget) {
+            fail("Expected at most " + budget + " statements, but " + executed + " were executed");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.testTask.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Проверка планов запросов чтения каталога на PostgreSQL со схемой из миграций Flyway.
+    Выполняется только при доступном Docker
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String SELECT = "SELECT p.product_id, p.title, p.price, p.description, p.image, p.version, " +
+            "p.updated_at, c.category_id, c.name AS category_name, r.rating_id, r.rate, r.count " +
+            "FROM product p " +
+            "LEFT JOIN category c ON c.category_id = p.category_id " +
+            "LEFT JOIN rating r ON r.rating_id = p.rating_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO category (name) SELECT 'Category ' || i FROM generate_series(1, 2000) i");
+        jdbcTemplate.update("INSERT INTO product (title, price, category_id) " +
+                "SELECT 'Product ' || i, (i * 7919 % 100000) / 100.0, " +
+                "(SELECT MIN(category_id) FROM category) + i % 2000 FROM generate_series(1, 100000) i");
+        jdbcTemplate.execute("ANALYZE category");
+        jdbcTemplate.execute("ANALYZE product");
+    }
+
+    /**
+     * Проверяет, что фильтр по цене с сортировкой по цене читает индекс product_price_idx
+     */
+    @Test
+    void priceRangePage_ShouldUsePriceIndex() {
+        String plan = explain(SELECT + " WHERE p.price >= 10 AND p.price <= 11 " +
+                "ORDER BY p.price ASC, p.product_id ASC LIMIT 20");
+
+        assertTrue(plan.contains("product_price_idx"), plan);
+    }
+
+    /**
+     * Проверяет, что граница keyset-страницы по цене (сравнение строк) становится условием индекса product_price_idx
+     */
+    @Test
+    void priceKeysetPage_ShouldUsePriceIndex() {
+        String plan = explain(SELECT + " WHERE p.price >= 10 AND p.price <= 900 " +
+                "AND (p.price, p.product_id) > (500, 1000) " +
+                "ORDER BY p.price ASC, p.product_id ASC LIMIT 20");
+
+        assertTrue(plan.contains("product_price_idx"), plan);
+        assertTrue(plan.lines().anyMatch(line -> line.contains("Index Cond") && line.contains("ROW(price, product_id) > ROW(")), plan);
+    }
+
+    /**
+     * Проверяет, что товары категории ищутся по уникальному индексу названия и индексу (category_id, price)
+     */
+    @Test
+    void categoryPage_ShouldUseCategoryIndexes() {
+        String plan = explain(SELECT + " WHERE c.name = 'Category 7' ORDER BY p.price ASC, p.product_id ASC LIMIT 20");
+
+        assertTrue(plan.contains("category_name_uq"), plan);
+        assertTrue(plan.contains("product_category_price_idx"), plan);
+    }
+
+    /**
+     * Проверяет, что подсчёт товаров в ценовом диапазоне читает индекс product_price_idx без соединения с категориями
+     */
+    @Test
+    void priceRangeCount_ShouldUsePriceIndex() {
+        String plan = explain("SELECT COUNT(*) FROM product p LEFT JOIN category c ON c.category_id = p.category_id " +
+                "WHERE p.price >= 10 AND p.price <= 11");
+
+        assertTrue(plan.contains("product_price_idx"), plan);
+        assertFalse(plan.contains(" on category "), plan);
+    }
+
+    /**
+     * Проверяет, что пересчёт min/max цены категории читает индекс (category_id, price), а не всю таблицу
+     */
+    @Test
+    void categoryMinPrice_ShouldUseCategoryPriceIndex() {
+        String plan = explain("SELECT MIN(p.price) FROM product p WHERE p.category_id = " +
+                "(SELECT category_id FROM category WHERE name = 'Category 7')");
+
+        assertTrue(plan.contains("product_category_price_idx"), plan);
+        assertFalse(plan.contains("Seq Scan on product"), plan);
+    }
+
+    private String explain(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogCacheEvictorTest {
+
+    private CacheManager cacheManager;
+    private ProductJsonCache productJsonCache;
+    private CatalogCacheEvictor catalogCacheEvictor;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(
+                CacheConfig.PRODUCTS, CacheConfig.PRODUCT_QUERIES, CacheConfig.CATEGORIES);
+        productJsonCache = mock(ProductJsonCache.class);
+        catalogCacheEvictor = new CatalogCacheEvictor(cacheManager, productJsonCache);
+
+        cacheManager.getCache(CacheConfig.PRODUCTS).put(1L, "Laptop");
+        cacheManager.getCache(CacheConfig.PRODUCTS).put(2L, "Book");
+        cacheManager.getCache(CacheConfig.PRODUCT_QUERIES).put("page", "Laptop, Book");
+        cacheManager.getCache(CacheConfig.CATEGORIES).put("all", "Electronics, Books");
+    }
+
+    /**
+     * Проверяет, что изменение товара сбрасывает только его запись по id и все результаты запросов
+     */
+    @Test
+    void onCatalogChanged_ShouldEvictChangedProductsAndClearQueries() {
+        catalogCacheEvictor.onCatalogChanged(CatalogChangedEvent.of(Set.of(1L)));
+
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTS).get(1L));
+        assertNotNull(cacheManager.getCache(CacheConfig.PRODUCTS).get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_QUERIES).get("page"));
+        assertNull(cacheManager.getCache(CacheConfig.CATEGORIES).get("all"));
+        verify(productJsonCache).evictAll(Set.of(1L));
+    }
+
+    /**
+     * Проверяет, что изменение без затронутых товаров (создание) сохраняет записи по id
+     */
+    @Test
+    void onCatalogChanged_WithoutProducts_ShouldKeepProductsById() {
+        catalogCacheEvictor.onCatalogChanged(CatalogChangedEvent.of(Set.of()));
+
+        assertNotNull(cacheManager.getCache(CacheConfig.PRODUCTS).get(1L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCT_QUERIES).get("page"));
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ImportProperties;
+import com.example.testTask.dto.ImportChunkReport;
+import com.example.testTask.dto.ImportProgress;
+import com.example.testTask.dto.ImportReport;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.repository.ImportStageRepository;
+import com.example.testTask.repository.ImportStageRepository.StagedProduct;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogImportServiceTest {
+
+    @Mock
+    private ProductImportWriter productImportWriter;
+
+    @Mock
+    private ImportStageRepository importStageRepository;
+
+    @Captor
+    private ArgumentCaptor<List<ProductDTO>> chunkCaptor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ImportProperties importProperties = new ImportProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ImportMetrics importMetrics = new ImportMetrics(meterRegistry);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    /*
+        Записанные в промежуточную таблицу товары: "источник/ранг/страница/id"
+     */
+    private final List<String> staged = new CopyOnWriteArrayList<>();
+    private ProductImportPipeline productImportPipeline;
+
+    @BeforeEach
+    void setUp() {
+        importProperties.setChunkSize(100);
+        importProperties.setFetchConcurrency(2);
+        productImportPipeline = new ProductImportPipeline(objectMapper, productImportWriter, importProperties, importMetrics);
+        lenient().when(productImportWriter.writeChunk(anyList())).thenAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(0);
+            return new ImportChunkReport(chunk.size(), 0, 0, 0, 1);
+        });
+        lenient().doAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(4);
+            chunk.forEach(dto -> staged.add(invocation.getArgument(1) + "/" + invocation.getArgument(2) + "/"
+                    + invocation.getArgument(3) + "/" + dto.getId()));
+            return null;
+        }).when(importStageRepository).stage(any(), anyString(), anyInt(), anyInt(), anyList());
+        lenient().when(importStageRepository.findMerged(any(), anyLong(), anyInt())).thenReturn(List.of());
+        lenient().when(importStageRepository.findWithoutId(any(), anyLong(), anyInt())).thenReturn(List.of());
+    }
+
+    private static StagedProduct staged(long id, String title) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setPrice(new BigDecimal("10.50"));
+        dto.setCategory("Electronics");
+        return new StagedProduct(id, dto);
+    }
+
+    /*
+        Источник-заглушка: страницы по pageSize товаров с задержкой delayMs, всего total товаров
+     */
+    private ImportSource source(String name, int priority, long idOffset, int total, int pageSize, long delayMs) {
+        return new ImportSource() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getPriority() {
+                return priority;
+            }
+
+            @Override
+            public long getIdOffset() {
+                return idOffset;
+            }
+
+            @Override
+            public boolean isPaginated() {
+                return pageSize < total;
+            }
+
+            @Override
+            public int getMaxPages() {
+                return 100;
+            }
+
+            @Override
+            public Page fetch(int page, PageReader reader) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                ArrayNode items = objectMapper.createArrayNode();
+                for (int id = (page - 1) * pageSize + 1; id <= Math.min(page * pageSize, total); id++) {
+                    items.addObject()
+                            .put("id", id)
+                            .put("title", name + " " + id)
+                            .put("price", 10.5)
+                            .put("category", "Electronics");
+                }
+                int count = reader.read(new ByteArrayInputStream(items.toString().getBytes()));
+                return new Page(count, count < pageSize || page * pageSize >= total, false);
+            }
+        };
+    }
+
+    /**
+     * Проверяет, что товары источников записываются в промежуточную таблицу с рангом по приоритету и имени
+     * и со смещением id, а слияние записывает товары, отобранные таблицей, и учитывает занятые id как пропущенные
+     */
+    @Test
+    void importAll_ShouldStageSourcesByRankAndWriteMergedProducts() {
+        ImportSource slowPrimary = source("primary", 0, 0, 2, 2, 100);
+        ImportSource secondary = source("secondary", 1, 0, 3, 3, 0);
+        ImportSource offsetSupplier = source("supplier", 1, 1000, 1, 1, 0);
+        CatalogImportService service = new CatalogImportService(importProperties, productImportPipeline,
+                importStageRepository, importMetrics, List.of(offsetSupplier, secondary, slowPrimary));
+        when(importStageRepository.countDuplicates(any())).thenReturn(2);
+        when(importStageRepository.findMerged(any(), eq(Long.MIN_VALUE), eq(100)))
+                .thenReturn(List.of(staged(1, "primary 1"), staged(2, "primary 2"), staged(3, "secondary 3")));
+
+        ImportReport report = service.importAll(new ImportProgress());
+
+        assertEquals(List.of("primary/0/1/1", "primary/0/1/2"), staged.stream().filter(s -> s.startsWith("primary")).sorted().toList());
+        assertEquals(List.of("secondary/1/1/1", "secondary/1/1/2", "secondary/1/1/3"),
+                staged.stream().filter(s -> s.startsWith("secondary")).sorted().toList());
+        assertEquals(List.of("supplier/2/1/1001"), staged.stream().filter(s -> s.startsWith("supplier")).sorted().toList());
+        verify(importStageRepository).findMerged(any(), eq(3L), eq(100));
+        verify(productImportWriter).writeChunk(chunkCaptor.capture());
+        assertEquals(List.of("primary 1", "primary 2", "secondary 3"),
+                chunkCaptor.getValue().stream().map(ProductDTO::getTitle).toList());
+        assertEquals(3, report.getInserted());
+        assertEquals(2, report.getSkipped());
+        verify(importStageRepository).commit(any());
+        verify(importStageRepository, never()).discard(any());
+    }
+
+    /**
+     * Проверяет, что источники и страницы загружаются параллельно, но не больше app.import.fetch-concurrency запросов сразу
+     */
+    @Test
+    void importAll_ShouldFetchSourcesAndPagesInParallelWithinLimit() {
+        importProperties.setFetchConcurrency(3);
+        CatalogImportService service = new CatalogImportService(importProperties, productImportPipeline,
+                importStageRepository, importMetrics,
+                List.of(source("paged", 0, 0, 50, 10, 50), source("flat", 0, 1000, 5, 5, 50)));
+        ImportProgress progress = new ImportProgress();
+
+        service.importAll(progress);
+
+        assertEquals(55, staged.size());
+        assertEquals(55, progress.getFetched());
+        assertEquals(3, maxInFlight.get());
+    }
+
+    /**
+     * Проверяет, что страницы, запрошенные окном после последней, удаляются из промежуточной таблицы
+     */
+    @Test
+    void importAll_ShouldDeletePagesFetchedAfterLastOne() {
+        CatalogImportService service = new CatalogImportService(importProperties, productImportPipeline,
+                importStageRepository, importMetrics, List.of(source("paged", 0, 0, 25, 10, 0)));
+
+        service.importAll(new ImportProgress());
+
+        verify(importStageRepository).deletePagesAfter(any(), eq("paged"), eq(3));
+    }
+
+    /**
+     * Проверяет, что время стадий записывается по источникам, а записанные товары — по результату записи
+     */
+    @Test
+    void importAll_ShouldRecordStageMetrics() {
+        CatalogImportService service = new CatalogImportService(importProperties, productImportPipeline,
+                importStageRepository, importMetrics,
+                List.of(source("paged", 0, 0, 20, 10, 0), source("flat", 1, 1000, 5, 5, 0)));
+        when(importStageRepository.findMerged(any(), eq(Long.MIN_VALUE), anyInt()))
+                .thenReturn(List.of(staged(1, "paged 1"), staged(2, "paged 2")));
+
+        service.importAll(new ImportProgress());
+
+        assertEquals(2, meterRegistry.get("catalog.import.stage").tags("stage", "fetch", "source", "paged").timer().count());
+        assertEquals(2, meterRegistry.get("catalog.import.stage").tags("stage", "parse", "source", "paged").timer().count());
+        assertEquals(1, meterRegistry.get("catalog.import.stage").tags("stage", "map", "source", "flat").timer().count());
+        assertEquals(2, meterRegistry.get("catalog.import.stage").tags("stage", "write", "source", "paged").timer().count());
+        assertEquals(1, meterRegistry.get("catalog.import.stage").tags("stage", "write", "source", "all").timer().count());
+        assertEquals(2, meterRegistry.get("catalog.import.rows").tag("result", "inserted").counter().count());
+    }
+
+    /**
+     * Проверяет, что без изменений во всех источниках товары не записываются, а источники получают подтверждение импорта
+     */
+    @Test
+    void importAll_WhenAllSourcesNotModified_ShouldNotWrite() {
+        ImportSource source = mock(ImportSource.class);
+        when(source.getName()).thenReturn("cached");
+        when(source.getMaxPages()).thenReturn(1);
+        when(source.fetch(eq(1), any())).thenReturn(new ImportSource.Page(0, true, true));
+        CatalogImportService service = new CatalogImportService(importProperties, productImportPipeline,
+                importStageRepository, importMetrics, List.of(source));
+
+        ImportReport report = service.importAll(new ImportProgress());
+
+        assertTrue(report.isNotModified());
+        verifyNoInteractions(productImportWriter);
+        verify(importStageRepository, never()).copyCommitted(any(), anyString(), anyInt());
+        verify(importStageRepository, never()).commit(any());
+        verify(source).onImported();
+    }
+
+    /**
+     * Проверяет, что товары источника, ответившего 304, берутся из последнего импорта с текущим рангом источника,
+     * если другой источник изменился
+     */
+    @Test
+    void importAll_WhenOneSourceNotModified_ShouldCopyItsLastImport() {
+        ImportSource cached = mock(ImportSource.class);
+        when(cached.getName()).thenReturn("cached");
+        when(cached.getMaxPages()).thenReturn(1);
+        when(cached.fetch(eq(1), any())).thenReturn(new ImportSource.Page(0, true, true));
+        CatalogImportService service = new CatalogImportService(importProperties, productImportPipeline,
+                importStageRepository, importMetrics, List.of(source("fresh", 1, 0, 2, 2, 0), cached));
+
+        ImportReport report = service.importAll(new ImportProgress());
+
+        assertFalse(report.isNotModified());
+        verify(importStageRepository).copyCommitted(any(), eq("cached"), eq(0));
+        verify(importStageRepository).commit(any());
+        verify(cached).onImported();
+    }
+
+    /**
+     * Проверяет, что при ошибке источника строки импорта удаляются, а источники не получают подтверждение импорта
+     */
+    @Test
+    void importAll_WhenSourceFails_ShouldDiscardStagedProducts() {
+        ImportSource failing = mock(ImportSource.class);
+        when(failing.getName()).thenReturn("failing");
+        when(failing.getMaxPages()).thenReturn(1);
+        when(failing.fetch(eq(1), any())).thenThrow(new RuntimeException("upstream is down"));
+        CatalogImportService service = new CatalogImportService(importProperties, productImportPipeline,
+                importStageRepository, importMetrics, List.of(source("fresh", 0, 0, 2, 2, 0), failing));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> service.importAll(new ImportProgress()));
+
+        assertEquals("upstream is down", exception.getMessage());
+        verify(importStageRepository).discard(any());
+        verify(importStageRepository, never()).commit(any());
+        verify(failing, never()).onImported();
+        verifyNoInteractions(productImportWriter);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    private List<ProductView> products;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        products = new ArrayList<>();
+        String[] categories = {"Electronics", "Books", "Clothing", null};
+        for (long id = 1; id <= 40; id++) {
+            String category = categories[(int) (id % categories.length)];
+            products.add(new ProductView(id, "Product " + id, BigDecimal.valueOf(id * 37 % 11 * 250, 2), null, null,
+                    category != null ? id % 4 : null, category, null, null, null, 0, null));
+        }
+        snapshot = CatalogSnapshot.of(5, products);
+    }
+
+    /**
+     * Проверяет фильтр по цене: границы включаются, порядок по цене и id
+     */
+    @Test
+    void findPage_ByPriceRange_ShouldReturnProductsInPriceOrder() {
+        Page<ProductView> page = snapshot.findPage(Filter.priceBetween(new BigDecimal("5.00"), new BigDecimal("12.50")),
+                PageRequest.of(0, 100, Sort.by("price"))).orElseThrow();
+
+        List<ProductView> expected = products.stream()
+                .filter(view -> view.price().compareTo(new BigDecimal("5.00")) >= 0
+                        && view.price().compareTo(new BigDecimal("12.50")) <= 0)
+                .sorted(Comparator.comparing(ProductView::price).thenComparing(ProductView::id))
+                .toList();
+        assertEquals(expected, page.getContent());
+        assertEquals(expected.size(), page.getTotalElements());
+    }
+
+    /**
+     * Проверяет, что товары категории по умолчанию возвращаются по возрастанию id постранично
+     */
+    @Test
+    void findPage_ByCategory_ShouldReturnPageInIdOrder() {
+        Page<ProductView> page = snapshot.findPage(Filter.categoryName("Books"), PageRequest.of(1, 4)).orElseThrow();
+
+        List<Long> expected = products.stream()
+                .filter(view -> "Books".equals(view.categoryName()))
+                .map(ProductView::id)
+                .skip(4).limit(4)
+                .toList();
+        assertEquals(expected, page.getContent().stream().map(ProductView::id).toList());
+        assertEquals(10, page.getTotalElements());
+    }
+
+    /**
+     * Проверяет сортировку всего каталога по убыванию цены и возрастанию категории (товары без категории — первыми)
+     */
+    @Test
+    void findPage_SortedByPriceAndCategory_ShouldMatchDatabaseOrder() {
+        Sort sort = Sort.by(Sort.Order.desc("price"), Sort.Order.asc("category.name"));
+
+        Page<ProductView> page = snapshot.findPage(Filter.all(), PageRequest.of(0, 40, sort)).orElseThrow();
+
+        Comparator<ProductView> expectedOrder = Comparator.comparing(ProductView::price).reversed()
+                .thenComparing(view -> view.categoryName() != null ? view.categoryName() : "")
+                .thenComparing(ProductView::id);
+        assertEquals(products.stream().sorted(expectedOrder).toList(), page.getContent());
+    }
+
+    /**
+     * Проверяет, что для неизвестной категории возвращается пустая страница
+     */
+    @Test
+    void findPage_WithUnknownCategory_ShouldReturnEmptyPage() {
+        Page<ProductView> page = snapshot.findPage(Filter.categoryName("Toys"), PageRequest.of(0, 10)).orElseThrow();
+
+        assertTrue(page.isEmpty());
+        assertEquals(0, page.getTotalElements());
+    }
+
+    /**
+     * Проверяет, что неизвестное свойство сортировки отклоняется, как и в базе данных
+     */
+    @Test
+    void findPage_WithUnknownSortProperty_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshot.findPage(Filter.all(), PageRequest.of(0, 10, Sort.by("title"))));
+    }
+}
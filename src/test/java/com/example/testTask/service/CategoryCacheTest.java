@@ -0,0 +1,131 @@
+package com.example.testTask.service;
+
+import com.example.testTask.model.Category;
+import com.example.testTask.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryCacheTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CategoryCache categoryCache;
+
+    private Category electronics;
+
+    @BeforeEach
+    void setUp() {
+        electronics = new Category();
+        electronics.setId(1L);
+        electronics.setName("Electronics");
+    }
+
+    /**
+     * Проверяет, что после прогрева категории берутся из кэша без запросов к базе
+     */
+    @Test
+    void getOrCreate_AfterReload_ShouldNotQueryRepository() {
+        when(categoryRepository.findAll()).thenReturn(List.of(electronics));
+        categoryCache.reload();
+
+        Category result = categoryCache.getOrCreate("Electronics");
+
+        assertSame(electronics, result);
+        verify(categoryRepository, never()).findByName(any());
+        verify(categoryRepository, never()).save(any());
+    }
+
+    /**
+     * Проверяет создание новой категории при первом обращении и её кэширование
+     */
+    @Test
+    void getOrCreate_WithNewCategory_ShouldCreateOnce() {
+        when(categoryRepository.findByName("Books")).thenReturn(null);
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> {
+            Category category = invocation.getArgument(0);
+            category.setId(2L);
+            return category;
+        });
+
+        Category first = categoryCache.getOrCreate("Books");
+        Category second = categoryCache.getOrCreate("Books");
+
+        assertEquals(2L, first.getId());
+        assertSame(first, second);
+        verify(categoryRepository, times(1)).save(any(Category.class));
+    }
+
+    /**
+     * Проверяет, что при одновременном обращении нескольких потоков к новой категории она создаётся один раз
+     */
+    @Test
+    void getOrCreate_Concurrently_ShouldCreateCategoryOnce() throws Exception {
+        when(categoryRepository.findByName("Books")).thenReturn(null);
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            Category category = invocation.getArgument(0);
+            category.setId(2L);
+            return category;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Callable<Category> task = () -> categoryCache.getOrCreate("Books");
+            List<Future<Category>> results = executor.invokeAll(Collections.nCopies(8, task));
+            for (Future<Category> result : results) {
+                assertEquals(2L, result.get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(categoryRepository, times(1)).save(any(Category.class));
+    }
+
+    /**
+     * Проверяет случай, когда категорию одновременно создал другой узел
+     */
+    @Test
+    void getOrCreate_WhenCreatedByAnotherNode_ShouldReturnExistingCategory() {
+        when(categoryRepository.findByName("Electronics")).thenReturn(null).thenReturn(electronics);
+        when(categoryRepository.save(any(Category.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        Category result = categoryCache.getOrCreate("Electronics");
+
+        assertSame(electronics, result);
+    }
+
+    /**
+     * Проверяет, что после сброса категория снова загружается из базы
+     */
+    @Test
+    void evict_ShouldReloadCategoryOnNextAccess() {
+        when(categoryRepository.findAll()).thenReturn(List.of(electronics));
+        when(categoryRepository.findByName("Electronics")).thenReturn(electronics);
+        categoryCache.reload();
+
+        categoryCache.evict("Electronics");
+        categoryCache.getOrCreate("Electronics");
+
+        verify(categoryRepository).findByName("Electronics");
+    }
+}
@@ -21,6 +21,9 @@ class CategoryServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private CategoryCacheInvalidator categoryCacheInvalidator;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -107,4 +110,14 @@ class CategoryServiceTest {
         assertEquals(1, electronicsCount);
         verify(categoryRepository).findAllUniqueCategories();
     }
+
+    /**
+     * Проверяет, что сброс кэша рассылается всем узлам
+     */
+    @Test
+    void invalidateCache_ShouldNotifyAllNodes() {
+        categoryService.invalidateCache();
+
+        verify(categoryCacheInvalidator).invalidate(null);
+    }
 }
\ No newline at end of file
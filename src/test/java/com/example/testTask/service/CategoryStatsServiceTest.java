@@ -0,0 +1,104 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.CategoryStatsDTO;
+import com.example.testTask.model.Category;
+import com.example.testTask.model.CategoryStats;
+import com.example.testTask.model.CategoryStatsDelta;
+import com.example.testTask.repository.CategoryStatsJdbcRepository;
+import com.example.testTask.repository.CategoryStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryStatsServiceTest {
+
+    @Mock
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Mock
+    private CategoryStatsJdbcRepository categoryStatsJdbcRepository;
+
+    @InjectMocks
+    private CategoryStatsService categoryStatsService;
+
+    /**
+     * Проверяет, что добавление товаров не требует пересчёта min/max
+     */
+    @Test
+    void apply_WithAdditionsOnly_ShouldNotRefreshMinMax() {
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        delta.add(1L, new BigDecimal("10.00"), 4.0);
+        delta.add(1L, new BigDecimal("30.00"), null);
+
+        categoryStatsService.apply(delta);
+
+        CategoryStatsDelta.Entry entry = delta.getEntries().iterator().next();
+        assertEquals(2, entry.getCount());
+        assertEquals(new BigDecimal("40.00"), entry.getPriceSum());
+        assertEquals(new BigDecimal("10.00"), entry.getMinPrice());
+        assertEquals(new BigDecimal("30.00"), entry.getMaxPrice());
+        assertEquals(1, entry.getRatingCount());
+        verify(categoryStatsJdbcRepository).applyDeltas(delta.getEntries());
+        verify(categoryStatsJdbcRepository, never()).refreshMinMax(any());
+    }
+
+    /**
+     * Проверяет, что удаление товара приводит к пересчёту min/max его категории
+     */
+    @Test
+    void apply_WithRemoval_ShouldRefreshMinMaxOfCategory() {
+        CategoryStatsDelta delta = new CategoryStatsDelta();
+        delta.remove(2L, new BigDecimal("15.00"), 3.5);
+
+        categoryStatsService.apply(delta);
+
+        verify(categoryStatsJdbcRepository).refreshMinMax(List.of(2L));
+    }
+
+    /**
+     * Проверяет, что пустые изменения не приводят к запросам
+     */
+    @Test
+    void apply_WithEmptyDelta_ShouldDoNothing() {
+        categoryStatsService.apply(new CategoryStatsDelta());
+
+        verifyNoInteractions(categoryStatsJdbcRepository);
+    }
+
+    /**
+     * Проверяет вычисление средних значений при чтении статистики
+     */
+    @Test
+    void findAll_ShouldComputeAverages() {
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Electronics");
+        CategoryStats stats = new CategoryStats();
+        stats.setCategoryId(1L);
+        stats.setCategory(category);
+        stats.setProductCount(4L);
+        stats.setPriceSum(new BigDecimal("100.00"));
+        stats.setMinPrice(new BigDecimal("5.00"));
+        stats.setMaxPrice(new BigDecimal("50.00"));
+        stats.setRatingSum(12.0);
+        stats.setRatingCount(3L);
+        when(categoryStatsRepository.findAllWithCategory()).thenReturn(List.of(stats));
+
+        List<CategoryStatsDTO> result = categoryStatsService.findAll();
+
+        assertEquals(1, result.size());
+        assertEquals("Electronics", result.get(0).getName());
+        assertEquals(new BigDecimal("25.00"), result.get(0).getAvgPrice());
+        assertEquals(4.0, result.get(0).getAvgRating());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ImportProperties;
+import com.example.testTask.config.ImportProperties.OverlapPolicy;
+import com.example.testTask.dto.ImportJob;
+import com.example.testTask.dto.ImportJob.State;
+import com.example.testTask.dto.ImportJob.Trigger;
+import com.example.testTask.dto.ImportReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportJobServiceTest {
+
+    @Mock
+    private CatalogImportService catalogImportService;
+
+    @Mock
+    private SyncLeaseService syncLeaseService;
+
+    @Mock
+    private ExecutorService executor;
+
+    private final ImportProperties importProperties = new ImportProperties();
+    private final List<Runnable> tasks = new ArrayList<>();
+    private ImportJobService importJobService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(executor).execute(any());
+        lenient().when(syncLeaseService.acquire()).thenReturn(true);
+        lenient().when(syncLeaseService.acquireIfDue()).thenReturn(true);
+        importJobService = new ImportJobService(catalogImportService, syncLeaseService, importProperties,
+                new ImportMetrics(new SimpleMeterRegistry()), executor);
+    }
+
+    /**
+     * Проверяет, что с политикой COALESCE повторный запрос и плановый запуск получают уже поставленную задачу
+     */
+    @Test
+    void submit_WithCoalescePolicy_ShouldReturnActiveJob() {
+        importProperties.setOverlapPolicy(OverlapPolicy.COALESCE);
+        ImportReport report = new ImportReport();
+        when(catalogImportService.importAll(any())).thenReturn(report);
+
+        ImportJob first = importJobService.submit(Trigger.API);
+        ImportJob second = importJobService.submit(Trigger.API);
+        importJobService.scheduledImport();
+
+        assertSame(first, second);
+        assertEquals(1, tasks.size());
+
+        tasks.getFirst().run();
+        assertEquals(State.SUCCEEDED, first.getState());
+        assertSame(report, first.getReport());
+        assertNotSame(first, importJobService.submit(Trigger.API));
+    }
+
+    /**
+     * Проверяет, что с политикой QUEUE задачи ставятся в очередь до app.import.max-queued-jobs
+     */
+    @Test
+    void submit_WithQueuePolicy_ShouldLimitQueuedJobs() {
+        importProperties.setOverlapPolicy(OverlapPolicy.QUEUE);
+        importProperties.setMaxQueuedJobs(2);
+
+        ImportJob first = importJobService.submit(Trigger.API);
+        ImportJob second = importJobService.submit(Trigger.API);
+
+        assertNotSame(first, second);
+        assertThrows(ImportQueueFullException.class, () -> importJobService.submit(Trigger.API));
+        assertEquals(2, tasks.size());
+        assertEquals(State.QUEUED, importJobService.find(second.getId()).orElseThrow().getState());
+    }
+
+    /**
+     * Проверяет, что отменённая в очереди задача не запускается, а выполняющаяся останавливается конвейером
+     */
+    @Test
+    void cancel_ShouldStopQueuedAndRunningJobs() {
+        importProperties.setOverlapPolicy(OverlapPolicy.QUEUE);
+        ImportJob running = importJobService.submit(Trigger.API);
+        ImportJob queued = importJobService.submit(Trigger.API);
+        when(catalogImportService.importAll(running.getProgress())).thenAnswer(invocation -> {
+            importJobService.cancel(running.getId());
+            importJobService.cancel(queued.getId());
+            running.getProgress().throwIfCancelled();
+            return new ImportReport();
+        });
+
+        tasks.forEach(Runnable::run);
+
+        assertEquals(State.CANCELLED, running.getState());
+        assertEquals("Import cancelled", running.getError());
+        assertEquals(State.CANCELLED, queued.getState());
+        verify(catalogImportService, times(1)).importAll(any());
+        assertThrows(ImportJobFinishedException.class, () -> importJobService.cancel(running.getId()));
+        assertTrue(importJobService.cancel("unknown").isEmpty());
+    }
+
+    /**
+     * Проверяет, что плановая синхронизация не ставится без аренды, а импорт по api не выполняется,
+     * пока аренда принадлежит другому экземпляру
+     */
+    @Test
+    void scheduledImport_WithoutLease_ShouldNotImport() {
+        when(syncLeaseService.acquireIfDue()).thenReturn(false);
+        when(syncLeaseService.acquire()).thenReturn(false);
+
+        importJobService.scheduledImport();
+        assertTrue(tasks.isEmpty());
+
+        ImportJob job = importJobService.submit(Trigger.API);
+        tasks.getFirst().run();
+
+        assertEquals(State.FAILED, job.getState());
+        verifyNoInteractions(catalogImportService);
+        verify(syncLeaseService, never()).release(any(), any());
+    }
+
+    /**
+     * Проверяет, что после потери аренды выполняющийся импорт отменяется, а результат записывается при освобождении
+     */
+    @Test
+    void heartbeat_WhenLeaseLost_ShouldCancelRunningJob() {
+        when(syncLeaseService.renew()).thenReturn(false);
+        ImportJob job = importJobService.submit(Trigger.API);
+        when(catalogImportService.importAll(job.getProgress())).thenAnswer(invocation -> {
+            importJobService.heartbeat();
+            job.getProgress().throwIfCancelled();
+            return new ImportReport();
+        });
+
+        tasks.getFirst().run();
+
+        assertEquals(State.CANCELLED, job.getState());
+        verify(syncLeaseService).release(job.getStartedAt(), "CANCELLED");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.testTask.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PgNotificationListenerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PgNotificationListener notificationListener;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        notificationListener = new PgNotificationListener(mock(JdbcConnectionDetails.class), jdbcTemplate);
+    }
+
+    /*
+        Отправка уведомления с перехватом полезной нагрузки, которую получила бы база данных
+     */
+    private String sent(String channel, String payload) {
+        notificationListener.notify(channel, payload);
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).query(anyString(), ArgumentMatchers.<ResultSetExtractor<Void>>any(),
+                eq(channel), captor.capture());
+        return captor.getValue();
+    }
+
+    private static PGNotification notification(String channel, String parameter) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getName()).thenReturn(channel);
+        when(notification.getParameter()).thenReturn(parameter);
+        return notification;
+    }
+
+    /**
+     * Проверяет, что подписчик на уведомления других узлов не получает уведомления своего узла
+     */
+    @Test
+    void dispatch_ToOtherNodesSubscription_ShouldSkipOwnNotifications() {
+        List<String> received = new ArrayList<>();
+        notificationListener.subscribeToOtherNodes("catalog", received::add, () -> {
+        });
+
+        notificationListener.dispatch(notification("catalog", sent("catalog", "1,2")));
+        notificationListener.dispatch(notification("catalog", "other-node:3"));
+
+        assertEquals(List.of("3"), received);
+    }
+
+    /**
+     * Проверяет, что обычный подписчик получает уведомления всех узлов без идентификатора узла
+     */
+    @Test
+    void dispatch_ShouldDeliverOwnAndOtherNotifications() {
+        List<String> received = new ArrayList<>();
+        notificationListener.subscribe("category", received::add, () -> {
+        });
+
+        notificationListener.dispatch(notification("category", sent("category", "Books")));
+        notificationListener.dispatch(notification("category", "other-node:"));
+
+        assertEquals(List.of("Books", ""), received);
+    }
+}
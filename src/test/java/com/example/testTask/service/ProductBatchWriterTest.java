@@ -0,0 +1,165 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.BatchItemResult;
+import com.example.testTask.dto.BatchItemResult.Status;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.RatingDTO;
+import com.example.testTask.model.Category;
+import com.example.testTask.model.CategoryStatsDelta;
+import com.example.testTask.model.Product;
+import com.example.testTask.model.Rating;
+import com.example.testTask.repository.ProductRepository;
+import com.example.testTask.repository.RatingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductBatchWriterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private CategoryCache categoryCache;
+
+    @Mock
+    private CategoryStatsService categoryStatsService;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @InjectMocks
+    private ProductBatchWriter productBatchWriter;
+
+    @Captor
+    private ArgumentCaptor<Iterable<Product>> productsCaptor;
+
+    @Captor
+    private ArgumentCaptor<CategoryStatsDelta> deltaCaptor;
+
+    private Category electronics;
+    private Product stored;
+
+    @BeforeEach
+    void setUp() {
+        electronics = new Category();
+        electronics.setId(5L);
+        electronics.setName("Electronics");
+
+        Rating rating = new Rating();
+        rating.setId(11L);
+        rating.setRate(3.0);
+        rating.setCount(5);
+
+        stored = new Product();
+        stored.setId(1L);
+        stored.setTitle("Laptop");
+        stored.setPrice(new BigDecimal("12.00"));
+        stored.setCategory(electronics);
+        stored.setRating(rating);
+        stored.setFingerprint("outdated");
+        stored.setVersion(3);
+    }
+
+    private ProductDTO product(Long id, String title) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setPrice(new BigDecimal("10.00"));
+        dto.setCategory("Electronics");
+        RatingDTO rating = new RatingDTO();
+        rating.setRate(4.0);
+        rating.setCount(10);
+        dto.setRating(rating);
+        return dto;
+    }
+
+    /**
+     * Проверяет, что товары без id создаются, существующие обновляются на месте,
+     * а некорректные, повторные и отсутствующие отмечаются ошибкой с позицией в запросе
+     */
+    @Test
+    void writeChunk_ShouldCreateUpdateAndReportFailures() {
+        ProductDTO updated = product(1L, "Laptop Pro");
+        ProductDTO created = product(null, "Phone");
+        ProductDTO invalid = product(null, null);
+        ProductDTO duplicate = product(1L, "Laptop Air");
+        ProductDTO missing = product(99L, "Tablet");
+
+        when(productRepository.findAllById(Set.of(1L, 99L))).thenReturn(List.of(stored));
+        when(categoryCache.getOrCreate("Electronics")).thenReturn(electronics);
+        when(productRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<Product> saved = new ArrayList<>();
+            for (Product product : invocation.<Iterable<Product>>getArgument(0)) {
+                product.setId(51L);
+                saved.add(product);
+            }
+            return saved;
+        });
+
+        List<BatchItemResult> results = productBatchWriter.writeChunk(
+                List.of(updated, created, invalid, duplicate, missing), 500);
+
+        assertEquals(List.of(
+                BatchItemResult.of(500, 1L, Status.UPDATED),
+                BatchItemResult.of(501, 51L, Status.CREATED),
+                BatchItemResult.failed(502, null, "Title is required"),
+                BatchItemResult.failed(503, 1L, "Duplicate product id in batch: 1"),
+                BatchItemResult.failed(504, 99L, "Product not found with id: 99")), results);
+
+        assertEquals("Laptop Pro", stored.getTitle());
+        assertEquals(11L, stored.getRating().getId());
+        assertEquals(4.0, stored.getRating().getRate());
+        assertEquals(ProductFingerprint.of(updated), stored.getFingerprint());
+
+        InOrder inOrder = inOrder(ratingRepository, productRepository, categoryStatsService, catalogVersionService);
+        inOrder.verify(ratingRepository).saveAll(anyIterable());
+        inOrder.verify(productRepository).saveAll(productsCaptor.capture());
+        inOrder.verify(productRepository).flush();
+        inOrder.verify(categoryStatsService).apply(deltaCaptor.capture());
+        inOrder.verify(catalogVersionService).bump(List.of(51L, 1L));
+
+        assertEquals("Phone", productsCaptor.getValue().iterator().next().getTitle());
+        CategoryStatsDelta.Entry entry = deltaCaptor.getValue().getEntries().iterator().next();
+        assertEquals(1, entry.getCount());
+        assertEquals(new BigDecimal("8.00"), entry.getPriceSum());
+        assertTrue(entry.isRemoved());
+    }
+
+    /**
+     * Проверяет, что порция без изменений не записывается и не меняет версию каталога
+     */
+    @Test
+    void writeChunk_WithUnchangedProduct_ShouldNotWrite() {
+        ProductDTO unchanged = product(1L, "Laptop");
+        stored.setFingerprint(ProductFingerprint.of(unchanged));
+        when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(stored));
+
+        List<BatchItemResult> results = productBatchWriter.writeChunk(List.of(unchanged), 0);
+
+        assertEquals(List.of(BatchItemResult.of(0, 1L, Status.UNCHANGED)), results);
+        assertEquals(3, stored.getVersion());
+        verify(productRepository, never()).saveAll(anyIterable());
+        verify(productRepository, never()).flush();
+        verifyNoInteractions(categoryStatsService, catalogVersionService);
+    }
+}
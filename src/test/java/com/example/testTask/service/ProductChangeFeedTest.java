@@ -0,0 +1,95 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductChangeProperties;
+import com.example.testTask.dto.ChangeBatch;
+import com.example.testTask.dto.ProductChange;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductChangeRepository;
+import com.example.testTask.repository.ProductViewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductChangeFeedTest {
+
+    @Mock
+    private ProductChangeRepository productChangeRepository;
+
+    @Mock
+    private ProductViewRepository productViewRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ProductChangeProperties properties = new ProductChangeProperties();
+    private ProductChangeFeed productChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        properties.setMaxBatchSize(2);
+        productChangeFeed = new ProductChangeFeed(productChangeRepository, productViewRepository, properties,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productChangeFeed.stop();
+    }
+
+    private ProductChange change(long seq, long productId, boolean deleted) {
+        return new ProductChange(seq, productId, deleted, Instant.EPOCH, null);
+    }
+
+    private ProductView product(long id) {
+        return new ProductView(id, "Product " + id, BigDecimal.TEN, null, null, 1L, "Electronics", null, null, null,
+                0, Instant.EPOCH);
+    }
+
+    /**
+     * Проверяет, что изменения дополняются товарами одним запросом, удалённые товары идут без данных,
+     * а следующая порция начинается с номера последнего изменения
+     */
+    @Test
+    void getChanges_ShouldAttachProductsAndReturnNextCursor() {
+        when(productChangeRepository.findSince(10, 3)).thenReturn(List.of(change(11, 7, false), change(12, 8, true)));
+        when(productViewRepository.findAllById(List.of(7L))).thenReturn(List.of(product(7)));
+
+        ChangeBatch batch = productChangeFeed.getChanges(10, 100);
+
+        assertEquals(2, batch.changes().size());
+        assertEquals(7L, batch.changes().get(0).product().id());
+        assertNull(batch.changes().get(1).product());
+        assertEquals(12, batch.next());
+        assertFalse(batch.hasMore());
+        verify(transactionManager).commit(any());
+    }
+
+    /**
+     * Проверяет, что размер порции ограничен app.products.changes.max-batch-size,
+     * а признак hasMore выставляется, только если после порции есть изменения
+     */
+    @Test
+    void getChanges_WithMoreChanges_ShouldLimitBatch() {
+        when(productChangeRepository.findSince(0, 3))
+                .thenReturn(List.of(change(1, 1, true), change(2, 2, true), change(3, 3, true)));
+
+        ChangeBatch batch = productChangeFeed.getChanges(0, 100);
+
+        assertEquals(List.of(1L, 2L), batch.changes().stream().map(ProductChange::seq).toList());
+        assertEquals(2, batch.next());
+        assertTrue(batch.hasMore());
+        assertThrows(IllegalArgumentException.class, () -> productChangeFeed.getChanges(-1, 10));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductExportProperties;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пропускная способность и расход памяти выгрузки каталога на PostgreSQL в Testcontainers.
+ * Количество товаров — системное свойство export.rows (по умолчанию 2 000 000).
+ * Запускается отдельно: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductViewRepository.class)
+class ProductExportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("export.rows", 2_000_000);
+    private static final long HEAP_SAMPLE_BYTES = 8L * 1024 * 1024;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ProductViewRepository productViewRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Выводит скорость выгрузки, объём и прирост занятой памяти для NDJSON и CSV
+     */
+    @Test
+    void exportCatalog() throws IOException {
+        jdbcTemplate.update("INSERT INTO category (name) SELECT 'Category ' || i FROM generate_series(1, 20) i");
+        jdbcTemplate.update("INSERT INTO product (title, price, description, image, category_id) " +
+                "SELECT 'Product ' || i, (i % 1000) + 0.99, repeat('Description of product ' || i || '. ', 4), " +
+                "'https://example.com/' || i || '.jpg', (SELECT min(category_id) FROM category) + i % 20 " +
+                "FROM generate_series(1, ?) i", ROWS);
+        jdbcTemplate.execute("ANALYZE product");
+
+        ProductExportProperties properties = new ProductExportProperties();
+        ProductExportService service = new ProductExportService(productViewRepository, properties, transactionManager);
+
+        service.write(ProductExportService.Format.NDJSON, Filter.all(), new MeasuringOutputStream());
+
+        System.out.printf("%-8s %10s %12s %12s %10s %14s%n", "format", "products", "products/s", "MB", "MB/s", "heap delta, MB");
+        for (ProductExportService.Format format : ProductExportService.Format.values()) {
+            MeasuringOutputStream out = new MeasuringOutputStream();
+            long start = System.nanoTime();
+            long rows = service.write(format, Filter.all(), out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double megabytes = out.bytes / 1024.0 / 1024.0;
+            System.out.printf("%-8s %10d %12.0f %12.1f %10.1f %14.1f%n", format, rows, rows / seconds, megabytes,
+                    megabytes / seconds, (out.maxHeapUsed - out.initialHeapUsed) / 1024.0 / 1024.0);
+            assertEquals(ROWS, rows);
+        }
+    }
+
+    /*
+        Поток, который отбрасывает данные, считает байты и периодически замеряет занятую память
+     */
+    private static final class MeasuringOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long initialHeapUsed;
+        private long maxHeapUsed;
+        private long bytes;
+        private long nextSample = HEAP_SAMPLE_BYTES;
+
+        private MeasuringOutputStream() {
+            System.gc();
+            initialHeapUsed = memory.getHeapMemoryUsage().getUsed();
+            maxHeapUsed = initialHeapUsed;
+        }
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int len) {
+            bytes += len;
+            if (bytes >= nextSample) {
+                nextSample += HEAP_SAMPLE_BYTES;
+                maxHeapUsed = Math.max(maxHeapUsed, memory.getHeapMemoryUsage().getUsed());
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductExportProperties;
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock
+    private ProductViewRepository productViewRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ProductExportProperties properties = new ProductExportProperties();
+    private ProductExportService productExportService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setFetchSize(100);
+        properties.setMaxConcurrent(1);
+        productExportService = new ProductExportService(productViewRepository, properties, transactionManager);
+    }
+
+    private void givenProducts(ProductView... products) {
+        doAnswer(invocation -> {
+            Consumer<ProductView> action = invocation.getArgument(2);
+            for (ProductView product : products) {
+                action.accept(product);
+            }
+            return null;
+        }).when(productViewRepository).forEach(eq(Filter.all()), eq(100), any());
+    }
+
+    private ProductView product(long id, String title, String description) {
+        return new ProductView(id, title, new BigDecimal("109.95"), description, null, 1L, "Electronics", 2L, 3.9, 120,
+                0, Instant.EPOCH);
+    }
+
+    /**
+     * Проверяет, что NDJSON содержит по товару в строке в формате ответов api, а товары читаются курсором в транзакции
+     */
+    @Test
+    void export_AsNdjson_ShouldWriteOneProductPerLine() throws IOException {
+        givenProducts(product(1, "Laptop", null), product(2, "Phone", "Smart"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productExportService.export(ProductExportService.Format.NDJSON, Filter.all(), false).writeTo(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("{\"id\":1,\"title\":\"Laptop\",\"price\":109.95,\"description\":null,\"image\":null," +
+                "\"category\":{\"id\":1,\"name\":\"Electronics\"},\"rating\":{\"id\":2,\"rate\":3.9,\"count\":120}}", lines.get(0));
+        assertTrue(lines.get(1).startsWith("{\"id\":2,\"title\":\"Phone\""));
+        verify(transactionManager).commit(any());
+    }
+
+    /**
+     * Проверяет, что CSV экранирует запятые, кавычки и переводы строк, а сжатая выгрузка распаковывается
+     */
+    @Test
+    void export_AsGzippedCsv_ShouldQuoteSpecialCharacters() throws IOException {
+        givenProducts(product(1, "Laptop, 15\"", "Fast\nLight"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productExportService.export(ProductExportService.Format.CSV, Filter.all(), true).writeTo(out);
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals("id,title,price,description,image,category_id,category_name,rating_id,rate,rating_count\r\n" +
+                "1,\"Laptop, 15\"\"\",109.95,\"Fast\nLight\",,1,Electronics,2,3.9,120\r\n", csv);
+    }
+
+    /**
+     * Проверяет, что выгрузки сверх app.products.export.max-concurrent отклоняются, а разрешение возвращается
+     * и после обрыва соединения клиентом
+     */
+    @Test
+    void export_WhenLimitReached_ShouldRejectUntilPreviousFinishes() {
+        givenProducts(product(1, "Laptop", null));
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        var first = productExportService.export(ProductExportService.Format.NDJSON, Filter.all(), false);
+        ExportLimitExceededException rejected = assertThrows(ExportLimitExceededException.class,
+                () -> productExportService.export(ProductExportService.Format.CSV, Filter.all(), false));
+        assertEquals(properties.getRetryAfter(), rejected.getRetryAfter());
+
+        assertThrows(IOException.class, () -> first.writeTo(closed));
+        assertDoesNotThrow(() -> productExportService.export(ProductExportService.Format.CSV, Filter.all(), false));
+        assertThrows(IllegalArgumentException.class, () -> ProductExportService.Format.of("xml"));
+    }
+
+    /**
+     * Проверяет, что разрешение возвращается, если запись выгрузки так и не началась, только один раз,
+     * а выгрузка с возвращённым разрешением не читает товары
+     */
+    @Test
+    void export_WhenReleasedBeforeWrite_ShouldFreePermitOnce() {
+        var abandoned = productExportService.export(ProductExportService.Format.NDJSON, Filter.all(), false);
+
+        abandoned.release();
+        abandoned.release();
+
+        assertDoesNotThrow(() -> productExportService.export(ProductExportService.Format.CSV, Filter.all(), false));
+        assertThrows(ExportLimitExceededException.class,
+                () -> productExportService.export(ProductExportService.Format.CSV, Filter.all(), false));
+        assertThrows(IOException.class, () -> abandoned.writeTo(new ByteArrayOutputStream()));
+        verifyNoInteractions(productViewRepository);
+    }
+
+    /**
+     * Проверяет разбор Accept-Encoding: gzip с q=0 не принимается, явная gzip важнее *
+     */
+    @Test
+    void acceptsGzip_ShouldRespectQualityValues() {
+        assertTrue(ProductExportService.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ProductExportService.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(ProductExportService.acceptsGzip("*"));
+        assertFalse(ProductExportService.acceptsGzip(null));
+        assertFalse(ProductExportService.acceptsGzip("gzip;q=0"));
+        assertFalse(ProductExportService.acceptsGzip("gzip; q=0.000, *"));
+        assertFalse(ProductExportService.acceptsGzip("*;q=0"));
+        assertFalse(ProductExportService.acceptsGzip("deflate, identity"));
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ImportProperties;
+import com.example.testTask.dto.ImportChunkReport;
+import com.example.testTask.dto.ImportProgress;
+import com.example.testTask.dto.ImportReport;
+import com.example.testTask.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportPipelineTest {
+
+    @Mock
+    private ProductImportWriter productImportWriter;
+
+    private ProductImportPipeline productImportPipeline;
+
+    @BeforeEach
+    void setUp() {
+        ImportProperties importProperties = new ImportProperties();
+        importProperties.setChunkSize(2);
+        importProperties.setParallelism(3);
+        importProperties.setQueueCapacity(1);
+        productImportPipeline = new ProductImportPipeline(new ObjectMapper(), productImportWriter, importProperties,
+                new ImportMetrics(new SimpleMeterRegistry()));
+    }
+
+    private InputStream json(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+        Разбор с записью порций в базу данных, как при слиянии
+     */
+    private ImportReport run(InputStream body, ImportProgress progress) {
+        ImportReport report = new ImportReport();
+        ProductImportPipeline.Result result = productImportPipeline.read(body, "test", progress,
+                chunk -> productImportPipeline.write(chunk, report, progress));
+        report.addSkipped(result.skipped());
+        return report;
+    }
+
+    private ImportReport run(InputStream body) {
+        return run(body, new ImportProgress());
+    }
+
+    private String product(int id) {
+        return "{\"id\":" + id + ",\"title\":\"Product " + id + "\",\"price\":10.5,\"category\":\"Electronics\"," +
+                "\"rating\":{\"rate\":4.1,\"count\":7}}";
+    }
+
+    /**
+     * Проверяет, что товары записываются порциями не больше app.import.chunk-size
+     */
+    @Test
+    void read_ShouldWriteProductsInChunks() {
+        when(productImportWriter.writeChunk(anyList())).thenAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(0);
+            assertTrue(chunk.size() <= 2);
+            return new ImportChunkReport(chunk.size(), 0, 0, 0, 1);
+        });
+        String body = "[" + product(1) + "," + product(2) + "," + product(3) + "," + product(4) + "," + product(5) + "]";
+
+        ImportReport report = run(json(body));
+
+        assertEquals(5, report.getInserted());
+        assertEquals(3, report.getChunks().size());
+        verify(productImportWriter, times(3)).writeChunk(anyList());
+    }
+
+    /**
+     * Проверяет, что некорректные элементы массива пропускаются, не прерывая импорт
+     */
+    @Test
+    void read_WithMalformedElements_ShouldSkipThem() {
+        when(productImportWriter.writeChunk(anyList())).thenAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(0);
+            return new ImportChunkReport(chunk.size(), 0, 0, 0, 1);
+        });
+        String body = "[" + product(1) + ",{\"id\":2,\"price\":\"abc\"},{\"id\":3},null]";
+
+        ImportReport report = run(json(body));
+
+        assertEquals(1, report.getInserted());
+        assertEquals(3, report.getSkipped());
+    }
+
+    /**
+     * Проверяет, что товары с неполным рейтингом и со слишком длинными полями пропускаются,
+     * а пустой рейтинг считается отсутствующим
+     */
+    @Test
+    void read_WithIncompleteRatingOrTooLongFields_ShouldSkipThem() {
+        when(productImportWriter.writeChunk(anyList())).thenAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(0);
+            assertTrue(chunk.stream().allMatch(dto -> dto.getRating() == null));
+            return new ImportChunkReport(chunk.size(), 0, 0, 0, 1);
+        });
+        String body = "[" +
+                "{\"id\":1,\"title\":\"Product 1\",\"price\":10.5,\"category\":\"Electronics\",\"rating\":{}}," +
+                "{\"id\":2,\"title\":\"Product 2\",\"price\":10.5,\"category\":\"Electronics\",\"rating\":{\"rate\":4.1}}," +
+                "{\"id\":3,\"title\":\"" + "t".repeat(256) + "\",\"price\":10.5,\"category\":\"Electronics\"}," +
+                "{\"id\":4,\"title\":\"Product 4\",\"price\":10.5,\"category\":\"Electronics\"," +
+                "\"description\":\"" + "d".repeat(2001) + "\"}," +
+                "{\"id\":5,\"title\":\"Product 5\",\"price\":10.5,\"category\":\"Electronics\"," +
+                "\"image\":\"" + "i".repeat(256) + "\"}]";
+
+        ImportReport report = run(json(body));
+
+        assertEquals(1, report.getInserted());
+        assertEquals(4, report.getSkipped());
+    }
+
+    /**
+     * Проверяет, что счётчики прогресса учитывают прочитанные, преобразованные, записанные и пропущенные товары
+     */
+    @Test
+    void read_ShouldReportProgress() {
+        when(productImportWriter.writeChunk(anyList())).thenAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(0);
+            return new ImportChunkReport(chunk.size() - 1, 0, 0, 1, 1);
+        });
+        ImportProgress progress = new ImportProgress();
+        progress.start();
+        String body = "[" + product(1) + "," + product(2) + ",{\"id\":3}," + product(4) + "]";
+
+        run(json(body), progress);
+
+        assertEquals(4, progress.getFetched());
+        assertEquals(3, progress.getMapped());
+        assertEquals(1, progress.getWritten());
+        assertEquals(3, progress.getFailed());
+    }
+
+    /**
+     * Проверяет, что отменённый импорт останавливается до записи следующей порции
+     */
+    @Test
+    void read_WhenCancelled_ShouldStopBeforeNextChunk() {
+        ImportProgress progress = new ImportProgress();
+        when(productImportWriter.writeChunk(anyList())).thenAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(0);
+            progress.cancel();
+            return new ImportChunkReport(chunk.size(), 0, 0, 0, 1);
+        });
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 1; i <= 100; i++) {
+            body.append(i > 1 ? "," : "").append(product(i));
+        }
+        body.append("]");
+
+        assertThrows(CancellationException.class, () -> run(json(body.toString()), progress));
+        verify(productImportWriter).writeChunk(anyList());
+        assertEquals(2, progress.getWritten());
+    }
+
+    /**
+     * Проверяет, что пустой массив не приводит к записи
+     */
+    @Test
+    void read_WithEmptyArray_ShouldNotWrite() {
+        ImportReport report = run(json("[]"));
+
+        assertEquals(0, report.getInserted());
+        verifyNoInteractions(productImportWriter);
+    }
+
+    /**
+     * Проверяет, что ошибка записи останавливает все стадии и пробрасывается вызывающему
+     */
+    @Test
+    void read_WhenWriterFails_ShouldPropagateException() {
+        when(productImportWriter.writeChunk(anyList())).thenThrow(new RuntimeException("db is down"));
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 1; i <= 100; i++) {
+            body.append(i > 1 ? "," : "").append(product(i));
+        }
+        body.append("]");
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> run(json(body.toString())));
+        assertEquals("db is down", exception.getMessage());
+    }
+
+    /**
+     * Проверяет, что ответ, не являющийся массивом, приводит к ошибке
+     */
+    @Test
+    void read_WithNonArrayBody_ShouldThrowException() {
+        assertThrows(RuntimeException.class, () -> run(json("{\"id\":1}")));
+        verifyNoInteractions(productImportWriter);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ImportChunkReport;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.RatingDTO;
+import com.example.testTask.model.Product;
+import com.example.testTask.repository.ProductJdbcRepository;
+import com.example.testTask.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/*
+    Импорт в PostgreSQL со схемой из миграций вперемешку с созданием товаров через JPA:
+    id из внешнего api хранится в external_id, product_id выдаёт последовательность.
+    Выполняется только при доступном Docker
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductImportWriterSyncTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private ProductImportWriter productImportWriter;
+
+    @BeforeEach
+    void setUp() {
+        productImportWriter = new ProductImportWriter(new ProductJdbcRepository(namedParameterJdbcTemplate),
+                mock(CategoryCache.class), mock(CategoryStatsService.class), mock(CatalogVersionService.class));
+    }
+
+    private static ProductDTO product(Long id, String title) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setPrice(new BigDecimal("10.00"));
+        dto.setCategory("Electronics");
+        RatingDTO rating = new RatingDTO();
+        rating.setRate(4.0);
+        rating.setCount(10);
+        dto.setRating(rating);
+        return dto;
+    }
+
+    private static Product entity(String title) {
+        Product product = new Product();
+        product.setTitle(title);
+        product.setPrice(new BigDecimal("5.00"));
+        return product;
+    }
+
+    private List<ProductDTO> feed() {
+        return List.of(product(1L, "Laptop"), product(2L, "Phone"), product(3L, "Tablet"));
+    }
+
+    /**
+     * Проверяет, что товары находятся по id из внешнего api и повторная синхронизация того же каталога
+     * ничего не добавляет и не перезаписывает
+     */
+    @Test
+    void writeChunk_SameFeedTwice_ShouldInsertNothingSecondTime() {
+        ImportChunkReport first = productImportWriter.writeChunk(feed());
+        ImportChunkReport second = productImportWriter.writeChunk(feed());
+
+        assertEquals(3, first.getInserted());
+        assertEquals(List.of(1L, 2L, 3L),
+                jdbcTemplate.queryForList("SELECT external_id FROM product ORDER BY external_id", Long.class));
+        assertEquals(0, second.getInserted());
+        assertEquals(0, second.getUpdated());
+        assertEquals(3, second.getUnchanged());
+    }
+
+    /**
+     * Проверяет, что импорт товара с id, совпадающим с id товара из JPA, не перезаписывает его,
+     * а последующие вставки через JPA не получают занятых импортом id
+     */
+    @Test
+    void writeChunk_MixedWithJpaCreates_ShouldNotOverwriteOrCollide() {
+        Product local = productRepository.saveAndFlush(entity("Local product"));
+
+        productImportWriter.writeChunk(List.of(product(local.getId(), "Imported"), product(local.getId() + 1, "Next")));
+        for (int i = 0; i < 60; i++) {
+            productRepository.save(entity("Local " + i));
+        }
+        productRepository.flush();
+
+        assertEquals("Local product", jdbcTemplate.queryForObject(
+                "SELECT title FROM product WHERE product_id = ?", String.class, local.getId()));
+        assertEquals(63, jdbcTemplate.queryForObject("SELECT count(DISTINCT product_id) FROM product", Integer.class));
+        assertEquals(List.of("Imported", "Next"), jdbcTemplate.queryForList(
+                "SELECT title FROM product WHERE external_id IS NOT NULL ORDER BY external_id", String.class));
+    }
+}
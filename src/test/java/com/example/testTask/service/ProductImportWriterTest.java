@@ -0,0 +1,199 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ImportChunkReport;
+import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.RatingDTO;
+import com.example.testTask.model.Category;
+import com.example.testTask.model.CategoryStatsDelta;
+import com.example.testTask.repository.ProductJdbcRepository;
+import com.example.testTask.repository.ProductJdbcRepository.ExistingProduct;
+import com.example.testTask.repository.ProductJdbcRepository.ProductRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportWriterTest {
+
+    @Mock
+    private ProductJdbcRepository productJdbcRepository;
+
+    @Mock
+    private CategoryCache categoryCache;
+
+    @Mock
+    private CategoryStatsService categoryStatsService;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @InjectMocks
+    private ProductImportWriter productImportWriter;
+
+    @Captor
+    private ArgumentCaptor<List<ProductRow>> insertCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<ProductRow>> updateCaptor;
+
+    @Captor
+    private ArgumentCaptor<CategoryStatsDelta> deltaCaptor;
+
+    private ProductDTO product(Long id, String title, String category) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setPrice(new BigDecimal("10.00"));
+        dto.setCategory(category);
+        RatingDTO rating = new RatingDTO();
+        rating.setRate(4.0);
+        rating.setCount(10);
+        dto.setRating(rating);
+        return dto;
+    }
+
+    /**
+     * Проверяет, что существующие товары обновляются, новые добавляются,
+     * а товары без обязательных полей пропускаются
+     */
+    @Test
+    void writeChunk_ShouldSplitInsertsUpdatesAndSkips() {
+        ProductDTO existing = product(1L, "Laptop", "Electronics");
+        ProductDTO created = product(2L, "Phone", "Electronics");
+        ProductDTO invalid = product(3L, null, "Electronics");
+
+        Map<Long, ExistingProduct> stored = new HashMap<>();
+        stored.put(1L, new ExistingProduct(101L, 11L, "outdated", 5L, new BigDecimal("12.00"), 3.0));
+        when(productJdbcRepository.findExistingByExternalIds(anyCollection())).thenReturn(stored);
+        when(productJdbcRepository.findCategoryIdsByNames(anyCollection()))
+                .thenReturn(new HashMap<>(Map.of("Electronics", 5L)));
+        when(productJdbcRepository.insertRatings(anyList())).thenReturn(List.of(12L));
+        when(productJdbcRepository.insertProducts(anyList())).thenReturn(List.of(2L));
+
+        ImportChunkReport report = productImportWriter.writeChunk(List.of(existing, created, invalid));
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getSkipped());
+        verify(productJdbcRepository).updateRatings(Map.of(11L, existing.getRating()));
+        verify(productJdbcRepository).updateProducts(updateCaptor.capture());
+        verify(productJdbcRepository).insertProducts(insertCaptor.capture());
+        verify(productJdbcRepository, never()).insertMissingCategories(anyCollection());
+
+        ProductRow updated = updateCaptor.getValue().get(0);
+        assertSame(existing, updated.getProduct());
+        assertEquals(101L, updated.getProductId());
+        assertEquals(11L, updated.getRatingId());
+        assertEquals(5L, updated.getCategoryId());
+        assertEquals(ProductFingerprint.of(existing), updated.getFingerprint());
+
+        ProductRow inserted = insertCaptor.getValue().get(0);
+        assertSame(created, inserted.getProduct());
+        assertNull(inserted.getProductId());
+        assertEquals(12L, inserted.getRatingId());
+
+        verify(categoryStatsService).apply(deltaCaptor.capture());
+        CategoryStatsDelta.Entry entry = deltaCaptor.getValue().getEntries().iterator().next();
+        assertEquals(1, entry.getCount());
+        assertEquals(new BigDecimal("8.00"), entry.getPriceSum());
+        assertTrue(entry.isRemoved());
+        verify(catalogVersionService).bump(List.of(2L, 101L));
+    }
+
+    /**
+     * Проверяет создание отсутствующих категорий одним пакетом
+     */
+    @Test
+    void writeChunk_WithNewCategory_ShouldInsertMissingCategories() {
+        ProductDTO created = product(null, "Book", "Books");
+
+        when(productJdbcRepository.findExistingByExternalIds(anyCollection())).thenReturn(new HashMap<>());
+        when(productJdbcRepository.findCategoryIdsByNames(anyCollection()))
+                .thenReturn(new HashMap<>())
+                .thenReturn(new HashMap<>(Map.of("Books", 7L)));
+        when(productJdbcRepository.insertRatings(anyList())).thenReturn(List.of(20L));
+
+        ImportChunkReport report = productImportWriter.writeChunk(List.of(created));
+
+        assertEquals(1, report.getInserted());
+        assertEquals(0, report.getUpdated());
+        verify(productJdbcRepository).insertMissingCategories(Set.of("Books"));
+        verify(productJdbcRepository).insertProducts(insertCaptor.capture());
+        assertEquals(7L, insertCaptor.getValue().get(0).getCategoryId());
+        assertEquals(20L, insertCaptor.getValue().get(0).getRatingId());
+    }
+
+    /**
+     * Проверяет, что повторяющийся в порции id записывается один раз
+     */
+    @Test
+    void writeChunk_WithDuplicateIds_ShouldSkipEarlierDuplicate() {
+        ProductDTO first = product(4L, "Old title", "Electronics");
+        ProductDTO second = product(4L, "New title", "Electronics");
+
+        when(productJdbcRepository.findExistingByExternalIds(anyCollection())).thenReturn(new HashMap<>());
+        when(productJdbcRepository.findCategoryIdsByNames(anyCollection()))
+                .thenReturn(new HashMap<>(Map.of("Electronics", 5L)));
+        when(productJdbcRepository.insertRatings(anyList())).thenReturn(List.of(30L));
+
+        ImportChunkReport report = productImportWriter.writeChunk(List.of(first, second));
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getSkipped());
+        verify(productJdbcRepository).insertProducts(insertCaptor.capture());
+        assertSame(second, insertCaptor.getValue().get(0).getProduct());
+    }
+
+    /**
+     * Проверяет, что товары с неизменившимся отпечатком не перезаписываются
+     */
+    @Test
+    void writeChunk_WithUnchangedProducts_ShouldNotWrite() {
+        ProductDTO same = product(1L, "Laptop", "Electronics");
+
+        Map<Long, ExistingProduct> stored = new HashMap<>();
+        stored.put(1L, new ExistingProduct(101L, 11L, ProductFingerprint.of(same), 5L, same.getPrice(), 4.0));
+        when(productJdbcRepository.findExistingByExternalIds(anyCollection())).thenReturn(stored);
+
+        ImportChunkReport report = productImportWriter.writeChunk(List.of(same));
+
+        assertEquals(0, report.getInserted());
+        assertEquals(0, report.getUpdated());
+        assertEquals(1, report.getUnchanged());
+        verify(productJdbcRepository).findExistingByExternalIds(anyCollection());
+        verifyNoMoreInteractions(productJdbcRepository);
+        verifyNoInteractions(categoryStatsService);
+    }
+
+    /**
+     * Проверяет, что категории из кэша не запрашиваются в базе данных
+     */
+    @Test
+    void writeChunk_WithCachedCategory_ShouldNotQueryCategories() {
+        ProductDTO created = product(5L, "Tablet", "Electronics");
+        Category electronics = new Category();
+        electronics.setId(5L);
+        electronics.setName("Electronics");
+
+        when(productJdbcRepository.findExistingByExternalIds(anyCollection())).thenReturn(new HashMap<>());
+        when(categoryCache.getIfPresent("Electronics")).thenReturn(electronics);
+        when(productJdbcRepository.insertRatings(anyList())).thenReturn(List.of(40L));
+
+        productImportWriter.writeChunk(List.of(created));
+
+        verify(productJdbcRepository, never()).findCategoryIdsByNames(anyCollection());
+        verify(productJdbcRepository).insertProducts(insertCaptor.capture());
+        assertEquals(5L, insertCaptor.getValue().get(0).getCategoryId());
+    }
+}
\ No newline at end of file
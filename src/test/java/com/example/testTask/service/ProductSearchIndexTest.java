@@ -0,0 +1,115 @@
+package com.example.testTask.service;
+
+import com.example.testTask.dto.ProductView;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductViewRepository productViewRepository;
+
+    @InjectMocks
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(productViewRepository.findAll()).thenReturn(List.of(
+                view(1L, "Gaming Laptop", "Fast laptop with backlit keyboard", "19.99", "Electronics"),
+                view(2L, "Laptop Bag", "Water resistant bag", "49.99", "Bags"),
+                view(3L, "Mechanical Keyboard", "Keyboard for a laptop or desktop", "89.99", "Electronics"),
+                view(4L, "Cotton T-Shirt", "Soft cotton", "9.99", "Clothing"),
+                view(6L, "Wool Scarf", "Warm winter scarf", "14.99", "Clothing"),
+                view(7L, "Desk Lamp", "Adjustable lamp", "24.99", "Home"),
+                view(8L, "Coffee Mug", "Ceramic mug", "7.99", "Home"),
+                view(9L, "Notebook", "Lined paper notebook", "3.99", "Stationery")));
+        productSearchIndex.onApplicationReady();
+    }
+
+    private static ProductView view(Long id, String title, String description, String price, String category) {
+        return new ProductView(id, title, new BigDecimal(price), description, null,
+                null, category, null, null, null, 0, null);
+    }
+
+    private List<Long> search(String query, Filter filter) {
+        return productSearchIndex.search(query, filter, PageRequest.of(0, 10)).getContent();
+    }
+
+    /**
+     * Проверяет, что совпадение в названии ранжируется выше совпадения в описании
+     */
+    @Test
+    void search_ShouldRankTitleMatchesFirst() {
+        List<Long> result = search("LAPTOP", Filter.all());
+
+        assertEquals(3, result.size());
+        assertEquals(3L, result.get(2));
+    }
+
+    /**
+     * Проверяет фильтрацию найденных товаров по категории и цене с общим количеством
+     */
+    @Test
+    void search_WithFilter_ShouldReturnMatchingProductsOnly() {
+        Page<Long> page = productSearchIndex.search("keyboard laptop",
+                new Filter(new BigDecimal("20"), null, "Electronics"), PageRequest.of(0, 10));
+
+        assertEquals(List.of(3L), page.getContent());
+        assertEquals(1, page.getTotalElements());
+    }
+
+    /**
+     * Проверяет, что изменённые, удалённые и новые товары учитываются после события изменения каталога,
+     * в том числе новый товар с id меньше уже проиндексированных
+     */
+    @Test
+    void onCatalogChanged_ShouldReindexChangedAndNewProducts() {
+        when(productViewRepository.findAllById(Set.of(2L, 4L, 5L))).thenReturn(List.of(
+                view(4L, "Linen Shirt", "Light linen", "29.99", "Clothing"),
+                view(5L, "Cotton Socks", "Warm cotton socks", "4.99", "Clothing")));
+
+        productSearchIndex.onCatalogChanged(CatalogChangedEvent.of(Set.of(2L, 4L, 5L)));
+
+        assertEquals(List.of(1L, 3L), search("laptop", Filter.all()));
+        assertEquals(List.of(4L), search("linen", Filter.all()));
+        assertEquals(List.of(5L), search("cotton", Filter.all()));
+        verify(productViewRepository, times(1)).findAll();
+    }
+
+    /**
+     * Проверяет, что индекс перестраивается из базы данных, когда удалённых документов становится больше четверти
+     */
+    @Test
+    void onCatalogChanged_WithManyDeletions_ShouldRebuildIndex() {
+        when(productViewRepository.findAllById(Set.of(2L, 6L, 7L))).thenReturn(List.of());
+
+        productSearchIndex.onCatalogChanged(CatalogChangedEvent.of(Set.of(2L, 6L, 7L)));
+
+        verify(productViewRepository, times(2)).findAll();
+    }
+
+    /**
+     * Проверяет, что запрос без слов возвращает пустую страницу
+     */
+    @Test
+    void search_WithBlankQuery_ShouldReturnEmptyPage() {
+        assertTrue(search(" ,. ", Filter.all()).isEmpty());
+        verify(productViewRepository, never()).findAllById(any());
+    }
+}
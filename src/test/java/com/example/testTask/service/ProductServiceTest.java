@@ -1,24 +1,39 @@
 package com.example.testTask.service;
 
+import com.example.testTask.config.ProductBatchProperties;
+import com.example.testTask.dto.BatchItemResult;
+import com.example.testTask.dto.BatchItemResult.Status;
+import com.example.testTask.dto.BatchReport;
+import com.example.testTask.dto.CursorPage;
 import com.example.testTask.dto.ProductDTO;
+import com.example.testTask.dto.ProductFacets;
+import com.example.testTask.dto.ProductView;
 import com.example.testTask.dto.RatingDTO;
 import com.example.testTask.model.Product;
 import com.example.testTask.model.Category;
+import com.example.testTask.model.CategoryStatsDelta;
 import com.example.testTask.model.Rating;
-import com.example.testTask.repository.CategoryRepository;
+import com.example.testTask.repository.CategoryStatsRepository;
+import com.example.testTask.repository.ProductFacetRepository;
 import com.example.testTask.repository.ProductRepository;
+import com.example.testTask.repository.ProductViewRepository;
+import com.example.testTask.repository.ProductViewRepository.Filter;
 import com.example.testTask.repository.RatingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,11 +46,38 @@ class ProductServiceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryCache categoryCache;
+
+    @Mock
+    private CategoryStatsService categoryStatsService;
+
+    @Mock
+    private CategoryStatsRepository categoryStatsRepository;
 
     @Mock
     private RatingRepository ratingRepository;
 
+    @Mock
+    private ProductViewRepository productViewRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductFacetRepository productFacetRepository;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Mock
+    private ProductBatchWriter productBatchWriter;
+
+    @Spy
+    private ProductBatchProperties productBatchProperties = new ProductBatchProperties();
+
     @InjectMocks
     private ProductService productService;
 
@@ -45,6 +87,8 @@ class ProductServiceTest {
     private Category category2;
     private Rating rating;
     private ProductDTO productDTO;
+    private ProductView view1;
+    private ProductView view2;
 
     @BeforeEach
     void setUp() {
@@ -75,6 +119,11 @@ class ProductServiceTest {
         product2.setCategory(category2);
         product2.setRating(rating);
 
+        view1 = new ProductView(1L, "Laptop", new BigDecimal("999.99"), null, null,
+                1L, "Electronics", 1L, 4.5, 100, 0, null);
+        view2 = new ProductView(2L, "T-Shirt", new BigDecimal("19.99"), null, null,
+                2L, "Clothing", 1L, 4.5, 100, 0, null);
+
         productDTO = new ProductDTO();
         productDTO.setTitle("Phone");
         productDTO.setPrice(new BigDecimal("499.99"));
@@ -92,14 +141,37 @@ class ProductServiceTest {
     @Test
     void getAllProducts_ShouldReturnPageOfProducts() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Product> expectedPage = new PageImpl<>(List.of(product1, product2));
-        when(productRepository.findAll(pageable)).thenReturn(expectedPage);
+        Page<ProductView> expectedPage = new PageImpl<>(List.of(view1, view2));
+        when(productViewRepository.findPage(Filter.all(), pageable)).thenReturn(expectedPage);
 
-        Page<Product> result = productService.getAllProducts(pageable);
+        Page<ProductView> result = productService.getAllProducts(pageable);
 
         assertEquals(2, result.getTotalElements());
-        assertTrue(result.getContent().containsAll(List.of(product1, product2)));
-        verify(productRepository).findAll(pageable);
+        assertTrue(result.getContent().containsAll(List.of(view1, view2)));
+        verify(productViewRepository).findPage(Filter.all(), pageable);
+        verifyNoInteractions(productRepository);
+    }
+
+    /**
+     * Проверяет получение представления товара по существующему идентификатору
+     */
+    @Test
+    void getProductView_WithExistingId_ShouldReturnView() {
+        when(productViewRepository.findById(1L)).thenReturn(Optional.of(view1));
+
+        ProductView result = productService.getProductView(1L);
+
+        assertEquals(view1, result);
+    }
+
+    /**
+     * Проверяет обработку запроса представления несуществующего товара
+     */
+    @Test
+    void getProductView_WithNonExistingId_ShouldThrowException() {
+        when(productViewRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> productService.getProductView(99L));
     }
 
     /**
@@ -133,10 +205,13 @@ class ProductServiceTest {
      */
     @Test
     void createProduct_ShouldSaveNewProduct() {
-        when(categoryRepository.findByName("Electronics")).thenReturn(null);
-        when(categoryRepository.save(any(Category.class))).thenReturn(category1);
+        when(categoryCache.getOrCreate("Electronics")).thenReturn(category1);
         when(ratingRepository.save(any(Rating.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
+            Product saved = invocation.getArgument(0);
+            saved.setId(3L);
+            return saved;
+        });
 
         Product result = productService.createProduct(productDTO);
 
@@ -146,24 +221,67 @@ class ProductServiceTest {
         assertEquals(4.0, result.getRating().getRate());
         assertEquals(80, result.getRating().getCount());
         verify(productRepository).save(any(Product.class));
+        verify(catalogVersionService).bump(Set.of(3L));
     }
 
     /**
-     * Проверяет обновление данных существующего товара
+     * Проверяет обновление данных существующего товара на месте:
+     * сущность и рейтинг изменяются без создания новых строк
      */
     @Test
     void updateProduct_WithExistingId_ShouldUpdateProduct() {
         when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
-        when(categoryRepository.findByName("Electronics")).thenReturn(category1);
-        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        Product result = productService.updateProduct(1L, productDTO);
+        Product result = productService.updateProduct(1L, productDTO, null);
 
-        assertEquals(1L, result.getId());
+        assertSame(product1, result);
         assertEquals("Phone", result.getTitle());
         assertEquals(new BigDecimal("499.99"), result.getPrice());
-        assertEquals("Electronics", result.getCategory().getName());
-        verify(productRepository).save(any(Product.class));
+        assertSame(category1, result.getCategory());
+        assertSame(rating, result.getRating());
+        assertEquals(4.0, result.getRating().getRate());
+        verify(productRepository, never()).save(any());
+        verify(ratingRepository, never()).save(any());
+        verifyNoInteractions(categoryCache);
+        verify(productRepository).flush();
+        verify(catalogVersionService).bump(Set.of(1L));
+    }
+
+    /**
+     * Проверяет, что частичное редактирование изменяет только переданные поля
+     */
+    @Test
+    void patchProduct_ShouldChangeOnlyGivenFields() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+        when(categoryCache.getOrCreate("Clothing")).thenReturn(category2);
+        ProductDTO patch = new ProductDTO();
+        patch.setPrice(new BigDecimal("899.99"));
+        patch.setCategory("Clothing");
+
+        Product result = productService.patchProduct(1L, patch, 0L);
+
+        assertEquals("Laptop", result.getTitle());
+        assertEquals(new BigDecimal("899.99"), result.getPrice());
+        assertSame(category2, result.getCategory());
+        assertSame(rating, result.getRating());
+        assertEquals(ProductFingerprint.of(result), result.getFingerprint());
+        verify(categoryStatsService).apply(any(CategoryStatsDelta.class));
+        verify(catalogVersionService).bump(Set.of(1L));
+    }
+
+    /**
+     * Проверяет, что изменение товара с устаревшей версией отклоняется до записи
+     */
+    @Test
+    void patchProduct_WithOutdatedVersion_ShouldThrowException() {
+        product1.setVersion(4);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> productService.patchProduct(1L, productDTO, 3L));
+        assertEquals("Laptop", product1.getTitle());
+        verify(productRepository, never()).flush();
+        verifyNoInteractions(catalogVersionService);
     }
 
     /**
@@ -174,15 +292,15 @@ class ProductServiceTest {
         BigDecimal minPrice = new BigDecimal("100");
         BigDecimal maxPrice = new BigDecimal("1000");
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Product> expectedPage = new PageImpl<>(List.of(product1));
-        when(productRepository.findByPrice(minPrice, maxPrice, pageable)).thenReturn(expectedPage);
+        Page<ProductView> expectedPage = new PageImpl<>(List.of(view1));
+        when(productViewRepository.findPage(Filter.priceBetween(minPrice, maxPrice), pageable)).thenReturn(expectedPage);
 
-        Page<Product> result = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
+        Page<ProductView> result = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
 
         assertEquals(1, result.getTotalElements());
-        assertTrue(result.getContent().contains(product1));
-        assertFalse(result.getContent().contains(product2));
-        verify(productRepository).findByPrice(minPrice, maxPrice, pageable);
+        assertTrue(result.getContent().contains(view1));
+        assertFalse(result.getContent().contains(view2));
+        verify(productViewRepository).findPage(Filter.priceBetween(minPrice, maxPrice), pageable);
     }
 
     /**
@@ -193,7 +311,7 @@ class ProductServiceTest {
     void updateProduct_WithNonExistingId_ShouldThrowException() {
         when(productRepository.findById(99L)).thenReturn(Optional.empty());
 
-        assertThrows(RuntimeException.class, () -> productService.updateProduct(99L, productDTO));
+        assertThrows(RuntimeException.class, () -> productService.updateProduct(99L, productDTO, null));
         verify(productRepository).findById(99L);
         verify(productRepository, never()).save(any());
     }
@@ -203,9 +321,12 @@ class ProductServiceTest {
      */
     @Test
     void deleteProduct_WithExistingId_ShouldDeleteProduct() {
-        when(productRepository.existsById(1L)).thenReturn(true);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product1));
         productService.deleteProduct(1L);
         verify(productRepository).deleteById(1L);
+        verify(ratingRepository).delete(rating);
+        verify(categoryStatsService).apply(any(CategoryStatsDelta.class));
+        verify(catalogVersionService).bump(Set.of(1L));
     }
 
     /**
@@ -214,7 +335,7 @@ class ProductServiceTest {
      */
     @Test
     void deleteProduct_WithNonExistingId_ShouldThrowException() {
-        when(productRepository.existsById(99L)).thenReturn(false);
+        when(productRepository.findById(99L)).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, () -> productService.deleteProduct(99L));
         verify(productRepository, never()).deleteById(any());
@@ -227,13 +348,13 @@ class ProductServiceTest {
     @Test
     void getProductsByPriceRange_WithNullValues_ShouldReturnAllProducts() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Product> expectedPage = new PageImpl<>(List.of(product1, product2));
-        when(productRepository.findByPrice(null, null, pageable)).thenReturn(expectedPage);
+        Page<ProductView> expectedPage = new PageImpl<>(List.of(view1, view2));
+        when(productViewRepository.findPage(Filter.priceBetween(null, null), pageable)).thenReturn(expectedPage);
 
-        Page<Product> result = productService.getProductsByPriceRange(null, null, pageable);
+        Page<ProductView> result = productService.getProductsByPriceRange(null, null, pageable);
 
         assertEquals(2, result.getTotalElements());
-        verify(productRepository).findByPrice(null, null, pageable);
+        verify(productViewRepository).findPage(Filter.all(), pageable);
     }
 
     /**
@@ -244,15 +365,15 @@ class ProductServiceTest {
     void getProductsByCategory_ShouldReturnFilteredProducts() {
         String categoryName = "Electronics";
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Product> expectedPage = new PageImpl<>(List.of(product1));
+        Page<ProductView> expectedPage = new PageImpl<>(List.of(view1));
 
-        when(productRepository.findAllByCategoryName(categoryName, pageable)).thenReturn(expectedPage);
+        when(productViewRepository.findPage(Filter.categoryName(categoryName), pageable)).thenReturn(expectedPage);
 
-        Page<Product> result = productService.getProductsByCategory(categoryName, pageable);
+        Page<ProductView> result = productService.getProductsByCategory(categoryName, pageable);
 
         assertEquals(1, result.getTotalElements());
-        assertEquals(product1, result.getContent().get(0));
-        verify(productRepository).findAllByCategoryName(categoryName, pageable);
+        assertEquals(view1, result.getContent().get(0));
+        verify(productViewRepository).findPage(Filter.categoryName(categoryName), pageable);
     }
 
     /**
@@ -263,12 +384,12 @@ class ProductServiceTest {
         String priceDirection = "desc";
         Sort sort = Sort.by(Sort.Order.desc("price"));
         Pageable pageable = PageRequest.of(0, 10, sort);
-        when(productRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(product1, product2)));
+        when(productViewRepository.findPage(Filter.all(), pageable)).thenReturn(new PageImpl<>(List.of(view1, view2)));
 
-        Page<Product> result = productService.getProductsSorted(priceDirection, null, pageable);
+        Page<ProductView> result = productService.getProductsSorted(priceDirection, null, PageRequest.of(0, 10));
 
         assertEquals(2, result.getTotalElements());
-        assertTrue(result.getContent().get(0).getPrice().compareTo(result.getContent().get(1).getPrice()) >= 0);
+        assertTrue(result.getContent().get(0).price().compareTo(result.getContent().get(1).price()) >= 0);
     }
 
     /**
@@ -279,12 +400,12 @@ class ProductServiceTest {
         String priceDirection = "asc";
         Sort sort = Sort.by(Sort.Order.asc("price"));
         Pageable pageable = PageRequest.of(0, 10, sort);
-        when(productRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(product2, product1)));
+        when(productViewRepository.findPage(Filter.all(), pageable)).thenReturn(new PageImpl<>(List.of(view2, view1)));
 
-        Page<Product> result = productService.getProductsSorted(priceDirection, null, pageable);
+        Page<ProductView> result = productService.getProductsSorted(priceDirection, null, PageRequest.of(0, 10));
 
         assertEquals(2, result.getTotalElements());
-        assertTrue(result.getContent().get(0).getPrice().compareTo(result.getContent().get(1).getPrice()) <= 0);
+        assertTrue(result.getContent().get(0).price().compareTo(result.getContent().get(1).price()) <= 0);
     }
 
     /**
@@ -295,12 +416,12 @@ class ProductServiceTest {
         String categoryDirection = "desc";
         Sort sort = Sort.by(Sort.Order.desc("category.name"));
         Pageable pageable = PageRequest.of(0, 10, sort);
-        when(productRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(product1, product2)));
+        when(productViewRepository.findPage(Filter.all(), pageable)).thenReturn(new PageImpl<>(List.of(view1, view2)));
 
-        Page<Product> result = productService.getProductsSorted(null, categoryDirection, pageable);
+        Page<ProductView> result = productService.getProductsSorted(null, categoryDirection, PageRequest.of(0, 10));
 
         assertEquals(2, result.getTotalElements());
-        assertTrue(result.getContent().get(0).getCategory().getName().compareToIgnoreCase(result.getContent().get(1).getCategory().getName()) >= 0);
+        assertTrue(result.getContent().get(0).categoryName().compareToIgnoreCase(result.getContent().get(1).categoryName()) >= 0);
     }
 
     /**
@@ -311,12 +432,12 @@ class ProductServiceTest {
         String categoryDirection = "asc";
         Sort sort = Sort.by(Sort.Order.asc("category.name"));
         Pageable pageable = PageRequest.of(0, 10, sort);
-        when(productRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(product2, product1)));
+        when(productViewRepository.findPage(Filter.all(), pageable)).thenReturn(new PageImpl<>(List.of(view2, view1)));
 
-        Page<Product> result = productService.getProductsSorted(null, categoryDirection, pageable);
+        Page<ProductView> result = productService.getProductsSorted(null, categoryDirection, PageRequest.of(0, 10));
 
         assertEquals(2, result.getTotalElements());
-        assertTrue(result.getContent().get(0).getCategory().getName().compareToIgnoreCase(result.getContent().get(1).getCategory().getName()) <= 0);
+        assertTrue(result.getContent().get(0).categoryName().compareToIgnoreCase(result.getContent().get(1).categoryName()) <= 0);
     }
 
     /**
@@ -331,17 +452,132 @@ class ProductServiceTest {
                 Sort.Order.asc("category.name")
         );
         Pageable pageable = PageRequest.of(0, 10, sort);
-        Product product3 = new Product();
-        product3.setPrice(new BigDecimal("999.99"));
-        product3.setCategory(category2);
-        when(productRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(product1, product3, product2)));
+        ProductView view3 = new ProductView(3L, "Jacket", new BigDecimal("999.99"), null, null,
+                2L, "Clothing", null, null, null, 0, null);
+        when(productViewRepository.findPage(Filter.all(), pageable)).thenReturn(new PageImpl<>(List.of(view1, view3, view2)));
 
-        Page<Product> result = productService.getProductsSorted(priceDirection, categoryDirection, pageable);
+        Page<ProductView> result = productService.getProductsSorted(priceDirection, categoryDirection, PageRequest.of(0, 10));
 
         assertEquals(3, result.getTotalElements());
-        assertTrue(result.getContent().get(0).getPrice().compareTo(result.getContent().get(1).getPrice()) >= 0);
-        assertTrue(result.getContent().get(1).getPrice().compareTo(result.getContent().get(2).getPrice()) >= 0);
-        assertEquals("Electronics", result.getContent().get(0).getCategory().getName());
-        assertEquals("Clothing", result.getContent().get(1).getCategory().getName());
+        assertTrue(result.getContent().get(0).price().compareTo(result.getContent().get(1).price()) >= 0);
+        assertTrue(result.getContent().get(1).price().compareTo(result.getContent().get(2).price()) >= 0);
+        assertEquals("Electronics", result.getContent().get(0).categoryName());
+        assertEquals("Clothing", result.getContent().get(1).categoryName());
+    }
+
+    /**
+     * Проверяет курсорную пагинацию: следующая страница выдаётся курсором последнего элемента
+     */
+    @Test
+    void scrollAllProducts_ShouldReturnNextCursor() {
+        ProductView view3 = new ProductView(3L, "Jacket", new BigDecimal("59.99"), null, null,
+                2L, "Clothing", null, null, null, 0, null);
+        Sort sort = Sort.by(Sort.Order.asc("id"));
+        when(productViewRepository.findAfter(Filter.all(), sort, Map.of(), 3)).thenReturn(List.of(view1, view2, view3));
+
+        CursorPage<ProductView> result = productService.scrollAllProducts("", 2, false);
+
+        assertEquals(2, result.getSize());
+        assertEquals(List.of(view1, view2), result.getContent());
+        assertTrue(result.isHasNext());
+        assertNull(result.getTotalElements());
+        ScrollPosition next = ProductCursor.decode(result.getNextCursor(), sort);
+        assertEquals(Map.of("id", 2L), ((KeysetScrollPosition) next).getKeys());
+        verify(productViewRepository, never()).count(any());
+    }
+
+    /**
+     * Проверяет, что на последней странице курсор не выдаётся, а общее количество берётся из статистики категорий
+     */
+    @Test
+    void scrollProductsByCategory_OnLastPage_ShouldNotReturnCursor() {
+        String cursor = ProductCursor.encode(ScrollPosition.forward(Map.of("id", 0L)));
+        when(productViewRepository.findAfter(Filter.categoryName("Electronics"), Sort.by(Sort.Order.asc("id")),
+                Map.of("id", 0L), 11)).thenReturn(List.of(view1));
+        when(categoryStatsRepository.countProductsByCategoryName("Electronics")).thenReturn(1L);
+
+        CursorPage<ProductView> result = productService.scrollProductsByCategory("Electronics", cursor, 10, true);
+
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        assertEquals(1L, result.getTotalElements());
+    }
+
+    /**
+     * Проверяет, что курсор, выданный для другой сортировки, отклоняется
+     */
+    @Test
+    void scrollProductsSorted_WithCursorOfAnotherSort_ShouldThrowException() {
+        String cursor = ProductCursor.encode(ScrollPosition.forward(Map.of("id", 5L)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.scrollProductsSorted("asc", null, cursor, 10, false));
+        verifyNoInteractions(productViewRepository);
+    }
+
+    /**
+     * Проверяет, что найденные товары загружаются одним запросом и возвращаются в порядке релевантности
+     */
+    @Test
+    void searchProducts_ShouldReturnViewsInRankOrder() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Filter filter = new Filter(null, null, null);
+        when(productSearchIndex.search("laptop shirt", filter, pageable)).thenReturn(new PageImpl<>(List.of(2L, 1L), pageable, 2));
+        when(productViewRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(view1, view2));
+
+        Page<ProductView> result = productService.searchProducts("laptop shirt", null, null, null, pageable);
+
+        assertEquals(List.of(view2, view1), result.getContent());
+        assertEquals(2, result.getTotalElements());
+    }
+
+    /**
+     * Проверяет, что фасеты считаются одним запросом для заданного фильтра
+     */
+    @Test
+    void getFacets_ShouldQueryRepositoryOnceWithFilter() {
+        ProductFacets facets = new ProductFacets(1, List.of(), List.of(), List.of(), 0);
+        Filter filter = new Filter(new BigDecimal("10"), null, "Electronics");
+        when(productFacetRepository.find(filter, new BigDecimal("50"))).thenReturn(facets);
+
+        ProductFacets result = productService.getFacets(new BigDecimal("10"), null, "Electronics", new BigDecimal("50"));
+
+        assertSame(facets, result);
+        verify(productFacetRepository).find(filter, new BigDecimal("50"));
+    }
+
+    /**
+     * Проверяет, что товары пишутся порциями, а порция с ошибкой повторяется по одному товару
+     */
+    @Test
+    void batchUpsert_WhenChunkFails_ShouldRetryItemsOneByOne() {
+        productBatchProperties.setChunkSize(2);
+        ProductDTO first = new ProductDTO();
+        ProductDTO second = new ProductDTO();
+        second.setId(7L);
+        ProductDTO third = new ProductDTO();
+        when(productBatchWriter.writeChunk(List.of(first, second), 0)).thenThrow(new RuntimeException("constraint violation"));
+        when(productBatchWriter.writeChunk(List.of(first), 0)).thenReturn(List.of(BatchItemResult.of(0, 51L, Status.CREATED)));
+        when(productBatchWriter.writeChunk(List.of(second), 1)).thenThrow(new RuntimeException("constraint violation"));
+        when(productBatchWriter.writeChunk(List.of(third), 2)).thenReturn(List.of(BatchItemResult.of(2, 52L, Status.CREATED)));
+
+        BatchReport report = productService.batchUpsert(List.of(first, second, third));
+
+        assertEquals(2, report.getCreated());
+        assertEquals(1, report.getFailed());
+        assertEquals(BatchItemResult.failed(1, 7L, "constraint violation"), report.getItems().get(1));
+        assertEquals(List.of(0, 1, 2), report.getItems().stream().map(BatchItemResult::index).toList());
+    }
+
+    /**
+     * Проверяет отклонение слишком большого пакета
+     */
+    @Test
+    void batchUpsert_WithTooManyProducts_ShouldThrowException() {
+        productBatchProperties.setMaxItems(1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.batchUpsert(List.of(new ProductDTO(), new ProductDTO())));
+        verifyNoInteractions(productBatchWriter);
     }
-}
\ No newline at end of file
+}
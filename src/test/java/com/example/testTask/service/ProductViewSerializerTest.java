@@ -0,0 +1,130 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductJsonCacheProperties;
+import com.example.testTask.dto.PageResponse;
+import com.example.testTask.dto.ProductView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductViewSerializerTest {
+
+    private ProductJsonCacheProperties properties;
+    private ProductJsonCache productJsonCache;
+    private ObjectMapper objectMapper;
+
+    private final ProductView laptop = new ProductView(1L, "Laptop", new BigDecimal("999.99"), "Fast", "laptop.png",
+            5L, "Electronics", 7L, 4.5, 100, 3, Instant.parse("2026-01-01T00:00:00Z"));
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductJsonCacheProperties();
+        productJsonCache = new ProductJsonCache(properties);
+        objectMapper = new ObjectMapper().registerModule(new SimpleModule()
+                .addSerializer(ProductView.class, new ProductViewSerializer(productJsonCache)));
+    }
+
+    /**
+     * Проверяет, что представление сериализуется в том же виде, что и сущность Product
+     */
+    @Test
+    void serialize_ShouldWriteProductShape() throws Exception {
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(laptop));
+
+        assertEquals(1L, json.get("id").asLong());
+        assertEquals("Laptop", json.get("title").asText());
+        assertEquals(new BigDecimal("999.99"), json.get("price").decimalValue());
+        assertEquals("Electronics", json.get("category").get("name").asText());
+        assertEquals(5L, json.get("category").get("id").asLong());
+        assertEquals(4.5, json.get("rating").get("rate").asDouble());
+        assertEquals(100, json.get("rating").get("count").asInt());
+        assertFalse(json.has("version"));
+    }
+
+    /**
+     * Проверяет, что товар без рейтинга сериализуется с rating = null
+     */
+    @Test
+    void serialize_WithoutRating_ShouldWriteNull() throws Exception {
+        ProductView view = new ProductView(2L, "Book", new BigDecimal("10.00"), null, null,
+                6L, "Books", null, null, null, 0, null);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(view));
+
+        assertTrue(json.get("rating").isNull());
+    }
+
+    /**
+     * Проверяет, что страница товаров сериализуется в том же виде, что и Page из Spring Data (с pageable и sort)
+     */
+    @Test
+    void serialize_PageResponse_ShouldMatchSpringPage() {
+        Page<ProductView> page = new PageImpl<>(List.of(laptop), PageRequest.of(1, 1), 3);
+
+        JsonNode expected = objectMapper.valueToTree(page);
+        JsonNode actual = objectMapper.valueToTree(PageResponse.of(page));
+
+        assertEquals(expected, actual);
+        assertEquals(1, actual.get("pageable").get("offset").asLong());
+    }
+
+    /**
+     * Проверяет, что при включённом кэше список собирается из готового json того же вида
+     */
+    @Test
+    void serialize_WithCacheEnabled_ShouldWriteSameJson() throws Exception {
+        String uncached = objectMapper.writeValueAsString(List.of(laptop));
+        properties.setEnabled(true);
+
+        String cached = objectMapper.writeValueAsString(List.of(laptop));
+        String cachedAgain = objectMapper.writeValueAsString(List.of(laptop));
+
+        assertEquals(objectMapper.readTree(uncached), objectMapper.readTree(cached));
+        assertEquals(cached, cachedAgain);
+    }
+
+    /**
+     * Проверяет, что json берётся из кэша только при совпадении версии товара
+     */
+    @Test
+    void cache_ShouldReuseJsonOnlyForSameVersion() {
+        properties.setEnabled(true);
+        AtomicInteger serializations = new AtomicInteger();
+
+        productJsonCache.get(laptop, view -> "v" + serializations.incrementAndGet());
+        String hit = productJsonCache.get(laptop, view -> "v" + serializations.incrementAndGet());
+        ProductView changed = new ProductView(1L, "Laptop Pro", new BigDecimal("1299.99"), "Fast", "laptop.png",
+                5L, "Electronics", 7L, 4.5, 100, 4, Instant.parse("2026-01-02T00:00:00Z"));
+        String miss = productJsonCache.get(changed, view -> "v" + serializations.incrementAndGet());
+
+        assertEquals("v1", hit);
+        assertEquals("v2", miss);
+    }
+
+    /**
+     * Проверяет, что после сброса товара json сериализуется заново
+     */
+    @Test
+    void evict_ShouldForceSerialization() {
+        properties.setEnabled(true);
+        AtomicInteger serializations = new AtomicInteger();
+
+        productJsonCache.get(laptop, view -> "v" + serializations.incrementAndGet());
+        productJsonCache.evict(1L);
+        String result = productJsonCache.get(laptop, view -> "v" + serializations.incrementAndGet());
+
+        assertEquals("v2", result);
+    }
+}
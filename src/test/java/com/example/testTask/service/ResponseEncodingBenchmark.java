@@ -0,0 +1,104 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.ProductJsonCacheProperties;
+import com.example.testTask.dto.PageResponse;
+import com.example.testTask.dto.ProductView;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Размер страницы товаров и время её сериализации в json, Smile и CBOR, без сжатия и с gzip.
+ * Сериализация — тем же ProductViewSerializer, что и в ответах api.
+ * Запускается отдельно: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class ResponseEncodingBenchmark {
+
+    private static final int[] PAGE_SIZES = {10, 100, 1000};
+    private static final int ITERATIONS = 2_000;
+
+    private final Map<String, ObjectMapper> mappers = Map.of(
+            "json", mapper(new JsonFactory()),
+            "smile", mapper(new SmileFactory()),
+            "cbor", mapper(new CBORFactory()));
+
+    /**
+     * Выводит размер страницы (байт, байт с gzip) и время сериализации для каждой кодировки и размера страницы
+     */
+    @Test
+    void compareEncodings() throws IOException {
+        System.out.printf("%-6s %6s %10s %10s %14s %14s%n", "format", "page", "bytes", "gzip", "encode, µs", "gzip, µs");
+        for (int size : PAGE_SIZES) {
+            PageResponse<ProductView> page = page(size);
+            int jsonBytes = mappers.get("json").writeValueAsBytes(page).length;
+            for (String format : List.of("json", "smile", "cbor")) {
+                ObjectMapper mapper = mappers.get(format);
+                byte[] encoded = mapper.writeValueAsBytes(page);
+                byte[] compressed = gzip(encoded);
+
+                int iterations = Math.max(20, ITERATIONS * 10 / size);
+                for (int i = 0; i < iterations; i++) {
+                    mapper.writeValueAsBytes(page);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    mapper.writeValueAsBytes(page);
+                }
+                double encodeMicros = (System.nanoTime() - start) / 1e3 / iterations;
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    gzip(mapper.writeValueAsBytes(page));
+                }
+                double gzipMicros = (System.nanoTime() - start) / 1e3 / iterations;
+
+                System.out.printf("%-6s %6d %10d %10d %14.1f %14.1f%n", format, size, encoded.length, compressed.length,
+                        encodeMicros, gzipMicros);
+                assertTrue(encoded.length <= jsonBytes);
+            }
+        }
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        ProductJsonCache productJsonCache = new ProductJsonCache(new ProductJsonCacheProperties());
+        return new ObjectMapper(factory).registerModule(new SimpleModule()
+                .addSerializer(ProductView.class, new ProductViewSerializer(productJsonCache)));
+    }
+
+    private static PageResponse<ProductView> page(int size) {
+        String[] categories = {"electronics", "jewelery", "men's clothing", "women's clothing"};
+        List<ProductView> content = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            content.add(new ProductView((long) i, "Product " + i, BigDecimal.valueOf(i * 137L % 100_000, 2),
+                    "Description of product " + i + ", a typical catalog item with a few sentences of text.",
+                    "https://fakestoreapi.com/img/" + i + ".jpg", (long) (i % 4 + 1), categories[i % 4],
+                    (long) i, (i % 50) / 10.0, i % 500, 1, Instant.EPOCH));
+        }
+        return PageResponse.of(new PageImpl<>(content, PageRequest.of(0, size), 20_000));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.testTask.service;
+
+import com.example.testTask.config.SyncLeaseProperties;
+import com.example.testTask.dto.SyncLease;
+import com.example.testTask.repository.SyncLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Аренда синхронизации для нескольких экземпляров приложения на одной базе данных PostgreSQL со схемой из миграций.
+    Каждый экземпляр — отдельный SyncLeaseService со своим идентификатором, запросы выполняются вне транзакции теста.
+    Выполняется только при доступном Docker
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SyncLeaseRepository.class)
+class SyncLeaseServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private SyncLeaseRepository syncLeaseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM sync_lease");
+    }
+
+    private SyncLeaseService node(String nodeId, Duration ttl) {
+        SyncLeaseProperties properties = new SyncLeaseProperties();
+        properties.setNodeId(nodeId);
+        properties.setTtl(ttl);
+        return new SyncLeaseService(syncLeaseRepository, properties);
+    }
+
+    /**
+     * Проверяет, что аренду получает один экземпляр, а после завершения синхронизации
+     * ни один экземпляр не запускает её повторно до истечения интервала
+     */
+    @Test
+    void acquireIfDue_ShouldRunSyncOnceForAllNodes() {
+        SyncLeaseService first = node("node-1", Duration.ofMinutes(2));
+        SyncLeaseService second = node("node-2", Duration.ofMinutes(2));
+
+        assertTrue(first.acquireIfDue());
+        assertFalse(second.acquireIfDue());
+        assertFalse(second.acquire());
+        assertEquals("node-1", second.getStatus().lease().owner());
+
+        Instant startedAt = Instant.now();
+        first.release(startedAt, "SUCCEEDED");
+
+        assertFalse(first.acquireIfDue());
+        assertFalse(second.acquireIfDue());
+        SyncLease lease = second.getStatus().lease();
+        assertEquals("node-1", lease.lastRunOwner());
+        assertEquals("SUCCEEDED", lease.lastRunState());
+        assertNotNull(lease.lastRunFinishedAt());
+        assertFalse(first.isHeld());
+
+        assertTrue(second.acquire());
+        assertTrue(second.isHeld());
+    }
+
+    /**
+     * Проверяет, что после остановки владельца аренду берёт другой экземпляр, а прежний владелец её теряет
+     */
+    @Test
+    void acquire_WhenOwnerStopsRenewing_ShouldFailOver() throws InterruptedException {
+        SyncLeaseService leader = node("node-1", Duration.ofMillis(200));
+        SyncLeaseService follower = node("node-2", Duration.ofMillis(200));
+
+        assertTrue(leader.acquireIfDue());
+        assertTrue(leader.renew());
+        assertFalse(follower.acquireIfDue());
+
+        Thread.sleep(400);
+
+        assertTrue(follower.acquireIfDue());
+        assertFalse(leader.renew());
+        assertFalse(leader.isHeld());
+        assertTrue(follower.renew());
+        assertEquals("node-2", leader.getStatus().lease().owner());
+    }
+}